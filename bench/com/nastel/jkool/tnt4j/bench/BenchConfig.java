@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+
+/**
+ * Builds tracking loggers used by benchmarks without external configuration files.
+ * Loggers write via {@code BufferedEventSinkFactory} to {@code NullEventSinkFactory},
+ * so benchmarks measure the logging pipeline and not the I/O.
+ *
+ * @version $Revision: 1 $
+ */
+final class BenchConfig {
+	private BenchConfig() {
+	}
+
+	/**
+	 * Create a tracking logger with a sink level filter
+	 *
+	 * @param name source name
+	 * @param level minimum severity passed by the sink filter
+	 * @return new tracking logger instance
+	 */
+	static TrackingLogger newLogger(String name, String level) {
+		Properties props = new Properties();
+		props.setProperty("source", name);
+		props.setProperty("source.factory", "com.nastel.jkool.tnt4j.source.SourceFactoryImpl");
+		props.setProperty("tracker.factory", "com.nastel.jkool.tnt4j.tracker.DefaultTrackerFactory");
+		props.setProperty("dump.sink.factory", "com.nastel.jkool.tnt4j.dump.DefaultDumpSinkFactory");
+		props.setProperty("event.sink.factory", "com.nastel.jkool.tnt4j.sink.BufferedEventSinkFactory");
+		props.setProperty("event.sink.factory.EventSinkFactory", "com.nastel.jkool.tnt4j.sink.NullEventSinkFactory");
+		props.setProperty("event.sink.factory.Filter", "com.nastel.jkool.tnt4j.filters.EventLevelTimeFilter");
+		props.setProperty("event.sink.factory.Filter.Level", level);
+		props.setProperty("event.formatter", "com.nastel.jkool.tnt4j.format.SimpleFormatter");
+		props.setProperty("tracking.selector", "com.nastel.jkool.tnt4j.selector.DefaultTrackingSelector");
+		Map<String, Properties> configMap = new HashMap<String, Properties>();
+		configMap.put(name, props);
+		return TrackingLogger.getInstance(name, configMap);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.utils.TimeService;
+import com.nastel.jkool.tnt4j.utils.Useconds;
+
+/**
+ * Compares cost of precise and coarse (cached) clocks.
+ * Coarse benchmarks run in a JVM with {@code tnt4j.time.clock.mode=coarse}.
+ * Run using {@code ant bench -Dbench.include=ClockBenchmark}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class ClockBenchmark {
+
+	@Benchmark
+	@Fork(1)
+	public long systemMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Benchmark
+	@Fork(1)
+	public long timeServiceMillis() {
+		return TimeService.currentTimeMillis();
+	}
+
+	@Benchmark
+	@Fork(1)
+	public long preciseUsecs() {
+		return Useconds.CURRENT.get();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dtnt4j.time.clock.mode=coarse")
+	public long coarseUsecs() {
+		return Useconds.COARSE.get();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dtnt4j.time.clock.mode=coarse")
+	public long coarseMillis() {
+		return TimeService.coarseTimeMillis();
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.OpType;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.core.ValueTypes;
+import com.nastel.jkool.tnt4j.format.EventFormatter;
+import com.nastel.jkool.tnt4j.format.JSONFormatter;
+import com.nastel.jkool.tnt4j.format.SimpleFormatter;
+import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+
+/**
+ * Measures cost of {@link JSONFormatter} and {@link SimpleFormatter} on a representative
+ * tracking event (correlator, tag, message arguments and a snapshot with properties)
+ * and on a log message. Run using {@code ant bench -Dbench.include=FormatterBenchmark}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+	@Param({"json", "simple"})
+	public String formatter;
+
+	EventFormatter eventFormatter;
+	TrackingLogger logger;
+	TrackingEvent event;
+	Object[] args = {"order-1234", 42.5};
+
+	@Setup
+	public void setup() {
+		eventFormatter = "json".equals(formatter)? new JSONFormatter(false): new SimpleFormatter();
+		logger = BenchConfig.newLogger("bench.formatter", "INFO");
+		event = logger.newEvent(OpLevel.INFO, OpType.RECEIVE, "ReceiveOrder", "order-1234", "orders",
+		        "Received order={0}, amount={1}", args);
+		event.start();
+		Snapshot snapshot = logger.newSnapshot("Order", "OrderDetails");
+		snapshot.add("customer", "ACME");
+		snapshot.add("items", 12);
+		snapshot.add("amount", 42.5, ValueTypes.VALUE_TYPE_CURRENCY_USD);
+		event.getOperation().addSnapshot(snapshot);
+		event.stop();
+	}
+
+	@TearDown
+	public void tearDown() {
+		logger.close();
+	}
+
+	@Benchmark
+	public String formatEvent() {
+		return eventFormatter.format(event);
+	}
+
+	@Benchmark
+	public String formatMessage() {
+		return eventFormatter.format(0L, event.getSource(), OpLevel.INFO, "Processed order={0}, amount={1}", args);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.limiter.LimiterImpl;
+
+/**
+ * Measures {@link LimiterImpl#tryObtain(int, int)} when limiting is disabled, when
+ * limits are never reached (unbounded) and when limits are exceeded (saturated).
+ * Run using {@code ant bench -Dbench.include=LimiterBenchmark}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LimiterBenchmark {
+	@Param({"disabled", "unbounded", "saturated"})
+	public String mode;
+
+	LimiterImpl limiter;
+
+	@Setup
+	public void setup() {
+		if ("disabled".equals(mode)) {
+			limiter = new LimiterImpl(1000, 100000, false);
+		} else if ("unbounded".equals(mode)) {
+			limiter = new LimiterImpl(1e12, 1e15, true);
+		} else {
+			limiter = new LimiterImpl(1000, 100000, true);
+		}
+	}
+
+	@Benchmark
+	public boolean tryObtain() {
+		return limiter.tryObtain(1, 128);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+
+/**
+ * Measures caller side cost of {@code TrackingLogger.info()} and {@code tnt(TrackingEvent)}
+ * through {@code BufferedEventSink} with {@code NullEventSink}, with INFO level enabled and
+ * disabled by the sink filter. Events dropped by a full queue are counted by sink statistics.
+ * Run using {@code ant bench -Dbench.include=LoggingBenchmark}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+	@Param({"enabled", "disabled"})
+	public String level;
+
+	TrackingLogger logger;
+
+	@Setup
+	public void setup() throws IOException {
+		logger = BenchConfig.newLogger("bench.logging." + level, "enabled".equals(level)? "INFO": "ERROR");
+		logger.open();
+	}
+
+	@TearDown
+	public void tearDown() {
+		logger.close();
+	}
+
+	@Benchmark
+	public void info() {
+		logger.info("Processed order={0}, amount={1}", "order-1234", 42);
+	}
+
+	@Benchmark
+	public void tntEvent() {
+		TrackingEvent event = logger.newEvent(OpLevel.INFO, "ProcessOrder", "order-1234", "Processed order={0}", 42);
+		event.start();
+		event.stop();
+		logger.tnt(event);
+	}
+}
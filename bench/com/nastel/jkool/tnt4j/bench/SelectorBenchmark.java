@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.repository.FileTokenRepository;
+import com.nastel.jkool.tnt4j.selector.DefaultTrackingSelector;
+
+/**
+ * Measures {@link DefaultTrackingSelector#isSet(OpLevel, Object, Object)} lookups
+ * for defined keys, keys matched by value pattern and undefined keys. Tokens are
+ * loaded from a temporary token file. Run using
+ * {@code ant bench -Dbench.include=SelectorBenchmark}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectorBenchmark {
+	File tokenFile;
+	DefaultTrackingSelector selector;
+
+	@Setup
+	public void setup() throws IOException {
+		tokenFile = File.createTempFile("tnt4j-bench-tokens", ".properties");
+		FileWriter writer = new FileWriter(tokenFile);
+		try {
+			for (int i = 0; i < 100; i++) {
+				writer.write("bench.key." + i + "=INFO\n");
+			}
+			writer.write("bench.order=INFO:order-.*\n");
+		} finally {
+			writer.close();
+		}
+		selector = new DefaultTrackingSelector(new FileTokenRepository(tokenFile.getAbsolutePath(), 0));
+		selector.open();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		selector.close();
+		tokenFile.delete();
+	}
+
+	@Benchmark
+	public boolean isSetKey() {
+		return selector.isSet(OpLevel.INFO, "bench.key.42");
+	}
+
+	@Benchmark
+	public boolean isSetValue() {
+		return selector.isSet(OpLevel.INFO, "bench.order", "order-1234");
+	}
+
+	@Benchmark
+	public boolean isSetUndefined() {
+		return selector.isSet(OpLevel.INFO, "bench.undefined");
+	}
+}
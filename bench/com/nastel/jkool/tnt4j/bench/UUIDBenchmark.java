@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nastel.jkool.tnt4j.uuid.JUGFactoryImpl;
+import com.nastel.jkool.tnt4j.uuid.TimeShardUUIDFactoryImpl;
+import com.nastel.jkool.tnt4j.uuid.UUIDFactory;
+
+/**
+ * Measures UUID generation throughput of {@link UUIDFactory} implementations.
+ * Run across thread counts using JMH thread option, e.g.
+ * {@code ant bench -Dbench.include=UUIDBenchmark -Dbench.args="-t 8"}.
+ *
+ * @version $Revision: 1 $
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UUIDBenchmark {
+	@Param({"jug", "shard"})
+	public String factory;
+
+	UUIDFactory uuidFactory;
+
+	@Setup
+	public void setup() {
+		uuidFactory = "jug".equals(factory)? new JUGFactoryImpl(): new TimeShardUUIDFactoryImpl();
+	}
+
+	@Benchmark
+	public String newUUID() {
+		return uuidFactory.newUUID();
+	}
+}
@@ -22,12 +22,21 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Vector;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.nastel.jkool.tnt4j.config.DefaultConfigFactory;
 import com.nastel.jkool.tnt4j.config.TrackerConfig;
@@ -39,9 +48,11 @@ import com.nastel.jkool.tnt4j.core.Property;
 import com.nastel.jkool.tnt4j.core.Snapshot;
 import com.nastel.jkool.tnt4j.dump.DefaultDumpSinkFactory;
 import com.nastel.jkool.tnt4j.dump.DumpCollection;
+import com.nastel.jkool.tnt4j.dump.DumpEngine;
 import com.nastel.jkool.tnt4j.dump.DumpEvent;
 import com.nastel.jkool.tnt4j.dump.DumpListener;
 import com.nastel.jkool.tnt4j.dump.DumpProvider;
+import com.nastel.jkool.tnt4j.dump.DumpReport;
 import com.nastel.jkool.tnt4j.dump.DumpSink;
 import com.nastel.jkool.tnt4j.dump.DumpSinkFactory;
 import com.nastel.jkool.tnt4j.dump.LoggerDumpProvider;
@@ -58,8 +69,10 @@ import com.nastel.jkool.tnt4j.sink.SinkLogEventListener;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.source.SourceType;
 import com.nastel.jkool.tnt4j.tracker.DefaultTrackerFactory;
+import com.nastel.jkool.tnt4j.tracker.LatencyTracker;
 import com.nastel.jkool.tnt4j.tracker.Tracker;
 import com.nastel.jkool.tnt4j.tracker.TrackerFactory;
+import com.nastel.jkool.tnt4j.tracker.TrackerImpl;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
 import com.nastel.jkool.tnt4j.tracker.TrackingFilter;
@@ -205,6 +218,16 @@ public class TrackingLogger implements Tracker {
 	private static Vector<DumpListener> DUMP_LISTENERS = new Vector<DumpListener>(10, 10);
 
 	private static final DumpHook dumpHook = new DumpHook();
+	private static final DumpEngine dumpEngine = new DumpEngine("TrackingLogger", new DumpListener() {
+		@Override
+		public void onDumpEvent(DumpEvent event) {
+			synchronized (DUMP_LISTENERS) {
+				for (DumpListener dls : DUMP_LISTENERS) {
+					dls.onDumpEvent(event);
+				}
+			}
+		}
+	});
 	private static final FlushHook flushHook = new FlushHook();
 	private static DumpSinkFactory dumpFactory = null;
 	private static DumpSink defaultDumpSink = null;
@@ -455,6 +478,62 @@ public class TrackingLogger implements Tracker {
 		return tracker;
 	}
 
+	/**
+	 * Obtain instances of {@code TrackingLogger} logger for a given set of
+	 * source names. Independent loggers are created in parallel, which reduces
+	 * start up time when many loggers are created at once.
+	 *
+	 * @param sourceNames
+	 *            application source names associated with loggers
+	 * @return map of source names and tracking logger instances (in the given order)
+	 * @see #getInstance(String)
+	 */
+	public static Map<String, TrackingLogger> getInstances(String... sourceNames) {
+		Map<String, TrackingLogger> trackers = new LinkedHashMap<String, TrackingLogger>();
+		int threads = Math.min(sourceNames.length, Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (String sourceName : sourceNames) {
+				trackers.put(sourceName, getInstance(sourceName));
+			}
+			return trackers;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			final AtomicInteger count = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread task = new Thread(r, "TrackingLogger/init-" + count.getAndIncrement());
+				task.setDaemon(true);
+				return task;
+			}
+		});
+		try {
+			List<Future<TrackingLogger>> results = new ArrayList<Future<TrackingLogger>>(sourceNames.length);
+			for (final String sourceName : sourceNames) {
+				results.add(executor.submit(new Callable<TrackingLogger>() {
+					@Override
+					public TrackingLogger call() {
+						return getInstance(sourceName);
+					}
+				}));
+			}
+			for (int i = 0; i < sourceNames.length; i++) {
+				trackers.put(sourceNames[i], results.get(i).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while creating trackers", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException("failed to create trackers", cause);
+		} finally {
+			executor.shutdown();
+		}
+		return trackers;
+	}
+
 
 	/**
 	 * Register a user defined tracker factory. Default is {@code DefaultTrackerFactory}.
@@ -1336,11 +1415,26 @@ public class TrackingLogger implements Tracker {
 		DUMP_DEST_TABLE.putIfAbsent(dp, destList);
 	}
 
+	/**
+	 * Set timeout for a given dump provider. Dumps not obtained within the timeout
+	 * (measured from the start of the dump) are abandoned. Default timeout is
+	 * defined by {@code tnt4j.dump.provider.timeout.ms} (10000).
+	 *
+	 * @param dp dump provider
+	 * @param timeout dump provider timeout
+	 * @param unit time unit
+	 * @see DumpEngine
+	 */
+	public static void setDumpTimeout(DumpProvider dp, long timeout, TimeUnit unit) {
+		dumpEngine.setTimeout(dp, timeout, unit);
+	}
+
 	/**
 	 * Generate dumps backed by registered {@code DumpProvider} instances
 	 * written to registered {@code DumpSink} instances. The method
-	 * first opens all registered dump destinations and then iterates over all
-	 * dump providers to obtain dumps of instance {@code DumpCollection}.
+	 * first opens all registered dump destinations and then obtains dumps of
+	 * instance {@code DumpCollection} from all dump providers in parallel,
+	 * waiting for each provider up to its timeout.
 	 * Registered instances of {@code DumpListener} are triggered for
 	 * before, after, error, complete conditions during this call.
 	 *
@@ -1350,15 +1444,16 @@ public class TrackingLogger implements Tracker {
 	 * @see DumpSink
 	 * @see DumpSinkFactory
 	 */
-	public static synchronized void dumpState() {
+	public static void dumpState() {
 		dumpState(null);
 	}
 
 	/**
 	 * Generate dumps backed by registered {@code DumpProvider} instances
 	 * written to registered {@code DumpSink} instances. The method
-	 * first opens all registered dump destinations and then iterates over all
-	 * dump providers to obtain dumps of instance {@code DumpCollection}.
+	 * first opens all registered dump destinations and then obtains dumps of
+	 * instance {@code DumpCollection} from all dump providers in parallel,
+	 * waiting for each provider up to its timeout.
 	 * Registered instances of {@code DumpListener} are triggered for
 	 * before, after, error, complete conditions during this call.
 	 *
@@ -1370,34 +1465,36 @@ public class TrackingLogger implements Tracker {
 	 * @see DumpSink
 	 * @see DumpSinkFactory
 	 */
-	public static synchronized void dumpState(Throwable reason) {
+	public static void dumpState(Throwable reason) {
 		try {
-			openDumpSinks();
+			dumpStateAsync(reason).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			notifyDumpListeners(DumpProvider.DUMP_ERROR, Thread.currentThread(), null, DUMP_DESTINATIONS, e.getCause());
+		}
+	}
+
+	/**
+	 * Generate dumps asynchronously. Dumps are obtained from all registered
+	 * {@code DumpProvider} instances in parallel and written to registered
+	 * {@code DumpSink} instances as soon as each dump is obtained. Dumps
+	 * are generated one at a time.
+	 *
+	 * @param reason reason why dump is generated, null if none
+	 * @return future completed with a dump report when all providers completed or timed out
+	 *
+	 * @see DumpEngine
+	 * @see DumpReport
+	 */
+	public static Future<DumpReport> dumpStateAsync(Throwable reason) {
+		Map<DumpProvider, List<DumpSink>> table = new LinkedHashMap<DumpProvider, List<DumpSink>>();
+		synchronized (TrackingLogger.class) {
 			for (DumpProvider dumpProvider : DUMP_PROVIDERS) {
-				List<DumpSink> dlist = DUMP_DEST_TABLE.get(dumpProvider);
-				DumpCollection dump = null;
-				Throwable error = reason;
-				try {
-					dump = dumpProvider.getDump();
-					if (dump != null && reason != null) {
-						dump.setReason(reason);
-					}
-					notifyDumpListeners(DumpProvider.DUMP_BEFORE, dumpProvider, dump, dlist, reason);
-					if (dump != null) {
-						for (DumpSink dest : dlist) {
-							dest.write(dump);
-						}
-					}
-				} catch (Throwable ex) {
-					ex.initCause(reason);
-					error = ex;
-				} finally {
-					notifyDumpListeners(DumpProvider.DUMP_AFTER, dumpProvider, dump, dlist, error);
-				}
+				table.put(dumpProvider, new ArrayList<DumpSink>(DUMP_DEST_TABLE.get(dumpProvider)));
 			}
-		} finally {
-			closeDumpSinks();
 		}
+		return dumpEngine.dump(table, reason);
 	}
 
 	/**
@@ -1432,31 +1529,6 @@ public class TrackingLogger implements Tracker {
 		Thread.setDefaultUncaughtExceptionHandler(dumpHook);
 	}
 
-	private static void openDumpSinks() {
-		for (DumpSink dest : DUMP_DESTINATIONS) {
-			try {
-				dest.open();
-			} catch (Throwable ex) {
-				notifyDumpListeners(DumpProvider.DUMP_ERROR, dest, null, DUMP_DESTINATIONS, ex);
-			}
-		}
-	}
-
-	private static void closeDumpSinks() {
-		try {
-			notifyDumpListeners(DumpProvider.DUMP_COMPLETE, Thread.currentThread(), null, DUMP_DESTINATIONS);
-		} finally {
-			for (DumpSink dest : DUMP_DESTINATIONS) {
-				try { dest.close(); }
-				catch (Throwable ex) {
-					ArrayList<DumpSink> list = new ArrayList<DumpSink>(1);
-					list.add(dest);
-					notifyDumpListeners(DumpProvider.DUMP_ERROR, Thread.currentThread(), null, list, ex);
-				}
-			}
-		}
-	}
-
 	private static void notifyDumpListeners(int type, Object source, DumpCollection dump, List<DumpSink> dlist) {
 		notifyDumpListeners(type, source, dump, dlist, null);
 	}
@@ -1482,6 +1554,18 @@ public class TrackingLogger implements Tracker {
 		return logger.getConfiguration();
     }
 
+	/**
+	 * Obtain latency histograms maintained per activity and event
+	 * operation name by the underlying tracker
+	 *
+	 * @return latency tracker, null if not supported by the underlying tracker
+	 * @see LatencyTracker
+	 */
+	public LatencyTracker getLatencyTracker() {
+		checkState();
+		return (logger instanceof TrackerImpl)? ((TrackerImpl) logger).getLatencyTracker(): null;
+	}
+
 	@Override
     public TrackingActivity getCurrentActivity() {
 		checkState();
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * This interface defines a service provider contributing pluggable components
+ * (formatters, sink factories, selectors, etc.) to {@link ComponentRegistry}.
+ * Providers are discovered using {@link java.util.ServiceLoader}: list implementation
+ * class names in <code>META-INF/services/com.nastel.jkool.tnt4j.config.ComponentProvider</code>
+ * or register them via {@link ComponentRegistry#register(ComponentProvider)}.
+ * </p>
+ * <p>
+ * Components are created by the provider directly without reflection and may be
+ * referred to in tnt4j configuration by short aliases, for example:
+ * </p>
+ *<pre>
+ *<code>
+ *	event.formatter: json
+ *</code>
+ *</pre>
+ *
+ * @see ComponentRegistry
+ * @see ConfigBinding
+ * @version $Revision: 1 $
+ */
+public interface ComponentProvider {
+	/**
+	 * Obtain aliases of components supported by this provider
+	 *
+	 * @return map of alias, class name pairs
+	 */
+	Map<String, String> getAliases();
+
+	/**
+	 * Create a new instance of a given component class
+	 *
+	 * @param className component class name
+	 * @return new component instance, null if class is not provided by this provider
+	 * @throws Exception if error creating instance
+	 */
+	Object newInstance(String className) throws Exception;
+
+	/**
+	 * Obtain configuration binding of a given component class, used to validate
+	 * and convert configuration settings before they are applied
+	 *
+	 * @param className component class name
+	 * @return configuration binding, null if component accepts any settings
+	 */
+	ConfigBinding getBinding(String className);
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+
+/**
+ * <p>
+ * Registry of pluggable components used to create configurable objects declared in
+ * tnt4j configuration (see {@link com.nastel.jkool.tnt4j.utils.Utils#createConfigurableObject(String, String, Map)}).
+ * Components are contributed by {@link ComponentProvider}s discovered via {@link ServiceLoader}
+ * and may be referred to by class name or by a short alias. Components not contributed
+ * by any provider are created by class name using a cached constructor {@link MethodHandle},
+ * so that each class is looked up and checked only once.
+ * </p>
+ * <p>
+ * Components shipped with TNT4J are always registered. Provider discovery can be disabled using
+ * <code>tnt4j.component.providers=false</code> java property. Broken providers are skipped and
+ * logged; errors found while the default event sink factory is itself being created are logged
+ * once it is available.
+ * </p>
+ *
+ * @see ComponentProvider
+ * @see ConfigBinding
+ * @version $Revision: 1 $
+ */
+public class ComponentRegistry {
+	private static final boolean LOAD_PROVIDERS = Boolean.valueOf(System.getProperty("tnt4j.component.providers", "true"));
+	private static final MethodType DEFAULT_CONSTRUCTOR = MethodType.methodType(void.class);
+
+	private static final ConcurrentHashMap<String, String> ALIASES = new ConcurrentHashMap<String, String>(89);
+	private static final ConcurrentHashMap<String, ComponentProvider> PROVIDERS = new ConcurrentHashMap<String, ComponentProvider>(89);
+	private static final ConcurrentHashMap<String, MethodHandle> CONSTRUCTORS = new ConcurrentHashMap<String, MethodHandle>(89);
+	private static final List<Throwable> PENDING_ERRORS = new ArrayList<Throwable>();
+
+	private static EventSink logger;
+	private static volatile boolean hasPendingErrors = false;
+
+	static {
+		register(new CoreComponentProvider());
+		if (LOAD_PROVIDERS) {
+			loadProviders(ComponentRegistry.class.getClassLoader());
+		}
+	}
+
+	/**
+	 * Private constructor to prevent object instantiation
+	 *
+	 */
+	private ComponentRegistry() {}
+
+	/**
+	 * Discover and register component providers available to a given class loader
+	 *
+	 * @param loader class loader used to locate providers
+	 */
+	public static void loadProviders(ClassLoader loader) {
+		Iterator<ComponentProvider> providers = ServiceLoader.load(ComponentProvider.class, loader).iterator();
+		while (true) {
+			try {
+				if (!providers.hasNext()) break;
+				register(providers.next());
+			} catch (ServiceConfigurationError e) {
+				// skip broken provider, continue with the rest
+				logProviderError(e);
+			}
+		}
+	}
+
+	/**
+	 * Register a component provider. Aliases and classes of a provider registered
+	 * later replace those registered earlier.
+	 *
+	 * @param provider component provider
+	 */
+	public static void register(ComponentProvider provider) {
+		for (Entry<String, String> entry : provider.getAliases().entrySet()) {
+			ALIASES.put(entry.getKey(), entry.getValue());
+			PROVIDERS.put(entry.getValue(), provider);
+		}
+	}
+
+	/**
+	 * Obtain all registered aliases
+	 *
+	 * @return map of alias, class name pairs
+	 */
+	public static Map<String, String> getAliases() {
+		return Collections.unmodifiableMap(ALIASES);
+	}
+
+	/**
+	 * Resolve class name of a given component alias
+	 *
+	 * @param name component alias or class name
+	 * @return class name of the aliased component, given name if not an alias
+	 */
+	public static String resolve(String name) {
+		String className = ALIASES.get(name.trim());
+		return className != null? className: name.trim();
+	}
+
+	/**
+	 * Create a new component instance given its alias or class name.
+	 * The class must provide a default public constructor with no arguments
+	 * unless created by a registered provider.
+	 *
+	 * @param name component alias or class name
+	 * @return new component instance
+	 * @throws Exception if error creating instance
+	 */
+	public static Object newInstance(String name) throws Exception {
+		if (hasPendingErrors) {
+			logProviderError(null);
+		}
+		String className = resolve(name);
+		ComponentProvider provider = PROVIDERS.get(className);
+		if (provider != null) {
+			Object obj = provider.newInstance(className);
+			if (obj != null) return obj;
+		}
+		MethodHandle constructor = getConstructor(className);
+		try {
+			return constructor.invoke();
+		} catch (Throwable e) {
+			if (e instanceof Error) throw (Error) e;
+			throw e instanceof Exception? (Exception) e: new UndeclaredThrowableException(e);
+		}
+	}
+
+	/**
+	 * Obtain configuration binding of a given component class
+	 *
+	 * @param className component class name
+	 * @return configuration binding, null if none declared
+	 */
+	public static ConfigBinding getBinding(String className) {
+		ComponentProvider provider = PROVIDERS.get(className);
+		return provider != null? provider.getBinding(className): null;
+	}
+
+	/**
+	 * Validate and convert configuration settings of a given configurable object using
+	 * its configuration binding, if any.
+	 *
+	 * @param obj configurable object
+	 * @param settings configuration settings (name, value pairs)
+	 * @return typed settings, same settings if object has no binding
+	 * @throws ConfigException if settings do not match the binding
+	 */
+	public static Map<String, Object> bind(Object obj, Map<String, Object> settings) throws ConfigException {
+		ConfigBinding binding = getBinding(obj.getClass().getName());
+		return binding != null? binding.bind(settings): settings;
+	}
+
+	/**
+	 * Log a provider error, or keep it until the default event sink factory is available
+	 * (providers are also loaded while the default event sink factory is being created).
+	 *
+	 * @param error provider error, null to log pending errors only
+	 */
+	private static synchronized void logProviderError(Throwable error) {
+		if (error != null) {
+			PENDING_ERRORS.add(error);
+		}
+		if (logger == null && DefaultEventSinkFactory.getInstance() != null) {
+			logger = DefaultEventSinkFactory.defaultEventSink(ComponentRegistry.class);
+		}
+		if (logger != null) {
+			for (Throwable e : PENDING_ERRORS) {
+				logger.log(OpLevel.ERROR, "Skipping broken component provider: {0}", e.getMessage(), e);
+			}
+			PENDING_ERRORS.clear();
+		}
+		hasPendingErrors = !PENDING_ERRORS.isEmpty();
+	}
+
+	private static MethodHandle getConstructor(String className) throws Exception {
+		MethodHandle handle = CONSTRUCTORS.get(className);
+		if (handle == null) {
+			Class<?> classObj = Class.forName(className);
+			handle = MethodHandles.publicLookup().findConstructor(classObj, DEFAULT_CONSTRUCTOR).asType(
+			        MethodType.methodType(Object.class));
+			MethodHandle prev = CONSTRUCTORS.putIfAbsent(className, handle);
+			handle = prev != null? prev: handle;
+		}
+		return handle;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Typed configuration binding of a configurable component. A binding declares
+ * configuration keys supported by a component along with their value types.
+ * Settings are validated against declared keys and string values are converted
+ * to declared types before they are passed to {@link Configurable#setConfiguration(Map)}.
+ * Keys ending with <code>.</code> declare a prefix accepting any key starting with it,
+ * which is used for settings of nested configurable objects (e.g. <code>Filter.</code>).
+ * </p>
+ * <p>
+ * Validation result of each distinct set of keys is cached, so that keys are validated
+ * only once no matter how many components are created with the same settings.
+ * Supported value types are {@link String}, {@link Boolean}, {@link Integer}, {@link Long},
+ * {@link Double} and enums.
+ * </p>
+ *
+ * @see ComponentProvider
+ * @see ComponentRegistry
+ * @version $Revision: 1 $
+ */
+public class ConfigBinding {
+	static final int MAX_VALIDATED = Integer.getInteger("tnt4j.config.binding.cache.size", 256);
+
+	private final Map<String, Class<?>> keys = new HashMap<String, Class<?>>();
+	private final List<String> prefixes = new ArrayList<String>();
+	private final ConcurrentHashMap<Set<String>, Boolean> validated = new ConcurrentHashMap<Set<String>, Boolean>(17);
+
+	/**
+	 * Declare a configuration key and its value type
+	 *
+	 * @param key configuration key, keys ending with <code>.</code> declare a prefix
+	 * @param type value type
+	 * @return same binding instance
+	 */
+	public synchronized ConfigBinding add(String key, Class<?> type) {
+		if (key.endsWith(".")) {
+			prefixes.add(key);
+		}
+		keys.put(key, type);
+		validated.clear();
+		return this;
+	}
+
+	/**
+	 * Obtain declared value type of a given configuration key
+	 *
+	 * @param key configuration key
+	 * @return declared value type, null if key is not declared
+	 */
+	public synchronized Class<?> getType(String key) {
+		Class<?> type = keys.get(key);
+		if (type == null) {
+			for (String prefix : prefixes) {
+				if (key.startsWith(prefix)) return keys.get(prefix);
+			}
+		}
+		return type;
+	}
+
+	/**
+	 * Validate given configuration settings and convert values to declared types
+	 *
+	 * @param settings configuration settings (name, value pairs)
+	 * @return new map of typed configuration settings
+	 * @throws ConfigException if settings contain undeclared keys or values not convertible to declared types
+	 */
+	public Map<String, Object> bind(Map<String, Object> settings) throws ConfigException {
+		validate(settings);
+		Map<String, Object> typed = new LinkedHashMap<String, Object>(settings.size() * 2);
+		for (Entry<String, Object> entry : settings.entrySet()) {
+			typed.put(entry.getKey(), convert(entry.getKey(), entry.getValue(), getType(entry.getKey()), settings));
+		}
+		return typed;
+	}
+
+	/**
+	 * Validate keys of given configuration settings
+	 *
+	 * @param settings configuration settings (name, value pairs)
+	 * @throws ConfigException if settings contain undeclared keys
+	 */
+	public void validate(Map<String, Object> settings) throws ConfigException {
+		if (validated.containsKey(settings.keySet())) return;
+		for (String key : settings.keySet()) {
+			if (getType(key) == null) {
+				throw new ConfigException("Unsupported configuration key=" + key + ", supported=" + keys.keySet(), settings);
+			}
+		}
+		if (validated.size() < MAX_VALIDATED) {
+			validated.putIfAbsent(new HashSet<String>(settings.keySet()), Boolean.TRUE);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object convert(String key, Object value, Class<?> type, Map<String, Object> settings) throws ConfigException {
+		if (value == null || type.isInstance(value)) return value;
+		String text = value.toString().trim();
+		try {
+			if (type == String.class) {
+				return text;
+			} else if (type == Boolean.class) {
+				return Boolean.valueOf(text);
+			} else if (type == Integer.class) {
+				return Integer.valueOf(text);
+			} else if (type == Long.class) {
+				return Long.valueOf(text);
+			} else if (type == Double.class) {
+				return Double.valueOf(text);
+			} else if (type.isEnum()) {
+				return Enum.valueOf((Class<? extends Enum>) type, text.toUpperCase());
+			}
+		} catch (IllegalArgumentException e) {
+			ConfigException ce = new ConfigException("Invalid value of key=" + key + ", value=" + text
+			        + ", type=" + type.getSimpleName(), settings);
+			ce.initCause(e);
+			throw ce;
+		}
+		return value;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return super.toString() + "{keys: " + keys + "}";
+	}
+}
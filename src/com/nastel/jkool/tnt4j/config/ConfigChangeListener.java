@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.util.Set;
+
+/**
+ * <p>A simple listener interface for configuration observers.
+ * This interface can be implemented by classes that are interested in
+ * components being rebuilt after tnt4j configuration file changes.</p>
+ *
+ * @see TrackerConfigStore#reload()
+ *
+ * @version $Revision: 1 $
+ *
+ */
+public interface ConfigChangeListener {
+	/**
+	 * Notifies this listener that components of a given configuration
+	 * have been rebuilt.
+	 *
+	 * @param config configuration containing rebuilt components
+	 * @param keys configuration keys of rebuilt components (e.g. <code>event.formatter</code>)
+	 */
+	void configChanged(TrackerConfig config, Set<String> keys);
+}
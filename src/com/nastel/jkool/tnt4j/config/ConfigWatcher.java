@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+import com.nastel.jkool.tnt4j.utils.FileWatcher;
+import com.nastel.jkool.tnt4j.utils.Utils;
+
+/**
+ * <p>
+ * Watches a tnt4j configuration file for changes using {@link FileWatcher}
+ * and reloads all {@link TrackerConfigStore} instances registered for the file.
+ * One watcher thread is started per file and stopped when the last configuration
+ * is unregistered. Bursts of file events are coalesced into a single reload
+ * after {@code tnt4j.config.watch.settle.ms} (default 100) milliseconds.
+ * </p>
+ *
+ * @see TrackerConfigStore#reload()
+ * @version $Revision: 1 $
+ */
+class ConfigWatcher implements Runnable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(ConfigWatcher.class);
+	private static final long SETTLE_TIME = Long.getLong("tnt4j.config.watch.settle.ms", 100);
+	private static final Map<File, ConfigWatcher> WATCHERS = new HashMap<File, ConfigWatcher>();
+
+	private final File file;
+	private final FileWatcher watcher;
+	private final CopyOnWriteArrayList<TrackerConfigStore> configs = new CopyOnWriteArrayList<TrackerConfigStore>();
+
+	private ConfigWatcher(File file) throws IOException {
+		this.file = file;
+		this.watcher = new FileWatcher(file, SETTLE_TIME, this);
+	}
+
+	/**
+	 * Register configuration to be reloaded when a given file changes
+	 *
+	 * @param fileName configuration file name
+	 * @param config configuration instance
+	 * @return true if registered, false if file can not be watched (e.g. class path resource)
+	 */
+	static synchronized boolean register(String fileName, TrackerConfigStore config) {
+		File file = new File(fileName).getAbsoluteFile();
+		if (!file.isFile()) return false;
+		ConfigWatcher watcher = WATCHERS.get(file);
+		if (watcher == null) {
+			try {
+				watcher = new ConfigWatcher(file);
+			} catch (IOException e) {
+				logger.log(OpLevel.ERROR, "Unable to watch configuration file={0}", file, e);
+				return false;
+			}
+			watcher.watcher.start("ConfigWatcher(" + file.getName() + ")/watcher");
+			WATCHERS.put(file, watcher);
+		}
+		watcher.configs.addIfAbsent(config);
+		return true;
+	}
+
+	/**
+	 * Unregister configuration, stopping the watcher if no
+	 * configurations are left for the file.
+	 *
+	 * @param fileName configuration file name
+	 * @param config configuration instance
+	 */
+	static synchronized void unregister(String fileName, TrackerConfigStore config) {
+		File file = new File(fileName).getAbsoluteFile();
+		ConfigWatcher watcher = WATCHERS.get(file);
+		if (watcher != null) {
+			watcher.configs.remove(config);
+			if (watcher.configs.isEmpty()) {
+				WATCHERS.remove(file);
+				Utils.close(watcher.watcher);
+			}
+		}
+	}
+
+	/**
+	 * Reload all registered configurations, called by
+	 * {@link FileWatcher} when the file changes
+	 */
+	@Override
+	public void run() {
+		if (!file.isFile()) {
+			// deleted or being replaced, keep current configuration
+			return;
+		}
+		for (TrackerConfigStore config : configs) {
+			try {
+				config.reload();
+			} catch (Throwable e) {
+				logger.log(OpLevel.ERROR, "Failed to reload configuration file={0}, config={1}", file, config, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nastel.jkool.tnt4j.dump.DefaultDumpSinkFactory;
+import com.nastel.jkool.tnt4j.filters.EventLevelTimeFilter;
+import com.nastel.jkool.tnt4j.format.DefaultFormatter;
+import com.nastel.jkool.tnt4j.format.JSONFormatter;
+import com.nastel.jkool.tnt4j.format.SimpleFormatter;
+import com.nastel.jkool.tnt4j.limiter.HierarchicalLimiterFactory;
+import com.nastel.jkool.tnt4j.repository.FileTokenRepository;
+import com.nastel.jkool.tnt4j.repository.WatchedFileTokenRepository;
+import com.nastel.jkool.tnt4j.selector.DefaultTrackingSelector;
+import com.nastel.jkool.tnt4j.sink.BufferedEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.FanOutEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.FileEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.NullEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.SocketEventSinkFactory;
+import com.nastel.jkool.tnt4j.source.SourceFactoryImpl;
+import com.nastel.jkool.tnt4j.tracker.DefaultTrackerFactory;
+import com.nastel.jkool.tnt4j.uuid.JUGFactoryImpl;
+import com.nastel.jkool.tnt4j.uuid.TimeShardUUIDFactoryImpl;
+
+/**
+ * <p>
+ * Provider of components shipped with TNT4J. Components are created using
+ * constructors directly, aliases are listed below. Components depending on optional
+ * libraries (e.g. SLF4J) are aliased only and created by class name.
+ * </p>
+ *
+ * @see ComponentRegistry
+ * @version $Revision: 1 $
+ */
+class CoreComponentProvider implements ComponentProvider {
+	private static final String SLF4J_SINK_FACTORY = "com.nastel.jkool.tnt4j.logger.slf4j.SLF4JEventSinkFactory";
+
+	private final Map<String, String> aliases;
+	private final Map<String, ConfigBinding> bindings = new LinkedHashMap<String, ConfigBinding>();
+
+	CoreComponentProvider() {
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		map.put("json", JSONFormatter.class.getName());
+		map.put("simple", SimpleFormatter.class.getName());
+		map.put("plain", DefaultFormatter.class.getName());
+		map.put("file", FileEventSinkFactory.class.getName());
+		map.put("null", NullEventSinkFactory.class.getName());
+		map.put("buffered", BufferedEventSinkFactory.class.getName());
+		map.put("socket", SocketEventSinkFactory.class.getName());
+		map.put("fanout", FanOutEventSinkFactory.class.getName());
+		map.put("slf4j", SLF4J_SINK_FACTORY);
+		map.put("jug", JUGFactoryImpl.class.getName());
+		map.put("shard", TimeShardUUIDFactoryImpl.class.getName());
+		map.put("tracker", DefaultTrackerFactory.class.getName());
+		map.put("selector", DefaultTrackingSelector.class.getName());
+		map.put("source", SourceFactoryImpl.class.getName());
+		map.put("dump", DefaultDumpSinkFactory.class.getName());
+		map.put("level.time.filter", EventLevelTimeFilter.class.getName());
+		map.put("hierarchical.limiter", HierarchicalLimiterFactory.class.getName());
+		map.put("file.tokens", FileTokenRepository.class.getName());
+		map.put("watched.file.tokens", WatchedFileTokenRepository.class.getName());
+		aliases = Collections.unmodifiableMap(map);
+
+		ConfigBinding formatter = new ConfigBinding()
+			.add("Separator", String.class)
+			.add("Format", String.class)
+			.add("TimeZone", String.class);
+		bindings.put(DefaultFormatter.class.getName(), formatter);
+		bindings.put(SimpleFormatter.class.getName(), formatter);
+		bindings.put(JSONFormatter.class.getName(), new ConfigBinding()
+			.add("Newline", Boolean.class)
+			.add("OpName", String.class));
+		bindings.put(DefaultTrackerFactory.class.getName(), new ConfigBinding()
+			.add("KeepThreadContext", Boolean.class));
+	}
+
+	@Override
+	public Map<String, String> getAliases() {
+		return aliases;
+	}
+
+	@Override
+	public Object newInstance(String className) {
+		switch (className) {
+		case "com.nastel.jkool.tnt4j.format.JSONFormatter":
+			return new JSONFormatter();
+		case "com.nastel.jkool.tnt4j.format.SimpleFormatter":
+			return new SimpleFormatter();
+		case "com.nastel.jkool.tnt4j.format.DefaultFormatter":
+			return new DefaultFormatter();
+		case "com.nastel.jkool.tnt4j.sink.FileEventSinkFactory":
+			return new FileEventSinkFactory();
+		case "com.nastel.jkool.tnt4j.sink.NullEventSinkFactory":
+			return new NullEventSinkFactory();
+		case "com.nastel.jkool.tnt4j.sink.BufferedEventSinkFactory":
+			return new BufferedEventSinkFactory();
+		case "com.nastel.jkool.tnt4j.sink.SocketEventSinkFactory":
+			return new SocketEventSinkFactory();
+		case "com.nastel.jkool.tnt4j.sink.FanOutEventSinkFactory":
+			return new FanOutEventSinkFactory();
+		case "com.nastel.jkool.tnt4j.uuid.JUGFactoryImpl":
+			return new JUGFactoryImpl();
+		case "com.nastel.jkool.tnt4j.uuid.TimeShardUUIDFactoryImpl":
+			return new TimeShardUUIDFactoryImpl();
+		case "com.nastel.jkool.tnt4j.tracker.DefaultTrackerFactory":
+			return new DefaultTrackerFactory();
+		case "com.nastel.jkool.tnt4j.selector.DefaultTrackingSelector":
+			return new DefaultTrackingSelector();
+		case "com.nastel.jkool.tnt4j.source.SourceFactoryImpl":
+			return new SourceFactoryImpl();
+		case "com.nastel.jkool.tnt4j.dump.DefaultDumpSinkFactory":
+			return new DefaultDumpSinkFactory();
+		case "com.nastel.jkool.tnt4j.filters.EventLevelTimeFilter":
+			return new EventLevelTimeFilter();
+		case "com.nastel.jkool.tnt4j.limiter.HierarchicalLimiterFactory":
+			return new HierarchicalLimiterFactory();
+		case "com.nastel.jkool.tnt4j.repository.FileTokenRepository":
+			return new FileTokenRepository();
+		case "com.nastel.jkool.tnt4j.repository.WatchedFileTokenRepository":
+			return new WatchedFileTokenRepository();
+		default:
+			return null;
+		}
+	}
+
+	@Override
+	public ConfigBinding getBinding(String className) {
+		return bindings.get(className);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.config;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Parsed configuration file shared by all {@link TrackerConfigStore} instances
+ * loading the same file. Holds parsed stanzas, memoized source name to stanza
+ * resolution and instances of stateless configurable objects shared by
+ * trackers using the same stanza. An instance is valid as long as modification
+ * time of the underlying file does not change.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+class ParsedConfig {
+	static final String DEFAULT_SOURCE = "*";
+	static final int MAX_RESOLVED = Integer.getInteger("tnt4j.config.resolver.size", 4096);
+
+	private final String fileName;
+	private final long lastModified;
+	private final Map<String, Properties> stanzas;
+	private final ConcurrentHashMap<String, Properties> resolved = new ConcurrentHashMap<String, Properties>(89);
+	private final ConcurrentHashMap<String, Object> shared = new ConcurrentHashMap<String, Object>(89);
+
+	/**
+	 * Create parsed configuration
+	 *
+	 * @param fileName configuration file name
+	 * @param modified file modification time when parsed (0 if not a file)
+	 * @param map parsed source/properties stanzas, must not be modified
+	 */
+	ParsedConfig(String fileName, long modified, Map<String, Properties> map) {
+		this.fileName = fileName;
+		this.lastModified = modified;
+		this.stanzas = map;
+	}
+
+	/**
+	 * Obtain modification time of a given configuration file
+	 *
+	 * @param fileName configuration file name
+	 * @return modification time, 0 if file does not exist (e.g. class path resource)
+	 */
+	static long lastModified(String fileName) {
+		return fileName != null? new File(fileName).lastModified(): 0;
+	}
+
+	/**
+	 * Determine if this configuration reflects current state of the file
+	 *
+	 * @return true if file has not changed since parsed, false otherwise
+	 */
+	boolean isCurrent() {
+		return lastModified == lastModified(fileName);
+	}
+
+	/**
+	 * Obtain parsed source/properties stanzas
+	 *
+	 * @return map of source/properties stanzas
+	 */
+	Map<String, Properties> getStanzas() {
+		return stanzas;
+	}
+
+	/**
+	 * Obtain stanza matching a given source name
+	 *
+	 * @param srcName source name
+	 * @return matching stanza, null if none
+	 */
+	Properties resolve(String srcName) {
+		Properties stanza = resolved.get(srcName);
+		if (stanza == null) {
+			stanza = selectStanza(srcName, stanzas);
+			if (stanza != null && resolved.size() < MAX_RESOLVED) {
+				resolved.putIfAbsent(srcName, stanza);
+			}
+		}
+		return stanza;
+	}
+
+	/**
+	 * Obtain shared object created for a given stanza and configuration key
+	 *
+	 * @param stanza configuration stanza
+	 * @param classProp configuration key of the object class
+	 * @return shared object, null if none
+	 */
+	Object getShared(Properties stanza, String classProp) {
+		return shared.get(sharedKey(stanza, classProp));
+	}
+
+	/**
+	 * Register object created for a given stanza and configuration key
+	 *
+	 * @param stanza configuration stanza
+	 * @param classProp configuration key of the object class
+	 * @param obj object instance
+	 * @return shared object, which is a previously registered instance if any
+	 */
+	Object share(Properties stanza, String classProp, Object obj) {
+		Object prev = shared.putIfAbsent(sharedKey(stanza, classProp), obj);
+		return prev != null? prev: obj;
+	}
+
+	private static String sharedKey(Properties stanza, String classProp) {
+		return stanza.getProperty(TrackerConfigStore.SOURCE_KEY) + "/" + classProp;
+	}
+
+	/**
+	 * Select stanza matching a given source name: longest stanza source name
+	 * contained in a given source name, or default stanza if none.
+	 *
+	 * @param srcName source name
+	 * @param map source/properties stanzas
+	 * @return matching stanza, null if none
+	 */
+	static Properties selectStanza(String srcName, Map<String, Properties> map) {
+		int maxKeyLen = 0;
+		Properties selectedSet = null;
+		if (map == null) return selectedSet;
+		for (Entry<String, Properties> entry : map.entrySet()) {
+			if (entry.getKey().equals(DEFAULT_SOURCE)) {
+				if (maxKeyLen == 0) selectedSet = entry.getValue();
+				continue;
+			}
+			// find the best match (longest string match)
+			String configKey = entry.getKey();
+			boolean match = srcName.indexOf(configKey) >= 0;
+			if (match && configKey.length() > maxKeyLen) {
+				maxKeyLen = configKey.length();
+				selectedSet = entry.getValue();
+			}
+		}
+		return selectedSet;
+	}
+}
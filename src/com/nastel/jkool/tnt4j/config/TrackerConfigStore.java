@@ -21,10 +21,18 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.nastel.jkool.tnt4j.core.ActivityListener;
 import com.nastel.jkool.tnt4j.core.OpLevel;
@@ -97,6 +105,16 @@ import com.nastel.jkool.tnt4j.uuid.UUIDFactory;
  * </code>
  * </pre>
  *
+ * Parsed configuration files are cached and reused until file modification time changes, source to stanza
+ * resolution is memoized, and stateless objects listed in {@code tnt4j.config.shared} property (default:
+ * {@code uuid.factory,source.factory,tracker.factory,dump.sink.factory}) are shared by all configurations
+ * using the same stanza.
+ *
+ * Formatters, event sink factories, sink filters and sink listeners can be changed without restarting trackers:
+ * set {@code tnt4j.config.watch=true} to watch the configuration file for changes. When the file changes, only
+ * components whose settings changed are rebuilt and {@link ConfigChangeListener}s registered with the configuration
+ * (e.g. trackers) are notified. {@link #reload()} can also be called directly.
+ *
  * Below is an example of how to use {@link TrackerConfigStore} when registering with the framework.
  *
  * <pre>
@@ -122,12 +140,27 @@ public class TrackerConfigStore extends TrackerConfig {
 	public static final String TNT4J_PROPERTIES_KEY = "tnt4j.config";
 	public static final String TNT4J_PROPERTIES = "tnt4j.properties";
 
-	private static final String DEFAULT_SOURCE = "*";
-	private static final String SOURCE_KEY = "source";
+	public static final String TNT4J_SHARED_KEY = "tnt4j.config.shared";
+	public static final String TNT4J_WATCH_KEY = "tnt4j.config.watch";
+
+	private static final String DEFAULT_SOURCE = ParsedConfig.DEFAULT_SOURCE;
+	static final String SOURCE_KEY = "source";
 	private static final String ENABLED_KEY = "enabled";
 	private static final String LIKE_KEY = "like";
 
+	private static final Set<String> SHARED_KEYS = new HashSet<String>(Arrays.asList(System.getProperty(TNT4J_SHARED_KEY,
+	        "uuid.factory,source.factory,tracker.factory,dump.sink.factory").split("\\s*,\\s*")));
+	private static final ConcurrentHashMap<String, ParsedConfig> CONFIG_CACHE = new ConcurrentHashMap<String, ParsedConfig>();
+
+	private static final boolean WATCH_CONFIG = Boolean.getBoolean(TNT4J_WATCH_KEY);
+	private static final List<String> RELOADABLE_KEYS = Arrays.asList("event.sink.factory", "event.formatter",
+	        "sink.event.filter", "sink.log.listener");
+
 	private String configFile = null;
+	private ParsedConfig parsedConfig = null;
+	private Properties stanza = null;
+	private boolean watched = false;
+	private final CopyOnWriteArrayList<ConfigChangeListener> listeners = new CopyOnWriteArrayList<ConfigChangeListener>();
 
 	/**
 	 * Create an default configuration with a specific source name. Configuration is loaded from a file specified by
@@ -239,13 +272,53 @@ public class TrackerConfigStore extends TrackerConfig {
 	private void initConfig(String fileName) {
 		configFile = fileName == null ? System.getProperty(TNT4J_PROPERTIES_KEY, TNT4J_PROPERTIES) : fileName;
 		setProperty(TNT4J_PROPERTIES_KEY, configFile);
-		Map<String, Properties> configMap = loadConfiguration(configFile);
-		loadConfigProps(configMap);
+		parsedConfig = getParsedConfig(configFile);
+		stanza = parsedConfig != null? parsedConfig.resolve(srcName): null;
+		setProperties(stanza);
+		applyProperties();
+	}
+
+	/**
+	 * Obtain parsed configuration for a given file, parsing the file
+	 * only if not cached or modified since last parsed.
+	 *
+	 * @param fileName configuration file name
+	 * @return parsed configuration, null if configuration can not be loaded
+	 */
+	private ParsedConfig getParsedConfig(String fileName) {
+		ParsedConfig parsed = CONFIG_CACHE.get(fileName);
+		if (parsed != null && parsed.isCurrent()) {
+			return parsed;
+		}
+		long modified = ParsedConfig.lastModified(fileName);
+		Map<String, Properties> configMap = loadConfiguration(fileName);
+		if (configMap == null) {
+			return null;
+		}
+		parsed = new ParsedConfig(fileName, modified, configMap);
+		CONFIG_CACHE.put(fileName, parsed);
+		return parsed;
+	}
+
+	/**
+	 * Discard all cached configuration files, so that next
+	 * configuration instance reloads configuration from file.
+	 */
+	public static void clearCache() {
+		CONFIG_CACHE.clear();
 	}
 
 	private Object createConfigurableObject(String classProp, String prefix) {
 		Properties props = getProperties();
+		boolean share = (stanza != null) && SHARED_KEYS.contains(classProp);
 		try {
+			if (share) {
+				Object obj = parsedConfig.getShared(stanza, classProp);
+				if (obj == null && props.getProperty(classProp) != null) {
+					obj = parsedConfig.share(stanza, classProp, Utils.createConfigurableObject(classProp, prefix, props));
+				}
+				return obj;
+			}
 			return Utils.createConfigurableObject(classProp, prefix, props);
 		} catch (Throwable e) {
 			logger.log(OpLevel.ERROR, "Failed to create configurable instance class={0}, property={1}, prefix={2}", props.get(classProp), classProp, prefix, e);
@@ -253,13 +326,113 @@ public class TrackerConfigStore extends TrackerConfig {
 		return null;
 	}
 
+	/**
+	 * Register a listener notified when components are rebuilt after configuration
+	 * changes. Configuration file is watched for changes while at least one listener
+	 * is registered and {@code tnt4j.config.watch} property is set to true.
+	 *
+	 * @param listener configuration change listener
+	 */
+	public synchronized void addConfigChangeListener(ConfigChangeListener listener) {
+		listeners.addIfAbsent(listener);
+		if (WATCH_CONFIG && !watched && configFile != null) {
+			watched = ConfigWatcher.register(configFile, this);
+		}
+	}
+
+	/**
+	 * Remove configuration change listener
+	 *
+	 * @param listener configuration change listener
+	 */
+	public synchronized void removeConfigChangeListener(ConfigChangeListener listener) {
+		listeners.remove(listener);
+		if (watched && listeners.isEmpty()) {
+			ConfigWatcher.unregister(configFile, this);
+			watched = false;
+		}
+	}
+
+	/**
+	 * Reload configuration file and rebuild components whose settings changed:
+	 * {@code event.sink.factory}, {@code event.formatter}, {@code sink.event.filter}
+	 * and {@code sink.log.listener}. Registered {@link ConfigChangeListener}s are notified
+	 * if any component has been rebuilt. Configurations not loaded from a file are not reloaded.
+	 *
+	 * @return set of configuration keys of rebuilt components, empty if none
+	 */
+	public Set<String> reload() {
+		Set<String> changed = new LinkedHashSet<String>();
+		synchronized (this) {
+			if (configFile == null) return changed;
+			ParsedConfig parsed = getParsedConfig(configFile);
+			if (parsed == null || parsed == parsedConfig) return changed;
+			Properties newStanza = parsed.resolve(srcName);
+			for (String key : RELOADABLE_KEYS) {
+				Properties newProps = subset(newStanza, key);
+				if (!newProps.equals(subset(props, key))) {
+					props.keySet().removeAll(subset(props, key).keySet());
+					props.putAll(newProps);
+					changed.add(key);
+				}
+			}
+			parsedConfig = parsed;
+			stanza = newStanza;
+			if (changed.contains("event.sink.factory")) {
+				setEventSinkFactory((EventSinkFactory) createConfigurableObject("event.sink.factory", "event.sink.factory."));
+			}
+			if (changed.contains("event.formatter")) {
+				setEventFormatter((EventFormatter) createConfigurableObject("event.formatter", "event.formatter."));
+			}
+			if (changed.contains("sink.event.filter")) {
+				setSinkEventFilter((SinkEventFilter) createConfigurableObject("sink.event.filter", "sink.event.filter."));
+			}
+			if (changed.contains("sink.log.listener")) {
+				setSinkLogEventListener((SinkLogEventListener) createConfigurableObject("sink.log.listener", "sink.log.listener."));
+			}
+			if (isBuilt()) {
+				// restore defaults of removed components
+				build();
+			}
+		}
+		logger.log(OpLevel.INFO, "Reloaded configuration source={0}, file={1}, changed={2}", srcName, configFile, changed);
+		if (!changed.isEmpty()) {
+			Set<String> keys = Collections.unmodifiableSet(changed);
+			for (ConfigChangeListener listener : listeners) {
+				listener.configChanged(this, keys);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Obtain settings of a component: component key and all keys prefixed by it
+	 *
+	 * @param props properties to select from
+	 * @param key component configuration key
+	 * @return component settings
+	 */
+	private static Properties subset(Properties props, String key) {
+		Properties subset = new Properties();
+		if (props == null) return subset;
+		String prefix = key + ".";
+		for (Entry<Object, Object> entry : props.entrySet()) {
+			String name = entry.getKey().toString();
+			if (name.equals(key) || name.startsWith(prefix)) {
+				subset.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return subset;
+	}
+
 	private void loadConfigProps(Map<String, Properties> map) {
-		setProperties(loadProperties(map));
+		setProperties(ParsedConfig.selectStanza(srcName, map));
 		applyProperties();
 	}
 
 	/**
-	 * Applies properties defined configuration.
+	 * Applies properties defined configuration. Objects listed in {@code tnt4j.config.shared}
+	 * are obtained from the shared instances of the selected stanza.
 	 */
 	public void applyProperties() {
 		if (props != null) {
@@ -280,26 +453,6 @@ public class TrackerConfigStore extends TrackerConfig {
 		}
 	}
 
-	private Properties loadProperties(Map<String, Properties> map) {
-		int maxKeyLen = 0;
-		Properties selectedSet = null;
-		if (map == null) return selectedSet;
-		for (Entry<String, Properties> entry : map.entrySet()) {
-			if (entry.getKey().equals(DEFAULT_SOURCE)) {
-				selectedSet = entry.getValue();
-				continue;
-			}
-			// find the best match (longest string match)
-			String configKey = entry.getKey();
-			boolean match = this.srcName.indexOf(configKey) >= 0;
-			if (match && configKey.length() > maxKeyLen) {
-				maxKeyLen = configKey.length();
-				selectedSet = entry.getValue();
-			}
-		}
-		return selectedSet;
-	}
-
 	private Map<String, Properties> loadConfiguration(String configFile) {
 		Map<String, Properties> map = null;
 		try {
@@ -15,6 +15,9 @@
  */
 package com.nastel.jkool.tnt4j.dump;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.nastel.jkool.tnt4j.core.Property;
 import com.nastel.jkool.tnt4j.core.UsecTimestamp;
@@ -70,50 +73,61 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  *
  * @see DumpSink
  * @see DumpFormatter
+ * @see StreamDumpFormatter
  * @see DumpCollection
  */
-public class DefaultDumpFormatter implements DumpFormatter {
-	private static ThreadLocal<Long> TIME_TABLE = new ThreadLocal<Long>();
+public class DefaultDumpFormatter implements StreamDumpFormatter {
+	// open times by sink, sinks may be closed on a different thread than opened
+	private static final ConcurrentHashMap<DumpSink, Long> TIME_TABLE = new ConcurrentHashMap<DumpSink, Long>();
 
 	private static final String INDENT = "\t";
 	private static final String NEWLINE = "\n";
 	private static final String END_ATTR = ",\n";
 
-	private String _format(DumpCollection dump, String padding) {
-		StringBuilder buffer = new StringBuilder(1024);
-
-		buffer.append(padding).append(Utils.quote("dump.name")).append(": ").append(Utils.quote(dump.getName())).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.category")).append(": ").append(Utils.quote(dump.getCategory())).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.provider")).append(": ").append(Utils.quote(dump.getDumpProvider().getProviderName())).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.provider.category")).append(": ").append(Utils.quote(dump.getDumpProvider().getCategoryName())).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.time.string")).append(": ").append(Utils.quote(UsecTimestamp.getTimeStamp(dump.getTime(),0))).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.time.stamp")).append(": ").append(dump.getTime()).append(END_ATTR);
-		buffer.append(padding).append(Utils.quote("dump.snapshot")).append(": {\n");
-		int startLen = buffer.length();
+	private void _format(DumpCollection dump, String padding, Appendable out) throws IOException {
+		out.append(padding).append(Utils.quote("dump.name")).append(": ").append(Utils.quote(dump.getName())).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.category")).append(": ").append(Utils.quote(dump.getCategory())).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.provider")).append(": ").append(Utils.quote(dump.getDumpProvider().getProviderName())).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.provider.category")).append(": ").append(Utils.quote(dump.getDumpProvider().getCategoryName())).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.time.string")).append(": ").append(Utils.quote(UsecTimestamp.getTimeStamp(dump.getTime(),0))).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.time.stamp")).append(": ").append(String.valueOf(dump.getTime())).append(END_ATTR);
+		out.append(padding).append(Utils.quote("dump.snapshot")).append(": {\n");
 
+		boolean first = true;
 		String subPadding = padding + INDENT;
 		for (Property entry : dump.getSnapshot()) {
-			if (buffer.length() > startLen) {
-				buffer.append(END_ATTR);
+			if (!first) {
+				out.append(END_ATTR);
 			}
+			first = false;
 			Object value = entry.getValue();
 			if (value instanceof DumpCollection) {
-				buffer.append(subPadding).append(Utils.quote("dump.collection")).append(": {\n");
-				buffer.append(_format((DumpCollection)value, subPadding + INDENT));
-				buffer.append(NEWLINE).append(subPadding).append("}");
+				out.append(subPadding).append(Utils.quote("dump.collection")).append(": {\n");
+				_format((DumpCollection)value, subPadding + INDENT, out);
+				out.append(NEWLINE).append(subPadding).append("}");
 			} else if (value instanceof Number) {
-				buffer.append(subPadding).append(Utils.quote(entry.getKey())).append(": ").append(value);
+				out.append(subPadding).append(Utils.quote(entry.getKey())).append(": ").append(String.valueOf(value));
 			} else {
-				buffer.append(subPadding).append(Utils.quote(entry.getKey())).append(": ").append(Utils.quote(value));
+				out.append(subPadding).append(Utils.quote(entry.getKey())).append(": ").append(Utils.quote(value));
 			}
 		}
-		buffer.append(NEWLINE).append(padding).append("}");
-		return buffer.toString();
+		out.append(NEWLINE).append(padding).append("}");
 	}
 
 	@Override
 	public String format(DumpCollection dump) {
-		return _format(dump, "");
+		StringBuilder buffer = new StringBuilder(1024);
+		try {
+			_format(dump, "", buffer);
+		} catch (IOException e) {
+			// never thrown by StringBuilder
+		}
+		return buffer.toString();
+	}
+
+	@Override
+	public void format(DumpCollection dump, Writer out) throws IOException {
+		_format(dump, "", out);
 	}
 
 	@Override
@@ -155,7 +169,8 @@ public class DefaultDumpFormatter implements DumpFormatter {
 		buffer.append(Utils.quote("vm.pid")).append(": ").append(Utils.getVMPID()).append(END_ATTR);
 		buffer.append(Utils.quote("dump.sink")).append(": ").append(Utils.quote(sink)).append(END_ATTR);
 		buffer.append(Utils.quote("dump.time.string")).append(": ").append(Utils.quote(UsecTimestamp.getTimeStamp())).append(END_ATTR);
-		long elapsed_ms = TimeService.currentTimeMillis() - TIME_TABLE.get();
+		Long opened = TIME_TABLE.remove(sink);
+		long elapsed_ms = opened != null? TimeService.currentTimeMillis() - opened: 0;
 		buffer.append(Utils.quote("dump.elapsed.ms")).append(": ").append(elapsed_ms);
 		buffer.append("\n}");
 		return buffer.toString();
@@ -164,7 +179,7 @@ public class DefaultDumpFormatter implements DumpFormatter {
 	@Override
     public String getOpenStanza(DumpSink sink) {
 		StringBuilder buffer = new StringBuilder(1024);
-		TIME_TABLE.set(TimeService.currentTimeMillis());
+		TIME_TABLE.put(sink, TimeService.currentTimeMillis());
 		buffer.append("{\n");
 		buffer.append(Utils.quote("dump.status")).append(": ").append(Utils.quote("START")).append(END_ATTR);
 		buffer.append(Utils.quote("server.name")).append(": ").append(Utils.quote(Utils.getLocalHostName())).append(END_ATTR);
@@ -15,6 +15,13 @@
  */
 package com.nastel.jkool.tnt4j.dump;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * <p>
  * This class implements a default dump provider. This is an abstract class and
@@ -50,4 +57,27 @@ abstract public class DefaultDumpProvider implements DumpProvider {
     public String getProviderName() {
 	    return pname;
     }
+
+	/**
+	 * Obtain entries with highest counts from a given map
+	 *
+	 * @param counts map of names and counts
+	 * @param count maximum number of entries
+	 * @return map of names and counts, sorted by count in descending order
+	 */
+	protected static Map<String, Long> top(Map<String, Long> counts, int count) {
+		List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(counts.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2) {
+				return e2.getValue().compareTo(e1.getValue());
+			}
+		});
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, Long> entry : entries) {
+			if (result.size() >= count) break;
+			result.put(entry.getKey(), entry.getValue());
+		}
+		return result;
+	}
 }
@@ -31,6 +31,9 @@ import com.nastel.jkool.tnt4j.core.UsecTimestamp;
  * name using this convention: <code>DEFAULT_DUMP_FOLDER + Utils.VM_NAME + ".dump"</code>.
  * Default dump directory location can be specified using <code>DumpLocation</code> configuration
  * attribute or java property <code>tnt4j.dump.folder=./</code>.
+ * Dump files are GZIP compressed when <code>Compress</code> configuration attribute
+ * or java property <code>tnt4j.dump.compress=true</code> is set, compressed dump file
+ * names are suffixed with <code>.gz</code>.
  * </p>
  * 
  * 
@@ -40,9 +43,11 @@ import com.nastel.jkool.tnt4j.core.UsecTimestamp;
  */
 public class DefaultDumpSinkFactory implements DumpSinkFactory, Configurable {
 	public static final String DEFAULT_DUMP_FOLDER = System.getProperty("tnt4j.dump.folder", "." + File.separator);
+	public static final String COMPRESSED_SUFFIX = ".gz";
 
 	protected Map<String, Object> config = null;
 	private boolean append = true;
+	private boolean compress = Boolean.getBoolean("tnt4j.dump.compress");
 	private String dumpLocation;
 	
 	
@@ -64,27 +69,40 @@ public class DefaultDumpSinkFactory implements DumpSinkFactory, Configurable {
 	 * @return default dump location URL.
 	 */
 	public  String getDefaultLocation() {
-		return dumpLocation;
+		return getLocation(dumpLocation);
 	}
 	
+	/**
+	 * Determine if dump files are GZIP compressed
+	 *
+	 * @return true if compressed, false otherwise
+	 */
+	public boolean isCompressed() {
+		return compress;
+	}
+
+	private String getLocation(String url) {
+		return compress && !url.endsWith(COMPRESSED_SUFFIX)? url + COMPRESSED_SUFFIX: url;
+	}
+
 	@Override
     public DumpSink getInstance() {
-	    return new FileDumpSink(dumpLocation, append);
+	    return getInstance(dumpLocation, append);
     }
 
 	@Override
     public DumpSink getInstance(String url) {
-	    return new FileDumpSink(url, append);
+	    return getInstance(url, append);
     }
 
 	@Override
     public DumpSink getInstance(String url, boolean append) {
-	    return new FileDumpSink(url, append);
+	    return getInstance(url, append, new DefaultDumpFormatter());
     }
 
 	@Override
     public DumpSink getInstance(String url, boolean append, DumpFormatter frm) {
-	    return new FileDumpSink(url, append, frm);
+	    return new FileDumpSink(getLocation(url), append, frm, compress);
     }
 
 	@Override
@@ -98,6 +116,9 @@ public class DefaultDumpSinkFactory implements DumpSinkFactory, Configurable {
 		Object flag  = props.get("Append");
 		append = flag == null? append: Boolean.valueOf(flag.toString());
 
+		Object zip  = props.get("Compress");
+		compress = zip == null? compress: Boolean.valueOf(zip.toString());
+
 		Object dumpUrl = config.get("DumpLocation");
 		dumpLocation = dumpUrl != null? dumpUrl.toString(): dumpLocation;
 	}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.dump;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Dump engine collects dumps from {@link DumpProvider} instances in parallel on a bounded
+ * pool of daemon threads and writes each dump to its {@link DumpSink} instances as soon as
+ * it is obtained. Each provider has a deadline measured from the start of the dump
+ * ({@code tnt4j.dump.provider.timeout.ms}, default 10000, or a per provider timeout):
+ * dumps of providers exceeding their deadline are abandoned, so a slow provider
+ * does not hold up other providers or the caller (e.g. shutdown hooks). Writes of dumps
+ * obtained on time are bounded by the same deadline. Worker threads still held by abandoned
+ * providers are replaced by extra threads (at most {@code tnt4j.dump.max.abandoned}, default 16),
+ * which are retired once abandoned providers return. Deadlines are measured with {@link System#nanoTime()}.
+ * </p>
+ * <p>
+ * Dumps are generated one at a time, each run opens all dump sinks, collects dumps,
+ * notifies {@link DumpListener} with {@code DUMP_COMPLETE} and closes all dump sinks.
+ * Writes to a given dump sink are serialized. Dump sinks still being written by abandoned
+ * providers are closed asynchronously once their write completes.
+ * </p>
+ *
+ * @see DumpProvider
+ * @see DumpSink
+ * @see DumpReport
+ * @version $Revision: 1 $
+ */
+public class DumpEngine {
+	public static final int DEFAULT_THREADS = Integer.getInteger("tnt4j.dump.threads",
+	        Math.min(4, Runtime.getRuntime().availableProcessors()));
+	public static final long DEFAULT_TIMEOUT_MS = Long.getLong("tnt4j.dump.provider.timeout.ms", 10000);
+	public static final int DEFAULT_MAX_ABANDONED = Integer.getInteger("tnt4j.dump.max.abandoned", 16);
+
+	private static final int PENDING = 0, WRITING = 1, ABANDONED = 2;
+
+	private final String name;
+	private final DumpListener listener;
+	private final ThreadPoolExecutor coordinator, workers, closers;
+	private final ConcurrentHashMap<DumpProvider, Long> timeouts = new ConcurrentHashMap<DumpProvider, Long>(49);
+	private volatile long defaultTimeout;
+	private int abandonedWorkers = 0;
+
+	/**
+	 * Create dump engine with default number of threads and provider timeout.
+	 *
+	 * @param name engine name used to name engine threads
+	 * @param listener listener notified of dump events, null if none
+	 */
+	public DumpEngine(String name, DumpListener listener) {
+		this(name, listener, DEFAULT_THREADS, DEFAULT_TIMEOUT_MS);
+	}
+
+	/**
+	 * Create dump engine with given number of threads and provider timeout.
+	 *
+	 * @param name engine name used to name engine threads
+	 * @param listener listener notified of dump events, null if none
+	 * @param threads maximum number of providers invoked concurrently
+	 * @param timeoutMs default provider deadline in milliseconds measured from the start of the dump
+	 */
+	public DumpEngine(String name, DumpListener listener, int threads, long timeoutMs) {
+		this.name = name;
+		this.listener = listener;
+		this.defaultTimeout = timeoutMs;
+		this.coordinator = newPool("coordinator", 1);
+		this.workers = newPool("worker", Math.max(1, threads));
+		this.closers = newPool("closer", Math.max(1, DEFAULT_MAX_ABANDONED));
+	}
+
+	private ThreadPoolExecutor newPool(final String role, int threads) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+		        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			        final AtomicInteger count = new AtomicInteger(0);
+
+			        @Override
+			        public Thread newThread(Runnable r) {
+				        Thread task = new Thread(r, "DumpEngine(" + name + ")/" + role + "-" + count.incrementAndGet());
+				        task.setDaemon(true);
+				        return task;
+			        }
+		        });
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Set default provider timeout
+	 *
+	 * @param timeout provider deadline measured from the start of the dump
+	 * @param unit time unit
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		defaultTimeout = unit.toMillis(timeout);
+	}
+
+	/**
+	 * Set timeout for a given provider, overriding the default timeout
+	 *
+	 * @param provider dump provider
+	 * @param timeout provider deadline measured from the start of the dump
+	 * @param unit time unit
+	 */
+	public void setTimeout(DumpProvider provider, long timeout, TimeUnit unit) {
+		timeouts.put(provider, unit.toMillis(timeout));
+	}
+
+	/**
+	 * Obtain timeout for a given provider
+	 *
+	 * @param provider dump provider
+	 * @return provider deadline in milliseconds measured from the start of the dump
+	 */
+	public long getTimeout(DumpProvider provider) {
+		Long timeout = timeouts.get(provider);
+		return timeout != null? timeout: defaultTimeout;
+	}
+
+	/**
+	 * Generate dumps for given providers asynchronously. Dumps are written to dump sinks
+	 * associated with each provider. Providers are invoked in map iteration order.
+	 *
+	 * @param table map of dump providers and their dump sinks
+	 * @param reason reason why dump is generated, null if none
+	 * @return future completed with dump report when all providers completed or exceeded their deadline
+	 */
+	public Future<DumpReport> dump(final Map<DumpProvider, List<DumpSink>> table, final Throwable reason) {
+		return coordinator.submit(new Callable<DumpReport>() {
+			@Override
+			public DumpReport call() {
+				return runDump(table, reason);
+			}
+		});
+	}
+
+	/**
+	 * Stop engine threads. Dumps in progress are abandoned.
+	 */
+	public void shutdown() {
+		coordinator.shutdownNow();
+		workers.shutdownNow();
+		closers.shutdown();
+	}
+
+	private DumpReport runDump(Map<DumpProvider, List<DumpSink>> table, Throwable reason) {
+		long start = System.nanoTime();
+		DumpReport report = new DumpReport(System.currentTimeMillis(), reason);
+		Set<DumpSink> sinks = new LinkedHashSet<DumpSink>();
+		for (List<DumpSink> list : table.values()) {
+			sinks.addAll(list);
+		}
+		List<DumpSink> sinkList = new ArrayList<DumpSink>(sinks);
+		openSinks(sinkList);
+		List<ProviderTask> tasks = new ArrayList<ProviderTask>(table.size());
+		try {
+			for (Map.Entry<DumpProvider, List<DumpSink>> entry : table.entrySet()) {
+				ProviderTask task = new ProviderTask(entry.getKey(), entry.getValue(), reason);
+				task.future = workers.submit(task);
+				tasks.add(task);
+			}
+			for (ProviderTask task : tasks) {
+				long deadline = start + TimeUnit.MILLISECONDS.toNanos(getTimeout(task.provider));
+				await(task, deadline, report);
+			}
+		} finally {
+			closeSinks(sinkList, tasks);
+			report.setElapsedUsec(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		}
+		return report;
+	}
+
+	private void await(ProviderTask task, long deadline, DumpReport report) {
+		try {
+			long wait = Math.max(0, deadline - System.nanoTime());
+			task.future.get(wait, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			if (task.state.compareAndSet(PENDING, ABANDONED)) {
+				abandon(task, report, "Dump timed out");
+				return;
+			}
+			// dump obtained on time and being written, wait for writes until the same deadline
+			if (!awaitWrites(task, deadline)) {
+				abandon(task, report, "Dump write timed out");
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			task.state.set(ABANDONED);
+			task.future.cancel(true);
+		} catch (ExecutionException e) {
+			task.error = e.getCause();
+		}
+		if (task.error != null) {
+			report.addFailed(task.provider, task.error, task.elapsedUsec);
+		} else if (task.state.get() == WRITING) {
+			report.addCompleted(task.provider, task.elapsedUsec);
+		}
+	}
+
+	private boolean awaitWrites(ProviderTask task, long deadline) {
+		try {
+			long wait = Math.max(0, deadline - System.nanoTime());
+			task.future.get(wait, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			task.error = e.getCause();
+		}
+		return true;
+	}
+
+	private void abandon(ProviderTask task, DumpReport report, String msg) {
+		task.state.set(ABANDONED); // stops writes to remaining sinks
+		task.future.cancel(true);
+		replaceWorker(task);
+		report.addTimedOut(task.provider, task.started? TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.startNanos): 0);
+		notifyListeners(DumpProvider.DUMP_ERROR, task.provider, null, task.sinks, new TimeoutException(msg + ": provider="
+		        + task.provider.getProviderName() + ", timeout.ms=" + getTimeout(task.provider)));
+	}
+
+	/**
+	 * Add a worker thread in place of one held by an abandoned provider,
+	 * so that subsequent dumps are not starved by providers that never return.
+	 */
+	private synchronized void replaceWorker(ProviderTask task) {
+		if (!task.started || task.finished || task.replaced || abandonedWorkers >= DEFAULT_MAX_ABANDONED) return;
+		task.replaced = true;
+		abandonedWorkers++;
+		workers.setMaximumPoolSize(workers.getMaximumPoolSize() + 1);
+		workers.setCorePoolSize(workers.getCorePoolSize() + 1);
+	}
+
+	/**
+	 * Retire the extra worker thread once an abandoned provider returns
+	 */
+	private synchronized void finishTask(ProviderTask task) {
+		task.finished = true;
+		if (!task.replaced) return;
+		abandonedWorkers--;
+		workers.setCorePoolSize(workers.getCorePoolSize() - 1);
+		workers.setMaximumPoolSize(workers.getMaximumPoolSize() - 1);
+	}
+
+	private void openSinks(List<DumpSink> sinks) {
+		for (DumpSink dest : sinks) {
+			try {
+				dest.open();
+			} catch (Throwable ex) {
+				notifyListeners(DumpProvider.DUMP_ERROR, dest, null, sinks, ex);
+			}
+		}
+	}
+
+	private void closeSinks(final List<DumpSink> sinks, List<ProviderTask> tasks) {
+		Set<DumpSink> busy = new LinkedHashSet<DumpSink>();
+		for (ProviderTask task : tasks) {
+			DumpSink dest = task.writing;
+			if (dest != null) {
+				busy.add(dest);
+			}
+		}
+		try {
+			notifyListeners(DumpProvider.DUMP_COMPLETE, Thread.currentThread(), null, sinks, null);
+		} finally {
+			for (final DumpSink dest : sinks) {
+				if (!busy.contains(dest)) {
+					closeSink(dest);
+					continue;
+				}
+				// write of an abandoned provider in flight, close once it releases the sink
+				try {
+					closers.execute(new Runnable() {
+						@Override
+						public void run() {
+							closeSink(dest);
+						}
+					});
+				} catch (Throwable ex) {
+					notifyCloseError(dest, ex);
+				}
+			}
+		}
+	}
+
+	private void closeSink(DumpSink dest) {
+		try {
+			synchronized (dest) {
+				dest.close();
+			}
+		} catch (Throwable ex) {
+			notifyCloseError(dest, ex);
+		}
+	}
+
+	private void notifyCloseError(DumpSink dest, Throwable ex) {
+		ArrayList<DumpSink> list = new ArrayList<DumpSink>(1);
+		list.add(dest);
+		notifyListeners(DumpProvider.DUMP_ERROR, Thread.currentThread(), null, list, ex);
+	}
+
+	private void notifyListeners(int type, Object source, DumpCollection dump, List<DumpSink> sinks, Throwable ex) {
+		if (listener != null) {
+			listener.onDumpEvent(new DumpEvent(source, type, dump, sinks, ex));
+		}
+	}
+
+	private class ProviderTask implements Runnable {
+		final DumpProvider provider;
+		final List<DumpSink> sinks;
+		final Throwable reason;
+		final AtomicInteger state = new AtomicInteger(PENDING);
+		volatile long startNanos, elapsedUsec;
+		volatile DumpSink writing; // sink being written, null if none
+		volatile Throwable error;
+		volatile boolean started;
+		boolean finished, replaced; // guarded by DumpEngine.this
+		Future<?> future;
+
+		ProviderTask(DumpProvider provider, List<DumpSink> sinks, Throwable reason) {
+			this.provider = provider;
+			this.sinks = sinks;
+			this.reason = reason;
+		}
+
+		@Override
+		public void run() {
+			DumpCollection dump = null;
+			Throwable ex = reason;
+			startNanos = System.nanoTime();
+			started = true;
+			try {
+				dump = provider.getDump();
+				if (!state.compareAndSet(PENDING, WRITING)) {
+					return; // deadline exceeded, dump is abandoned
+				}
+				if (dump != null && reason != null) {
+					dump.setReason(reason);
+				}
+				notifyListeners(DumpProvider.DUMP_BEFORE, provider, dump, sinks, reason);
+				if (dump != null) {
+					for (DumpSink dest : sinks) {
+						writing = dest;
+						try {
+							if (state.get() == ABANDONED) {
+								break; // deadline exceeded, sinks are being closed
+							}
+							synchronized (dest) {
+								dest.write(dump);
+							}
+						} finally {
+							writing = null;
+						}
+					}
+				}
+			} catch (Throwable e) {
+				if (state.get() != WRITING && !state.compareAndSet(PENDING, WRITING)) {
+					return; // deadline exceeded, error is reported as time out
+				}
+				error = ex = e;
+				if (reason != null && e.getCause() == null) {
+					e.initCause(reason);
+				}
+			} finally {
+				elapsedUsec = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+				try {
+					if (state.get() == WRITING) {
+						notifyListeners(DumpProvider.DUMP_AFTER, provider, dump, sinks, ex);
+					}
+				} finally {
+					finishTask(this);
+				}
+			}
+		}
+	}
+}
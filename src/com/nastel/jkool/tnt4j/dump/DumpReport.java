@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.dump;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Completion report of a dump generated by {@link DumpEngine}. The report
+ * lists providers which completed, failed or exceeded their deadline
+ * as well as time spent obtaining and writing each dump.
+ * </p>
+ *
+ * @see DumpEngine
+ * @version $Revision: 1 $
+ */
+public class DumpReport {
+	private final long startTime;
+	private final Throwable reason;
+	private long elapsedUsec;
+
+	private final List<DumpProvider> completed = new ArrayList<DumpProvider>();
+	private final List<DumpProvider> timedOut = new ArrayList<DumpProvider>();
+	private final Map<DumpProvider, Throwable> failed = new LinkedHashMap<DumpProvider, Throwable>();
+	private final Map<DumpProvider, Long> elapsed = new LinkedHashMap<DumpProvider, Long>();
+
+	DumpReport(long startTime, Throwable reason) {
+		this.startTime = startTime;
+		this.reason = reason;
+	}
+
+	void addCompleted(DumpProvider provider, long usec) {
+		completed.add(provider);
+		elapsed.put(provider, usec);
+	}
+
+	void addFailed(DumpProvider provider, Throwable error, long usec) {
+		failed.put(provider, error);
+		elapsed.put(provider, usec);
+	}
+
+	void addTimedOut(DumpProvider provider, long usec) {
+		timedOut.add(provider);
+		elapsed.put(provider, usec);
+	}
+
+	void setElapsedUsec(long usec) {
+		elapsedUsec = usec;
+	}
+
+	/**
+	 * Time when dump was started
+	 *
+	 * @return timestamp in milliseconds
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Reason why dump was generated
+	 *
+	 * @return reason why dump was generated, null if none
+	 */
+	public Throwable getReason() {
+		return reason;
+	}
+
+	/**
+	 * Total time spent generating the dump
+	 *
+	 * @return elapsed time in microseconds
+	 */
+	public long getElapsedUsec() {
+		return elapsedUsec;
+	}
+
+	/**
+	 * Time spent by a given provider, including writing to dump sinks.
+	 * Time of providers exceeding their deadline is the time waited.
+	 *
+	 * @param provider dump provider
+	 * @return elapsed time in microseconds, -1 if provider is not part of the dump
+	 */
+	public long getElapsedUsec(DumpProvider provider) {
+		Long usec = elapsed.get(provider);
+		return usec != null? usec: -1;
+	}
+
+	/**
+	 * Providers whose dumps were obtained and written to dump sinks
+	 *
+	 * @return list of dump providers
+	 */
+	public List<DumpProvider> getCompleted() {
+		return Collections.unmodifiableList(completed);
+	}
+
+	/**
+	 * Providers which did not complete before their deadline. Dumps
+	 * of such providers are not written to dump sinks.
+	 *
+	 * @return list of dump providers
+	 */
+	public List<DumpProvider> getTimedOut() {
+		return Collections.unmodifiableList(timedOut);
+	}
+
+	/**
+	 * Providers which failed to obtain or write their dumps
+	 *
+	 * @return map of dump providers and errors
+	 */
+	public Map<DumpProvider, Throwable> getFailed() {
+		return Collections.unmodifiableMap(failed);
+	}
+
+	/**
+	 * Determine if all providers completed successfully
+	 *
+	 * @return true if all providers completed, false otherwise
+	 */
+	public boolean isComplete() {
+		return timedOut.isEmpty() && failed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return super.toString()
+			+ "{start.time: " + startTime
+			+ ", elapsed.usec: " + elapsedUsec
+			+ ", completed: " + completed.size()
+			+ ", failed: " + failed.size()
+			+ ", timed.out: " + timedOut.size()
+			+ "}";
+	}
+}
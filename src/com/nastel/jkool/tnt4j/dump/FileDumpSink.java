@@ -15,7 +15,15 @@
  */
 package com.nastel.jkool.tnt4j.dump;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
 
 import com.nastel.jkool.tnt4j.sink.FileSink;
 
@@ -23,19 +31,29 @@ import com.nastel.jkool.tnt4j.sink.FileSink;
 /**
  * <p>
  * This class implements <code>DumpSink</code> with file as the underlying storage for
- * dump collections.
+ * dump collections. Dumps are written through a bounded buffer
+ * (<code>tnt4j.dump.buffer.size</code>, default 8192 bytes), formatters implementing
+ * <code>StreamDumpFormatter</code> write dumps property by property without materializing
+ * whole dumps in memory. Dump files can optionally be GZIP compressed, each open/close
+ * session is written as a separate GZIP member, so compressed files can be appended to.
  * </p>
  * 
  * 
- * @version $Revision: 3 $
+ * @version $Revision: 4 $
  * 
  * @see DumpSink
  * @see DumpFormatter
+ * @see StreamDumpFormatter
  * @see DumpCollection
  */
 
 public class FileDumpSink extends FileSink implements DumpSink {
+	public static final int BUFFER_SIZE = Integer.getInteger("tnt4j.dump.buffer.size", 8192);
+	private static final String NEWLINE = System.getProperty("line.separator");
+
 	private DumpFormatter formatter = null;
+	private boolean compress = false;
+	private Writer writer = null;
 	
 	/**
 	 * Create a dump destination based on given filename, append flag.
@@ -68,37 +86,100 @@ public class FileDumpSink extends FileSink implements DumpSink {
 	 * @see DumpFormatter
 	 */
 	public FileDumpSink(String filename, boolean appnd, DumpFormatter format) {
+		this(filename, appnd, format, false);
+	}
+
+	/**
+	 * Create a dump destination based on given filename, append flag,
+	 * a given <code>DumpFormatter</code> and compression flag.
+	 * 
+	 * @param filename for generating a dump destination instance
+	 * @param appnd append to the underlying destination
+	 * @param format user defined dump formatter
+	 * @param compress GZIP compress dump file
+	 * @see DumpFormatter
+	 */
+	public FileDumpSink(String filename, boolean appnd, DumpFormatter format, boolean compress) {
 		super(filename, appnd, format);
-		formatter = format;
+		this.formatter = format;
+		this.compress = compress;
+	}
+
+	/**
+	 * Determine if dump file is GZIP compressed
+	 * 
+	 * @return true if compressed, false otherwise
+	 */
+	public boolean isCompressed() {
+		return compress;
 	}
 	
 	@Override
     public synchronized void close() {
 		if (isOpen()) {
-			printer.println(formatter.getCloseStanza(this));
-			printer.flush();			
+			try {
+				writer.write(formatter.getCloseStanza(this));
+				writer.write(NEWLINE);
+				writer.flush();
+			} catch (IOException e) {
+				// closing anyway, underlying stream is closed below
+			}
 		}
+		writer = null;
 		super.close();
 	}
 
 	@Override
     public synchronized void open() throws IOException {
-		super.open();
-		if (isOpen()) {
-			printer.println(formatter.getOpenStanza(this));
-			printer.flush();
+		if (printer == null) {
+			OutputStream out = new FileOutputStream(file, append);
+			out = compress? new GZIPOutputStream(out, BUFFER_SIZE, true): new BufferedOutputStream(out, BUFFER_SIZE);
+			printer = new PrintStream(out);
+			writer = new BufferedWriter(new OutputStreamWriter(printer), BUFFER_SIZE);
+			writer.write(formatter.getOpenStanza(this));
+			writer.write(NEWLINE);
+			writer.flush();
 		}
     }
 
 	@Override
     public synchronized void write(DumpCollection dump) throws IOException {
 		if (isOpen()) {
-			printer.println(formatter.getHeader(dump));
-			printer.println(formatter.format(dump));
-			printer.println(formatter.getFooter(dump));
-			printer.flush();
+			writer.write(formatter.getHeader(dump));
+			writer.write(NEWLINE);
+			if (formatter instanceof StreamDumpFormatter) {
+				((StreamDumpFormatter) formatter).format(dump, writer);
+			} else {
+				writer.write(formatter.format(dump));
+			}
+			writer.write(NEWLINE);
+			writer.write(formatter.getFooter(dump));
+			writer.write(NEWLINE);
+			writer.flush();
+		} else {
+			throw new IOException("Dump sink is closed, file=" + getFileName());
+		}
+	}
+
+	@Override
+	public synchronized void write(Object msg, Object... args) throws IOException {
+		if (isOpen()) {
+			writer.write(formatter.format(msg, args));
+			writer.write(NEWLINE);
+			writer.flush();
 		} else {
 			throw new IOException("Dump sink is closed, file=" + getFileName());
 		}
 	}
+
+	@Override
+	public synchronized void flush() {
+		if (isOpen()) {
+			try {
+				writer.flush();
+			} catch (IOException e) {
+				// writer is backed by a PrintStream, errors are recorded by the stream
+			}
+		}
+	}
 }
@@ -20,14 +20,17 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
+import com.nastel.jkool.tnt4j.utils.SizeEstimator;
 import com.nastel.jkool.tnt4j.utils.SizeOf;
 
 /**
  * <p>
  * This class dumps the contents of a given object using reflection. All fields and their values are reported as part of
- * the <code>DumpCollection</code> collection.
+ * the <code>DumpCollection</code> collection. Deep memory sizes of the object and its fields are estimated in a single
+ * bounded walk using <code>SizeEstimator</code>, objects reachable from several fields are accounted for the first field.
  * </p>
  * 
  * @see DumpCollection
@@ -69,7 +72,7 @@ public class ObjectDumpProvider extends DefaultDumpProvider {
 	}
 
 	/**
-	 * Enable/disable shallow, deep memory size of the object associated with this
+	 * Enable/disable shallow, deep memory size of the object and its fields associated with this
 	 * dump provider.
 	 * 
 	 *@param shallow
@@ -105,11 +108,11 @@ public class ObjectDumpProvider extends DefaultDumpProvider {
 		return max_size;
 	}
 
-	private Dump getFields(Class<?> clazz, Object dObj, Dump dump) {
+	private Dump getFields(Class<?> clazz, Object dObj, Dump dump, Map<Field, Long> fieldSizes) {
 		Field[] fields = clazz.getDeclaredFields();
 		for (Field fld: fields) {
-			fld.setAccessible(true);
 			try {
+				fld.setAccessible(true);
 				dump.add(clazz.getName() + "." + fld.getName() + ".$type", fld.getType().getName());
 				dump.add(clazz.getName() + "." + fld.getName() + ".$modifiers", Modifier.toString(fld.getModifiers()));
 				Object fHandle = fld.get(dObj);
@@ -132,13 +135,13 @@ public class ObjectDumpProvider extends DefaultDumpProvider {
 					dump.add(clazz.getName() + "." + fld.getName() + ".$value", String.valueOf(fHandle));
 				if (fHandle != null) {
 					dump.add(clazz.getName() + "." + fld.getName() + ".$class", fHandle.getClass().getName());
-					long sizeOf = SizeOf.sizeOf(fHandle);
+					long sizeOf = shallowSizeOf? SizeEstimator.shallowSizeOf(fHandle): 0;
 					if (sizeOf > 0) {
 						dump.add(clazz.getName() + "." + fld.getName() + ".$sizeOf", sizeOf);
 					}
-					sizeOf = fld.getType().isPrimitive()? 0: SizeOf.deepSizeOf(fHandle);
-					if (sizeOf > 0) {
-						dump.add(clazz.getName() + "." + fld.getName() + ".$deepSizeOf", sizeOf);
+					Long deepSize = fieldSizes.get(fld);
+					if (deepSize != null && deepSize > 0) {
+						dump.add(clazz.getName() + "." + fld.getName() + ".$deepSizeOf", deepSize);
 					}
 				}		
 			} catch (Throwable e) {
@@ -147,7 +150,7 @@ public class ObjectDumpProvider extends DefaultDumpProvider {
 		}
 		Class<?> superClass = clazz.getSuperclass();
 		if (superClass != null) {
-			return getFields(superClass, dObj, dump);
+			return getFields(superClass, dObj, dump, fieldSizes);
 		}
 		return dump;
 	}
@@ -160,16 +163,18 @@ public class ObjectDumpProvider extends DefaultDumpProvider {
 			dump = new Dump(dObj.toString(), this);
 			Class<?> clazz = dObj.getClass();
 			if (shallowSizeOf) {
-				long size = SizeOf.sizeOf(dObj);
+				long size = SizeEstimator.shallowSizeOf(dObj);
 				if (size > 0) dump.add(clazz.getName() + ".$sizeOf", size);
 			}
 			
+			Map<Field, Long> fieldSizes = new HashMap<Field, Long>();
 			if (deepSizeOf) {
-				long size = SizeOf.deepSizeOf(dObj);
-				if (size > 0) dump.add(clazz.getName() + ".$deepSizeOf", size);
+				SizeEstimator.Estimate size = SizeOf.newEstimator().estimate(dObj, fieldSizes);
+				if (size.getSize() > 0) dump.add(clazz.getName() + ".$deepSizeOf", size.getSize());
+				if (!size.isComplete()) dump.add(clazz.getName() + ".$deepSizeOf.partial", true);
 			}
 			dump.add(clazz.getName() + ".$classloader", String.valueOf(clazz.getClassLoader()));
-			getFields(clazz, dObj, dump);
+			getFields(clazz, dObj, dump, fieldSizes);
 		}
 		return dump;
 	}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.dump;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <p>
+ * Dump formatters implementing this interface write dump collections directly
+ * to a <code>Writer</code> property by property instead of building the whole
+ * formatted dump in memory. Dump sinks use this interface when available to
+ * keep memory usage bounded when writing large dumps (e.g. thread dumps).
+ * </p>
+ *
+ *
+ * @version $Revision: 1 $
+ *
+ * @see DumpFormatter
+ * @see FileDumpSink
+ */
+public interface StreamDumpFormatter extends DumpFormatter {
+	/**
+	 * Format a given dump collection and write it to a given writer
+	 *
+	 * @param dump user specified dump collection
+	 * @param out writer where formatted dump is written
+	 * @throws IOException if error writing formatted dump
+	 */
+	public void format(DumpCollection dump, Writer out) throws IOException;
+}
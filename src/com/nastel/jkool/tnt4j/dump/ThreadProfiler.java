@@ -0,0 +1,381 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.dump;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+
+/**
+ * <p>
+ * This class implements a sampling thread profiler. Stacks of runnable threads are sampled
+ * using {@link ThreadMXBean} on a background daemon thread at a given rate (default
+ * {@code tnt4j.profiler.rate.hz=20}) and aggregated into a call tree of interned frames
+ * ({@code class.method}). The call tree is bounded by {@code tnt4j.profiler.max.nodes}
+ * (default 10000) nodes and stack depth by {@code tnt4j.profiler.max.depth} (default 64):
+ * samples not fitting into the tree are attributed to the deepest existing node.
+ * </p>
+ * <p>
+ * Profiles are available as dumps (hot frames and collapsed call stacks, suitable for flame
+ * graphs) and optionally as periodic snapshots logged via a given {@link TrackingLogger}.
+ * </p>
+ * <pre>
+ * <code>
+ * ThreadProfiler profiler = new ThreadProfiler("MyApp");
+ * TrackingLogger.addDumpProvider(profiler);
+ * profiler.start(logger, 1, TimeUnit.MINUTES); // log hot frames every minute
+ * </code>
+ * </pre>
+ *
+ * @see DumpCollection
+ * @see ThreadDumpProvider
+ *
+ * @version $Revision: 1 $
+ *
+ */
+public class ThreadProfiler extends DefaultDumpProvider implements Runnable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(ThreadProfiler.class);
+
+	public static final int DEFAULT_RATE_HZ = Integer.getInteger("tnt4j.profiler.rate.hz", 20);
+	public static final int DEFAULT_MAX_DEPTH = Integer.getInteger("tnt4j.profiler.max.depth", 64);
+	public static final int DEFAULT_MAX_NODES = Integer.getInteger("tnt4j.profiler.max.nodes", 10000);
+	public static final int DEFAULT_TOP_COUNT = Integer.getInteger("tnt4j.profiler.top.count", 50);
+
+	private static final String STACK_SEPARATOR = ";";
+
+	private final ThreadMXBean tmbean = ManagementFactory.getThreadMXBean();
+	private final int rateHz, maxDepth, maxNodes;
+	private final Map<StackTraceElement, String> frames = new HashMap<StackTraceElement, String>(1024);
+
+	private CallNode root = new CallNode("all");
+	private int nodeCount = 0;
+	private long ticks = 0, samples = 0, truncated = 0;
+	private boolean runnableOnly = true;
+
+	private volatile Thread sampler;
+	private TrackingLogger reporter;
+	private long reportPeriodNanos, lastReport;
+
+	/**
+	 * Create a thread profiler with a given name and default
+	 * sampling rate and limits.
+	 *
+	 * @param name provider name
+	 */
+	public ThreadProfiler(String name) {
+		this(name, DEFAULT_RATE_HZ, DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Create a thread profiler with a given name, sampling rate and limits.
+	 *
+	 * @param name provider name
+	 * @param rateHz number of samples per second
+	 * @param maxDepth maximum number of sampled frames per stack
+	 * @param maxNodes maximum number of call tree nodes
+	 */
+	public ThreadProfiler(String name, int rateHz, int maxDepth, int maxNodes) {
+		super(name, "Profiler");
+		this.rateHz = Math.max(1, rateHz);
+		this.maxDepth = Math.max(1, maxDepth);
+		this.maxNodes = Math.max(1, maxNodes);
+	}
+
+	/**
+	 * Sample only runnable threads (default) or all threads
+	 *
+	 * @param flag true to sample runnable threads only, false to sample all threads
+	 * @return same profiler instance
+	 */
+	public ThreadProfiler setRunnableOnly(boolean flag) {
+		runnableOnly = flag;
+		return this;
+	}
+
+	/**
+	 * Start sampling on a background daemon thread
+	 *
+	 * @return same profiler instance
+	 */
+	public ThreadProfiler start() {
+		return start(null, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Start sampling on a background daemon thread and log hot frames
+	 * as snapshots using a given logger periodically.
+	 *
+	 * @param lg tracking logger used to log profile snapshots, null if none
+	 * @param period snapshot period
+	 * @param unit time unit of the period
+	 * @return same profiler instance
+	 */
+	public synchronized ThreadProfiler start(TrackingLogger lg, long period, TimeUnit unit) {
+		reporter = lg;
+		reportPeriodNanos = unit.toNanos(period);
+		lastReport = System.nanoTime();
+		if (sampler == null) {
+			Thread task = new Thread(this, "ThreadProfiler(" + getProviderName() + ")/sampler");
+			task.setDaemon(true);
+			sampler = task;
+			task.start();
+		}
+		return this;
+	}
+
+	/**
+	 * Stop sampling. Collected profile is retained.
+	 */
+	public synchronized void stop() {
+		Thread task = sampler;
+		sampler = null;
+		if (task != null) {
+			LockSupport.unpark(task);
+		}
+	}
+
+	/**
+	 * Determine if profiler is sampling
+	 *
+	 * @return true if sampling, false otherwise
+	 */
+	public boolean isRunning() {
+		return sampler != null;
+	}
+
+	/**
+	 * Clear collected profile
+	 */
+	public synchronized void reset() {
+		root = new CallNode(root.frame);
+		frames.clear();
+		nodeCount = 0;
+		ticks = samples = truncated = 0;
+	}
+
+	/**
+	 * Number of sampled stacks
+	 *
+	 * @return number of sampled stacks
+	 */
+	public synchronized long getSampleCount() {
+		return samples;
+	}
+
+	/**
+	 * Number of call tree nodes
+	 *
+	 * @return number of call tree nodes
+	 */
+	public synchronized int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Obtain frames with highest number of samples at the top of the stack
+	 *
+	 * @param count maximum number of frames
+	 * @return map of frames and sample counts, sorted by sample count
+	 */
+	public synchronized Map<String, Long> getHotFrames(int count) {
+		Map<String, Long> self = new HashMap<String, Long>();
+		collectFrames(root, self);
+		return top(self, count);
+	}
+
+	/**
+	 * Obtain call stacks with highest number of samples in collapsed format
+	 * (frames separated by {@code ;}, root first) used by flame graph tools.
+	 *
+	 * @param count maximum number of call stacks
+	 * @return map of call stacks and sample counts, sorted by sample count
+	 */
+	public synchronized Map<String, Long> getCallStacks(int count) {
+		Map<String, Long> stacks = new HashMap<String, Long>();
+		for (CallNode child : root.children()) {
+			collectStacks(child, child.frame, stacks);
+		}
+		return top(stacks, count);
+	}
+
+	@Override
+	public DumpCollection getDump() {
+		Dump dump = new Dump("ThreadProfile", this);
+		synchronized (this) {
+			dump.add("profiler.running", isRunning());
+			dump.add("profiler.rate.hz", rateHz);
+			dump.add("profiler.ticks", ticks);
+			dump.add("profiler.samples", samples);
+			dump.add("profiler.nodes", nodeCount);
+			dump.add("profiler.truncated", truncated);
+
+			Dump hot = new Dump("HotFrames", this);
+			for (Map.Entry<String, Long> entry : getHotFrames(DEFAULT_TOP_COUNT).entrySet()) {
+				hot.add(entry.getKey(), entry.getValue());
+			}
+			dump.add("profiler.hot.frames", hot);
+
+			Dump stacks = new Dump("CallStacks", this);
+			for (Map.Entry<String, Long> entry : getCallStacks(DEFAULT_TOP_COUNT).entrySet()) {
+				stacks.add(entry.getKey(), entry.getValue());
+			}
+			dump.add("profiler.call.stacks", stacks);
+		}
+		return dump;
+	}
+
+	@Override
+	public void run() {
+		long interval = TimeUnit.SECONDS.toNanos(1) / rateHz;
+		Thread self = Thread.currentThread();
+		try {
+			while (sampler == self) {
+				long start = System.nanoTime();
+				sample(self.getId());
+				report(start);
+				LockSupport.parkNanos(this, interval - (System.nanoTime() - start));
+			}
+		} catch (Throwable e) {
+			logger.log(OpLevel.ERROR, "Profiler stopped, name={0}", getProviderName(), e);
+		} finally {
+			synchronized (this) {
+				if (sampler == self) sampler = null;
+			}
+		}
+	}
+
+	private void sample(long selfId) {
+		ThreadInfo[] tinfos = tmbean.getThreadInfo(tmbean.getAllThreadIds(), maxDepth);
+		synchronized (this) {
+			ticks++;
+			for (ThreadInfo ti : tinfos) {
+				if (ti == null || ti.getThreadId() == selfId) continue;
+				if (runnableOnly && ti.getThreadState() != Thread.State.RUNNABLE) continue;
+				StackTraceElement[] stack = ti.getStackTrace();
+				if (stack.length > 0) {
+					add(stack);
+				}
+			}
+		}
+	}
+
+	private void add(StackTraceElement[] stack) {
+		samples++;
+		CallNode node = root;
+		for (int i = stack.length - 1; i >= 0; i--) {
+			String frame = intern(stack[i]);
+			CallNode child = node.getChild(frame);
+			if (child == null) {
+				if (nodeCount >= maxNodes) {
+					truncated++;
+					break;
+				}
+				child = node.addChild(frame);
+				nodeCount++;
+			}
+			node = child;
+		}
+		node.self++;
+	}
+
+	private String intern(StackTraceElement element) {
+		String frame = frames.get(element);
+		if (frame == null) {
+			frame = element.getClassName() + "." + element.getMethodName();
+			if (frames.size() < maxNodes) {
+				frames.put(element, frame);
+			}
+		}
+		return frame;
+	}
+
+	private void report(long now) {
+		TrackingLogger lg;
+		synchronized (this) {
+			lg = reporter;
+			if (lg == null || reportPeriodNanos <= 0 || (now - lastReport) < reportPeriodNanos) return;
+			lastReport = now;
+		}
+		Snapshot snapshot = lg.newSnapshot(getCategoryName(), getProviderName());
+		synchronized (this) {
+			snapshot.add("profiler.ticks", ticks);
+			snapshot.add("profiler.samples", samples);
+			snapshot.add("profiler.nodes", nodeCount);
+			snapshot.add("profiler.truncated", truncated);
+			for (Map.Entry<String, Long> entry : getHotFrames(DEFAULT_TOP_COUNT).entrySet()) {
+				snapshot.add(entry.getKey(), entry.getValue());
+			}
+		}
+		lg.tnt(snapshot);
+	}
+
+	private static void collectFrames(CallNode node, Map<String, Long> self) {
+		if (node.self > 0) {
+			Long count = self.get(node.frame);
+			self.put(node.frame, count == null? node.self: count + node.self);
+		}
+		for (CallNode child : node.children()) {
+			collectFrames(child, self);
+		}
+	}
+
+	private static void collectStacks(CallNode node, String path, Map<String, Long> stacks) {
+		if (node.self > 0) {
+			stacks.put(path, node.self);
+		}
+		for (CallNode child : node.children()) {
+			collectStacks(child, path + STACK_SEPARATOR + child.frame, stacks);
+		}
+	}
+
+	private static class CallNode {
+		final String frame;
+		long self;
+		Map<String, CallNode> children;
+
+		CallNode(String frame) {
+			this.frame = frame;
+		}
+
+		CallNode getChild(String name) {
+			return children != null? children.get(name): null;
+		}
+
+		CallNode addChild(String name) {
+			if (children == null) {
+				children = new HashMap<String, CallNode>(4);
+			}
+			CallNode child = new CallNode(name);
+			children.put(name, child);
+			return child;
+		}
+
+		Iterable<CallNode> children() {
+			return children != null? children.values(): Collections.<CallNode> emptyList();
+		}
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.dump;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+
+/**
+ * <p>
+ * This class implements a deadlock and lock contention watchdog. When enabled, the watchdog
+ * polls {@link ThreadMXBean} every {@code tnt4j.watchdog.period.ms} (default 5000) milliseconds
+ * for deadlocked threads and per thread blocked time deltas. Blocked time is attributed to
+ * monitors and their owners and ranked over a sliding window of {@code tnt4j.watchdog.window}
+ * (default 12) polls. Thread contention monitoring is turned on while the watchdog is enabled and
+ * restored to its prior state when disabled. When it is not supported (or turned off by someone else)
+ * blocked counts are ranked instead of blocked time and compared with {@code tnt4j.watchdog.blocked.count}
+ * (default 100) instead of the blocked time threshold.
+ * </p>
+ * <p>
+ * Snapshots are logged via a given {@link TrackingLogger} when new deadlocks are found and when
+ * the most contended monitor was blocked for more than {@code tnt4j.watchdog.blocked.ms}
+ * (default 1000) milliseconds within the window (at most once per window while contention lasts).
+ * The watchdog can be enabled and disabled at runtime, its own cost per poll is measured and
+ * reported. Current state is also available as a dump.
+ * </p>
+ *
+ * @see ThreadDeadlockDumpProvider
+ * @see DumpCollection
+ *
+ * @version $Revision: 1 $
+ *
+ */
+public class ThreadWatchdog extends DefaultDumpProvider implements Runnable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(ThreadWatchdog.class);
+
+	public static final long DEFAULT_PERIOD_MS = Long.getLong("tnt4j.watchdog.period.ms", 5000);
+	public static final int DEFAULT_WINDOW = Integer.getInteger("tnt4j.watchdog.window", 12);
+	public static final long DEFAULT_BLOCKED_MS = Long.getLong("tnt4j.watchdog.blocked.ms", 1000);
+	public static final long DEFAULT_BLOCKED_COUNT = Long.getLong("tnt4j.watchdog.blocked.count", 100);
+	public static final int DEFAULT_TOP_COUNT = Integer.getInteger("tnt4j.watchdog.top.count", 10);
+
+	private static final String UNKNOWN_LOCK = "<unknown>";
+
+	private final ThreadMXBean tmbean = ManagementFactory.getThreadMXBean();
+	private final long periodMs, blockedThresholdMs;
+	private final int window;
+	private final TrackingLogger reporter;
+
+	private final Map<Long, ThreadState> threads = new HashMap<Long, ThreadState>();
+	private final ArrayDeque<Contention> samples = new ArrayDeque<Contention>();
+
+	private ScheduledThreadPoolExecutor scheduler;
+	private boolean contentionMonitoringSet = false, timed = false;
+	private long[] deadlocked = new long[0];
+	private long polls = 0, pollNanos = 0, lastPollNanos = 0;
+	private long deadlockReports = 0, contentionReports = 0;
+	private int pollsSinceReport = Integer.MAX_VALUE;
+
+	/**
+	 * Create a watchdog with a given name, default poll period, window and threshold.
+	 *
+	 * @param name provider name
+	 * @param lg tracking logger used to log snapshots, null if none
+	 */
+	public ThreadWatchdog(String name, TrackingLogger lg) {
+		this(name, lg, DEFAULT_PERIOD_MS, DEFAULT_WINDOW, DEFAULT_BLOCKED_MS);
+	}
+
+	/**
+	 * Create a watchdog with a given name, poll period, window and threshold.
+	 *
+	 * @param name provider name
+	 * @param lg tracking logger used to log snapshots, null if none
+	 * @param periodMs poll period in milliseconds
+	 * @param window number of polls in sliding window
+	 * @param blockedMs blocked time within window in milliseconds triggering a contention snapshot
+	 */
+	public ThreadWatchdog(String name, TrackingLogger lg, long periodMs, int window, long blockedMs) {
+		super(name, "Watchdog");
+		this.reporter = lg;
+		this.periodMs = Math.max(1, periodMs);
+		this.window = Math.max(1, window);
+		this.blockedThresholdMs = blockedMs;
+	}
+
+	/**
+	 * Enable or disable the watchdog. Thread contention monitoring is enabled
+	 * on the JVM when supported to measure blocked time, and turned off again
+	 * on disable if it was off before the watchdog was enabled.
+	 *
+	 * @param flag true to enable, false to disable
+	 * @return same watchdog instance
+	 */
+	public synchronized ThreadWatchdog setEnabled(boolean flag) {
+		if (flag && scheduler == null) {
+			if (tmbean.isThreadContentionMonitoringSupported() && !tmbean.isThreadContentionMonitoringEnabled()) {
+				tmbean.setThreadContentionMonitoringEnabled(true);
+				contentionMonitoringSet = true;
+			}
+			scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread task = new Thread(r, "ThreadWatchdog(" + getProviderName() + ")/poll");
+					task.setDaemon(true);
+					return task;
+				}
+			});
+			scheduler.scheduleWithFixedDelay(this, periodMs, periodMs, TimeUnit.MILLISECONDS);
+		} else if (!flag && scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+			if (contentionMonitoringSet) {
+				tmbean.setThreadContentionMonitoringEnabled(false);
+				contentionMonitoringSet = false;
+			}
+			threads.clear();
+			samples.clear();
+			pollsSinceReport = Integer.MAX_VALUE;
+		}
+		return this;
+	}
+
+	/**
+	 * Determine if watchdog is enabled
+	 *
+	 * @return true if enabled, false otherwise
+	 */
+	public synchronized boolean isEnabled() {
+		return scheduler != null;
+	}
+
+	/**
+	 * Average time spent per poll
+	 *
+	 * @return average poll time in microseconds
+	 */
+	public synchronized long getAvgPollUsec() {
+		return polls > 0? TimeUnit.NANOSECONDS.toMicros(pollNanos / polls): 0;
+	}
+
+	/**
+	 * Obtain monitors with highest blocked time within the sliding window
+	 *
+	 * @param count maximum number of monitors
+	 * @return map of monitor names and blocked time in milliseconds (blocked counts if contention
+	 * monitoring is not available), sorted by blocked time
+	 */
+	public synchronized Map<String, Long> getContendedLocks(int count) {
+		Map<String, Long> totals = new HashMap<String, Long>();
+		for (Contention sample : samples) {
+			sum(totals, sample.locks);
+		}
+		return top(totals, count);
+	}
+
+	/**
+	 * Obtain monitor owners (thread names) with highest blocked time of other threads
+	 * within the sliding window
+	 *
+	 * @param count maximum number of owners
+	 * @return map of owner thread names and blocked time in milliseconds (blocked counts if contention
+	 * monitoring is not available), sorted by blocked time
+	 */
+	public synchronized Map<String, Long> getContendedOwners(int count) {
+		Map<String, Long> totals = new HashMap<String, Long>();
+		for (Contention sample : samples) {
+			sum(totals, sample.owners);
+		}
+		return top(totals, count);
+	}
+
+	@Override
+	public DumpCollection getDump() {
+		Dump dump = new Dump("ThreadWatchdog", this);
+		synchronized (this) {
+			dump.add("watchdog.enabled", isEnabled());
+			dump.add("watchdog.period.ms", periodMs);
+			dump.add("watchdog.window", window);
+			dump.add("watchdog.blocked.timed", timed);
+			dump.add("watchdog.polls", polls);
+			dump.add("watchdog.poll.avg.usec", getAvgPollUsec());
+			dump.add("watchdog.poll.last.usec", TimeUnit.NANOSECONDS.toMicros(lastPollNanos));
+			dump.add("watchdog.deadlock.reports", deadlockReports);
+			dump.add("watchdog.contention.reports", contentionReports);
+			dump.add("java.thread.deadlock.count", deadlocked.length);
+			addRanking(dump, "lock/", getContendedLocks(DEFAULT_TOP_COUNT));
+			addRanking(dump, "owner/", getContendedOwners(DEFAULT_TOP_COUNT));
+		}
+		return dump;
+	}
+
+	@Override
+	public void run() {
+		try {
+			poll();
+		} catch (Throwable e) {
+			logger.log(OpLevel.ERROR, "Watchdog poll failed, name={0}", getProviderName(), e);
+		}
+	}
+
+	private void poll() {
+		long start = System.nanoTime();
+		long[] dead = tmbean.isSynchronizerUsageSupported()? tmbean.findDeadlockedThreads(): tmbean.findMonitorDeadlockedThreads();
+		ThreadInfo[] tinfos = tmbean.getThreadInfo(tmbean.getAllThreadIds(), 0);
+		boolean newDeadlock, contended;
+		synchronized (this) {
+			newDeadlock = updateDeadlocks(dead);
+			contended = updateContention(tinfos);
+			polls++;
+			lastPollNanos = System.nanoTime() - start;
+			pollNanos += lastPollNanos;
+		}
+		if (newDeadlock) {
+			reportDeadlock(dead);
+		}
+		if (contended) {
+			reportContention();
+		}
+	}
+
+	private boolean updateDeadlocks(long[] dead) {
+		long[] current = dead != null? dead.clone(): new long[0];
+		Arrays.sort(current);
+		boolean changed = current.length > 0 && !Arrays.equals(current, deadlocked);
+		deadlocked = current;
+		return changed;
+	}
+
+	private boolean updateContention(ThreadInfo[] tinfos) {
+		boolean nowTimed = tmbean.isThreadContentionMonitoringEnabled();
+		if (nowTimed != timed) {
+			// blocked times and counts can not be mixed, start over
+			timed = nowTimed;
+			threads.clear();
+			samples.clear();
+			pollsSinceReport = Integer.MAX_VALUE;
+		}
+		Contention sample = new Contention();
+		Map<Long, ThreadState> seen = new HashMap<Long, ThreadState>(tinfos.length * 2);
+		for (ThreadInfo ti : tinfos) {
+			if (ti == null) continue;
+			ThreadState state = threads.get(ti.getThreadId());
+			if (state == null) {
+				state = new ThreadState();
+			}
+			long blocked = timed? ti.getBlockedTime(): ti.getBlockedCount();
+			long delta = state.blocked >= 0? blocked - state.blocked: 0;
+			state.blocked = blocked;
+			if (ti.getThreadState() == Thread.State.BLOCKED) {
+				state.lockName = ti.getLockName();
+				state.ownerName = ti.getLockOwnerName();
+			}
+			if (delta > 0) {
+				add(sample.locks, state.lockName != null? state.lockName: UNKNOWN_LOCK, delta);
+				add(sample.owners, state.ownerName != null? state.ownerName: UNKNOWN_LOCK, delta);
+			}
+			seen.put(ti.getThreadId(), state);
+		}
+		threads.clear();
+		threads.putAll(seen);
+
+		samples.addLast(sample);
+		while (samples.size() > window) {
+			samples.removeFirst();
+		}
+		pollsSinceReport = pollsSinceReport == Integer.MAX_VALUE? pollsSinceReport: pollsSinceReport + 1;
+
+		Map<String, Long> top = getContendedLocks(1);
+		boolean above = !top.isEmpty() && top.values().iterator().next() >= getBlockedThreshold();
+		if (above && pollsSinceReport >= window) {
+			pollsSinceReport = 0;
+			return true;
+		} else if (!above) {
+			pollsSinceReport = Integer.MAX_VALUE;
+		}
+		return false;
+	}
+
+	private long getBlockedThreshold() {
+		return timed? blockedThresholdMs: DEFAULT_BLOCKED_COUNT;
+	}
+
+	private void reportDeadlock(long[] dead) {
+		deadlockReports++;
+		ThreadInfo[] tinfos = tmbean.getThreadInfo(dead, Integer.MAX_VALUE);
+		if (reporter == null) return;
+		Snapshot snapshot = reporter.newSnapshot(getCategoryName(), "JavaDeadlockedThreads", OpLevel.CRITICAL);
+		snapshot.add("java.thread.deadlock.count", dead.length);
+		for (ThreadInfo ti : tinfos) {
+			if (ti == null) continue;
+			snapshot.add(ti.getThreadName() + "-" + ti.getThreadId(), "lock=" + ti.getLockName() + ", owner="
+			        + ti.getLockOwnerName() + "-" + ti.getLockOwnerId());
+		}
+		reporter.tnt(snapshot);
+	}
+
+	private void reportContention() {
+		Map<String, Long> locks, owners;
+		boolean wasTimed;
+		synchronized (this) {
+			contentionReports++;
+			wasTimed = timed;
+			locks = getContendedLocks(DEFAULT_TOP_COUNT);
+			owners = getContendedOwners(DEFAULT_TOP_COUNT);
+		}
+		if (reporter == null) return;
+		Snapshot snapshot = reporter.newSnapshot(getCategoryName(), "JavaLockContention", OpLevel.WARNING);
+		snapshot.add("watchdog.window.ms", periodMs * window);
+		if (wasTimed) {
+			snapshot.add("watchdog.blocked.threshold.ms", blockedThresholdMs);
+		} else {
+			snapshot.add("watchdog.blocked.threshold.count", DEFAULT_BLOCKED_COUNT);
+		}
+		snapshot.add("watchdog.poll.avg.usec", getAvgPollUsec());
+		for (Map.Entry<String, Long> entry : locks.entrySet()) {
+			snapshot.add("lock/" + entry.getKey(), entry.getValue());
+		}
+		for (Map.Entry<String, Long> entry : owners.entrySet()) {
+			snapshot.add("owner/" + entry.getKey(), entry.getValue());
+		}
+		reporter.tnt(snapshot);
+	}
+
+	private static void addRanking(Dump dump, String prefix, Map<String, Long> ranking) {
+		for (Map.Entry<String, Long> entry : ranking.entrySet()) {
+			dump.add(prefix + entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static void add(Map<String, Long> map, String key, long value) {
+		Long count = map.get(key);
+		map.put(key, count == null? value: count + value);
+	}
+
+	private static void sum(Map<String, Long> totals, Map<String, Long> values) {
+		for (Map.Entry<String, Long> entry : values.entrySet()) {
+			add(totals, entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static class ThreadState {
+		long blocked = -1;
+		String lockName, ownerName;
+	}
+
+	private static class Contention {
+		final Map<String, Long> locks = new HashMap<String, Long>();
+		final Map<String, Long> owners = new HashMap<String, Long>();
+	}
+}
@@ -17,27 +17,48 @@ package com.nastel.jkool.tnt4j.dump;
 
 import java.util.Map.Entry;
 
+import com.nastel.jkool.tnt4j.tracker.HitTimeTracker;
 import com.nastel.jkool.tnt4j.tracker.TimeStats;
 import com.nastel.jkool.tnt4j.tracker.TimeTracker;
 
 /**
- * This class implements a dump handler for {@link TimeTracker}.
+ * This class implements a dump handler for {@link TimeTracker} and {@link HitTimeTracker}.
  * It dumps the contents of a timing table. The timings maintain the number of nanoseconds
- * since last hit on a given key.
+ * since last hit on a given key. Timing tables maintained by {@link HitTimeTracker} also
+ * include minimum, maximum and average intervals between hits, ordered by hit count.
  *
  * @version $Revision: 1$
  */
 public class TimeTrackerDumpProvider extends DefaultDumpProvider{
 	private TimeTracker timeTracker;
+	private HitTimeTracker hitTracker;
 	
 	public TimeTrackerDumpProvider(String name, TimeTracker tTracker) {
 	    super(name, "HitTimings");
 	    this.timeTracker = tTracker;
     }
 
+	public TimeTrackerDumpProvider(String name, HitTimeTracker tTracker) {
+	    super(name, "HitTimings");
+	    this.hitTracker = tTracker;
+    }
+
 	@Override
     public DumpCollection getDump() {
 		Dump dump = new Dump("TimerTable", this);	
+		if (hitTracker != null) {
+			dump.add("capacity", hitTracker.getCapacity());
+			dump.add("evictions", hitTracker.getEvictionCount());
+			for (Entry<String, Long> entry: hitTracker.getHotKeys(hitTracker.getCapacity()).entrySet()) {
+				String key = entry.getKey();
+				dump.add(key + "/hits", entry.getValue());
+				dump.add(key + "/age.nano", hitTracker.getElapsedNanos(key));
+				dump.add(key + "/min.nano", hitTracker.getMinNanos(key));
+				dump.add(key + "/max.nano", hitTracker.getMaxNanos(key));
+				dump.add(key + "/avg.nano", hitTracker.getAvgNanos(key));
+			}
+			return dump;
+		}
 		for (Entry<String, TimeStats> entry: timeTracker.getTimeStats().entrySet()) {
 			dump.add(entry.getKey() + "/hits", entry.getValue().getHitCount());
 			dump.add(entry.getKey() + "/age.nano", entry.getValue().getAgeNanos());
@@ -26,6 +26,7 @@ import com.nastel.jkool.tnt4j.core.OpType;
 import com.nastel.jkool.tnt4j.core.Property;
 import com.nastel.jkool.tnt4j.core.Snapshot;
 import com.nastel.jkool.tnt4j.core.ValueTypes;
+import com.nastel.jkool.tnt4j.source.DefaultSource;
 import com.nastel.jkool.tnt4j.source.DefaultSourceFactory;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.source.SourceType;
@@ -112,7 +113,7 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 		} else {
 			StringBuilder jsonString = new StringBuilder(1024);
 			jsonString.append(START_JSON);
-			jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.CURRENT.get()).append(ATTR_JSON);
+			jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.COARSE.get()).append(ATTR_JSON);
 
 			String msgText = StringEscapeUtils.escapeJson(Utils.format(obj.toString(), args)); // escape double quote chars
 			jsonString.append(JSON_MSG_TEXT_LABEL).append(ATTR_SEP).append(Utils.quote(msgText));
@@ -142,21 +143,19 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 			        Utils.quote(event.getParentId())).append(ATTR_JSON);
 		}
 		jsonString.append(JSON_SOURCE_LABEL).append(ATTR_SEP).append(Utils.quote(event.getSource().getName())).append(ATTR_JSON);
-		String ssn = event.getSource().getSourceFactory().getSSN();
-		if (!Utils.isEmpty(ssn)) {
-			String escaped = StringEscapeUtils.escapeJson(ssn); // escape double quote chars
-			jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+		String ssn = ssnJson(event.getSource());
+		if (ssn != null) {
+			jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(ssn).append(ATTR_JSON);
 		}
-		jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(Utils.quote(event.getSource().getFQName())).append(ATTR_JSON);
+		jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(fqNameJson(event.getSource())).append(ATTR_JSON);
 		if (!Utils.isEmpty(event.getSource().getUrl())) {
-			String escaped = StringEscapeUtils.escapeJson(event.getSource().getUrl()); // escape double quote chars
-			jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+			jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(urlJson(event.getSource())).append(ATTR_JSON);
 		}
 		if (event.get2(TrackingEvent.OBJ_ONE) != null) {
 			// we have a relation
 			jsonString.append(JSON_RELATE_TYPE_LABEL).append(ATTR_SEP).append(Utils.quote(event.get2Type())).append(ATTR_JSON);
-			jsonString.append(JSON_RELATE_FQN_A_LABEL).append(ATTR_SEP).append(Utils.quote(event.get2(TrackingEvent.OBJ_ONE).getFQName())).append(ATTR_JSON);
-			jsonString.append(JSON_RELATE_FQN_B_LABEL).append(ATTR_SEP).append(Utils.quote(event.get2(TrackingEvent.OBJ_TWO).getFQName())).append(ATTR_JSON);		
+			jsonString.append(JSON_RELATE_FQN_A_LABEL).append(ATTR_SEP).append(fqNameJson(event.get2(TrackingEvent.OBJ_ONE))).append(ATTR_JSON);
+			jsonString.append(JSON_RELATE_FQN_B_LABEL).append(ATTR_SEP).append(fqNameJson(event.get2(TrackingEvent.OBJ_TWO))).append(ATTR_JSON);		
 		}
 		jsonString.append(JSON_SEVERITY_LABEL).append(ATTR_SEP).append(Utils.quote(event.getSeverity())).append(ATTR_JSON);
 		jsonString.append(JSON_SEVERITY_NO_LABEL).append(ATTR_SEP).append(event.getSeverity().ordinal()).append(ATTR_JSON);
@@ -192,7 +191,7 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 			jsonString.append(JSON_USER_LABEL).append(ATTR_SEP).append(
 			        Utils.quote(escaped)).append(ATTR_JSON);
 		}
-		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.CURRENT.get()).append(ATTR_JSON);
+		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.COARSE.get()).append(ATTR_JSON);
 		if (event.getOperation().getStartTime() != null) {
 			jsonString.append(JSON_START_TIME_USEC_LABEL).append(ATTR_SEP).append(
 			        event.getOperation().getStartTime().getTimeUsec()).append(ATTR_JSON);
@@ -281,16 +280,14 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 			        Utils.quote(activity.getParentId())).append(ATTR_JSON);
 		}
 		jsonString.append(JSON_SOURCE_LABEL).append(ATTR_SEP).append(Utils.quote(activity.getSource().getName())).append(ATTR_JSON);
-		String ssn = activity.getSource().getSourceFactory().getSSN();
-		if (!Utils.isEmpty(ssn)) {
-			String escaped = StringEscapeUtils.escapeJson(ssn); // escape double quote chars
-			jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+		String ssn = ssnJson(activity.getSource());
+		if (ssn != null) {
+			jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(ssn).append(ATTR_JSON);
 		}
-		jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(Utils.quote(activity.getSource().getFQName())).append(ATTR_JSON);
+		jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(fqNameJson(activity.getSource())).append(ATTR_JSON);
 
 		if (!Utils.isEmpty(activity.getSource().getUrl())) {
-			String escaped = StringEscapeUtils.escapeJson(activity.getSource().getUrl()); // escape double quote chars
-			jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+			jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(urlJson(activity.getSource())).append(ATTR_JSON);
 		}
 		jsonString.append(JSON_STATUS_LABEL).append(ATTR_SEP).append(Utils.quote(activity.getStatus()))
 		        .append(ATTR_JSON);
@@ -327,7 +324,7 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 			jsonString.append(JSON_USER_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
 		}
 
-		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.CURRENT.get()).append(ATTR_JSON);
+		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.COARSE.get()).append(ATTR_JSON);
 		if (activity.getStartTime() != null) {
 			jsonString.append(JSON_START_TIME_USEC_LABEL).append(ATTR_SEP).append(
 			        activity.getStartTime().getTimeUsec()).append(ATTR_JSON);
@@ -415,15 +412,13 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 		Source source = snap.getSource();
 		if (source != null) {
 			jsonString.append(JSON_SOURCE_LABEL).append(ATTR_SEP).append(Utils.quote(source.getName())).append(ATTR_JSON);
-			String ssn = source.getSourceFactory().getSSN();
-			if (!Utils.isEmpty(ssn)) {
-				String escaped = StringEscapeUtils.escapeJson(ssn); // escape double quote chars
-				jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+			String ssn = ssnJson(source);
+			if (ssn != null) {
+				jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(ssn).append(ATTR_JSON);
 			}
-			jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(Utils.quote(source.getFQName())).append(ATTR_JSON);
+			jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(fqNameJson(source)).append(ATTR_JSON);
 			if (!Utils.isEmpty(source.getUrl())) {
-				String escaped = StringEscapeUtils.escapeJson(source.getUrl()); // escape double quote chars
-				jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+				jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(urlJson(source)).append(ATTR_JSON);
 			}
 		}
 		jsonString.append(JSON_SEVERITY_LABEL).append(ATTR_SEP).append(Utils.quote(snap.getSeverity())).append(ATTR_JSON);
@@ -480,21 +475,19 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 		String usrName = StringEscapeUtils.escapeJson(source == null? DefaultSourceFactory.getInstance().getRootSource().getUser(): source.getUser());
 		jsonString.append(JSON_USER_LABEL).append(ATTR_SEP).append(Utils.quote(usrName)).append(ATTR_JSON);
 		jsonString.append(JSON_TTL_SEC_LABEL).append(ATTR_SEP).append(ttl).append(ATTR_JSON);
-		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.CURRENT.get()).append(ATTR_JSON);
+		jsonString.append(JSON_TIME_USEC_LABEL).append(ATTR_SEP).append(Useconds.COARSE.get()).append(ATTR_JSON);
 		jsonString.append(JSON_OPERATION_LABEL).append(ATTR_SEP).append(Utils.quote(defOpName)).append(ATTR_JSON);
 
 		if (source != null) {
 			jsonString.append(JSON_SOURCE_LABEL).append(ATTR_SEP).append(Utils.quote(source.getName())).append(ATTR_JSON);
-			String ssn = source.getSourceFactory().getSSN();
-			if (!Utils.isEmpty(ssn)) {
-				String escaped = StringEscapeUtils.escapeJson(ssn); // escape double quote chars
-				jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(Utils.quote(escaped)).append(ATTR_JSON);
+			String ssn = ssnJson(source);
+			if (ssn != null) {
+				jsonString.append(JSON_SOURCE_SSN_LABEL).append(ATTR_SEP).append(ssn).append(ATTR_JSON);
 			}
-			jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(Utils.quote(source.getFQName()));
+			jsonString.append(JSON_SOURCE_FQN_LABEL).append(ATTR_SEP).append(fqNameJson(source));
 			if (!Utils.isEmpty(source.getUrl())) {
 				jsonString.append(ATTR_JSON);
-				String escaped = StringEscapeUtils.escapeJson(source.getUrl()); // escape double quote chars
-				jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(Utils.quote(escaped));
+				jsonString.append(JSON_SOURCE_URL_LABEL).append(ATTR_SEP).append(urlJson(source));
 			}
 			Source geoloc = source.getSource(SourceType.GEOADDR);
 			if (geoloc != null) {
@@ -518,6 +511,28 @@ public class JSONFormatter implements EventFormatter, Configurable, JSONLabels {
 		return jsonString.toString();
 	}
 
+	private static String fqNameJson(Source source) {
+		if (source instanceof DefaultSource) {
+			return ((DefaultSource) source).getFQNameJson();
+		}
+		return Utils.quote(StringEscapeUtils.escapeJson(source.getFQName())); // escape double quote chars
+	}
+
+	private static String ssnJson(Source source) {
+		if (source instanceof DefaultSource) {
+			return ((DefaultSource) source).getSSNJson();
+		}
+		String ssn = source.getSourceFactory().getSSN();
+		return !Utils.isEmpty(ssn)? Utils.quote(StringEscapeUtils.escapeJson(ssn)): null; // escape double quote chars
+	}
+
+	private static String urlJson(Source source) {
+		if (source instanceof DefaultSource) {
+			return ((DefaultSource) source).getUrlJson();
+		}
+		return Utils.quote(StringEscapeUtils.escapeJson(source.getUrl())); // escape double quote chars
+	}
+
 	private String itemsToJSON(Collection<?> items) {
 		if (items == null)
 			return "";
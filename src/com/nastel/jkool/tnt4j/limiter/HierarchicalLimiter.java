@@ -0,0 +1,413 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.limiter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.nastel.jkool.tnt4j.source.Source;
+
+/**
+ * Rate limiter implementation (thread safe) that shares a global message/second (MPS)
+ * and bytes/second (BPS) budget across a set of {@link LimiterNode}s. Each node is associated
+ * with a source name or FQN prefix and gets a share of the global budget proportional to its weight.
+ * Capacity not used by idle nodes is made available to busy nodes (borrowing), so one chatty
+ * source cannot starve the others while the budget is never left unused.
+ * Sources that do not match any node are limited by the default node {@value #DEFAULT_NODE}.
+ * Prefixes match whole segments only: {@code com.acme} matches {@code com.acme} and {@code com.acme.orders}
+ * but not {@code com.acmex} (segments are separated by '.' in names and '#' in FQNs). Node lookups are
+ * cached per source FQN, up to {@code tnt4j.limiter.source.cache.size} (default 4096) entries.
+ *
+ * @see LimiterNode
+ * @see HierarchicalLimiterFactory
+ * @version $Revision: 1 $
+ */
+public class HierarchicalLimiter implements Limiter {
+	public static final String DEFAULT_NODE = "*";
+	public static final int DEFAULT_MAX_SOURCES = Integer.getInteger("tnt4j.limiter.source.cache.size", 4096);
+
+	double maxMps, maxBps;
+	boolean doLimit = false;
+	long start = System.currentTimeMillis();
+
+	TokenBucket spareMps = null;
+	TokenBucket spareBps = null;
+
+	LimiterNode defaultNode;
+	CopyOnWriteArrayList<LimiterNode> nodes = new CopyOnWriteArrayList<LimiterNode>();
+	ConcurrentMap<String, LimiterNode> sourceMap = new ConcurrentHashMap<String, LimiterNode>();
+
+	/**
+	 * Create a hierarchical limiter with a given global budget and default node weight of 1
+	 *
+	 * @param maxMps maximum global message/second rate (0 means unlimited)
+	 * @param maxBps maximum global bytes/second rate (0 means unlimited)
+	 * @param enabled true to enable limiter, false otherwise
+	 */
+	public HierarchicalLimiter(double maxMps, double maxBps, boolean enabled) {
+		this(maxMps, maxBps, 1.0D, enabled);
+	}
+
+	/**
+	 * Create a hierarchical limiter with a given global budget
+	 *
+	 * @param maxMps maximum global message/second rate (0 means unlimited)
+	 * @param maxBps maximum global bytes/second rate (0 means unlimited)
+	 * @param defWeight weight of the default node
+	 * @param enabled true to enable limiter, false otherwise
+	 */
+	public HierarchicalLimiter(double maxMps, double maxBps, double defWeight, boolean enabled) {
+		defaultNode = new LimiterNode(this, DEFAULT_NODE, defWeight, 0, 0);
+		nodes.add(defaultNode);
+		setLimits(maxMps, maxBps);
+		setEnabled(enabled);
+	}
+
+	/**
+	 * Add a limiter node for a given source name or FQN prefix. Existing node
+	 * with the same name is replaced.
+	 *
+	 * @param prefix source name or FQN prefix
+	 * @param weight weight used to compute share of the global budget (must be &gt; 0)
+	 * @param maxMps maximum message/second rate for this node (0 means no cap)
+	 * @param maxBps maximum bytes/second rate for this node (0 means no cap)
+	 * @return new limiter node
+	 */
+	public LimiterNode addNode(String prefix, double weight, double maxMps, double maxBps) {
+		if (weight <= 0.0D) {
+			throw new IllegalArgumentException("Limiter node weight must be > 0: node=" + prefix + ", weight=" + weight);
+		}
+		LimiterNode node = new LimiterNode(this, prefix, weight, maxMps, maxBps);
+		synchronized (this) {
+			if (DEFAULT_NODE.equals(prefix)) {
+				nodes.remove(defaultNode);
+				defaultNode = node;
+			} else {
+				LimiterNode old = getNode(prefix);
+				if (old != null) nodes.remove(old);
+			}
+			nodes.add(node);
+			sourceMap.clear();
+		}
+		rebalance();
+		return node;
+	}
+
+	/**
+	 * Get limiter node with a given name
+	 *
+	 * @param name source name or FQN prefix
+	 * @return limiter node, null if not found
+	 */
+	public LimiterNode getNode(String name) {
+		for (LimiterNode node : nodes) {
+			if (node.getName().equals(name)) return node;
+		}
+		return null;
+	}
+
+	/**
+	 * Get default node used for sources that do not match any other node
+	 *
+	 * @return default limiter node
+	 */
+	public LimiterNode getDefaultNode() {
+		return defaultNode;
+	}
+
+	/**
+	 * Get all limiter nodes including the default node
+	 *
+	 * @return list of limiter nodes
+	 */
+	public List<LimiterNode> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Obtain a limiter node for a given source. Source name is matched first
+	 * followed by source FQN. Longest matching prefix wins.
+	 *
+	 * @param src event source
+	 * @return limiter node associated with the given source
+	 */
+	public LimiterNode getLimiter(Source src) {
+		if (src == null) return defaultNode;
+		String key = src.getFQName();
+		LimiterNode node = key != null? sourceMap.get(key): null;
+		if (node == null) {
+			node = findNode(src.getName());
+			if (node == null) {
+				node = findNode(key);
+			}
+			node = node != null? node: defaultNode;
+			if (key != null) {
+				if (sourceMap.size() >= DEFAULT_MAX_SOURCES) {
+					sourceMap.clear(); // lookups are recomputed on demand
+				}
+				sourceMap.putIfAbsent(key, node);
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Find limiter node with the longest prefix matching a given name
+	 * on a segment boundary
+	 *
+	 * @param name source name or FQN
+	 * @return limiter node, null if none match
+	 */
+	protected LimiterNode findNode(String name) {
+		if (name == null) return null;
+		LimiterNode match = null;
+		for (LimiterNode node : nodes) {
+			if (node == defaultNode) continue;
+			if (isPrefix(node.getName(), name)
+				&& (match == null || node.getName().length() > match.getName().length())) {
+				match = node;
+			}
+		}
+		return match;
+	}
+
+	private static boolean isPrefix(String prefix, String name) {
+		if (prefix.isEmpty() || !name.startsWith(prefix)) return false;
+		if (name.length() == prefix.length()) return true;
+		return isSeparator(prefix.charAt(prefix.length() - 1)) || isSeparator(name.charAt(prefix.length()));
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '.' || c == '#';
+	}
+
+	/**
+	 * Recompute weighted shares of the global budget for all nodes.
+	 * Should be called when nodes, weights or limits change.
+	 */
+	public synchronized void rebalance() {
+		double totalWeight = 0;
+		for (LimiterNode node : nodes) {
+			totalWeight += node.getWeight();
+		}
+		double usedMps = 0, usedBps = 0;
+		for (LimiterNode node : nodes) {
+			double mps = share(maxMps, node.capMps, node.getWeight(), totalWeight);
+			double bps = share(maxBps, node.capBps, node.getWeight(), totalWeight);
+			node.setRates(mps, bps);
+			usedMps += mps;
+			usedBps += bps;
+		}
+		spareMps = updateSpare(spareMps, maxMps, usedMps);
+		spareBps = updateSpare(spareBps, maxBps, usedBps);
+	}
+
+	private static double share(double global, double cap, double weight, double totalWeight) {
+		boolean capped = !TokenBucket.isUnlimited(cap);
+		if (TokenBucket.isUnlimited(global)) {
+			return capped? cap: 0.0D;
+		}
+		double share = global * weight / totalWeight;
+		return capped? Math.min(share, cap): share;
+	}
+
+	private static TokenBucket updateSpare(TokenBucket spare, double global, double used) {
+		if (TokenBucket.isUnlimited(global)) {
+			return null;
+		}
+		double rate = Math.max(global - used, 0);
+		if (spare == null) {
+			return new TokenBucket(rate, Math.max(global, 1.0D), 0);
+		}
+		spare.setRate(rate, Math.max(global, 1.0D));
+		return spare;
+	}
+
+	/**
+	 * Accept tokens not used by idle nodes into the shared spare capacity
+	 *
+	 * @param mps unused message tokens
+	 * @param bps unused byte tokens
+	 */
+	void spill(double mps, double bps) {
+		TokenBucket smps = spareMps, sbps = spareBps;
+		if (smps != null) smps.put(mps);
+		if (sbps != null) sbps.put(bps);
+	}
+
+	/**
+	 * Borrow permits from idle capacity of all nodes
+	 *
+	 * @param msgs message count
+	 * @param bytes byte count
+	 * @return true if permit obtained, false otherwise
+	 */
+	boolean borrow(int msgs, int bytes) {
+		long now = System.nanoTime();
+		for (LimiterNode node : nodes) {
+			node.refill(now);
+		}
+		TokenBucket smps = spareMps, sbps = spareBps;
+		if (smps != null) {
+			smps.refill(now);
+			if (!smps.tryTake(msgs)) return false;
+		}
+		if (sbps != null) {
+			sbps.refill(now);
+			if (!sbps.tryTake(bytes)) {
+				if (smps != null) smps.put(msgs);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public double getMaxMPS() {
+		return TokenBucket.isUnlimited(maxMps)? 0.0D: maxMps;
+	}
+
+	@Override
+	public double getMaxBPS() {
+		return TokenBucket.isUnlimited(maxBps)? 0.0D: maxBps;
+	}
+
+	@Override
+	public Limiter setLimits(double maxMps, double maxBps) {
+		synchronized (this) {
+			this.maxMps = maxMps;
+			this.maxBps = maxBps;
+		}
+		rebalance();
+		return this;
+	}
+
+	@Override
+	public double getMPS() {
+		return getTotalMsgs() * 1000.0 / getAge();
+	}
+
+	@Override
+	public double getBPS() {
+		return getTotalBytes() * 1000.0 / getAge();
+	}
+
+	@Override
+	public Limiter setEnabled(boolean flag) {
+		doLimit = flag;
+		if (doLimit) {
+			start = System.currentTimeMillis();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return doLimit;
+	}
+
+	@Override
+	public double obtain(int msgCount, int byteCount) {
+		return defaultNode.obtain(msgCount, byteCount);
+	}
+
+	@Override
+	public boolean tryObtain(int msgCount, int byteCount) {
+		return defaultNode.tryObtain(msgCount, byteCount);
+	}
+
+	@Override
+	public boolean tryObtain(int msgCount, int byteCount, long timeout, TimeUnit unit) {
+		return defaultNode.tryObtain(msgCount, byteCount, timeout, unit);
+	}
+
+	@Override
+	public Limiter reset() {
+		for (LimiterNode node : nodes) {
+			node.reset();
+		}
+		start = System.currentTimeMillis();
+		return this;
+	}
+
+	@Override
+	public long getStartTime() {
+		return start;
+	}
+
+	@Override
+	public long getAge() {
+		return Math.max(System.currentTimeMillis() - start, 1);
+	}
+
+	@Override
+	public long getTotalBytes() {
+		long total = 0;
+		for (LimiterNode node : nodes) {
+			total += node.getTotalBytes();
+		}
+		return total;
+	}
+
+	@Override
+	public long getTotalMsgs() {
+		long total = 0;
+		for (LimiterNode node : nodes) {
+			total += node.getTotalMsgs();
+		}
+		return total;
+	}
+
+	@Override
+	public double getLastDelayTime() {
+		double last = 0;
+		for (LimiterNode node : nodes) {
+			last = Math.max(last, node.getLastDelayTime());
+		}
+		return last;
+	}
+
+	@Override
+	public double getTotalDelayTime() {
+		double total = 0;
+		for (LimiterNode node : nodes) {
+			total += node.getTotalDelayTime();
+		}
+		return total;
+	}
+
+	@Override
+	public long getDelayCount() {
+		long total = 0;
+		for (LimiterNode node : nodes) {
+			total += node.getDelayCount();
+		}
+		return total;
+	}
+
+	@Override
+	public long getDenyCount() {
+		long total = 0;
+		for (LimiterNode node : nodes) {
+			total += node.getDenyCount();
+		}
+		return total;
+	}
+}
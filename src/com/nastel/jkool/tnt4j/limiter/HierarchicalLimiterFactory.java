@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.limiter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.nastel.jkool.tnt4j.config.ConfigException;
+import com.nastel.jkool.tnt4j.config.Configurable;
+
+/**
+ * Limiter factory that creates {@link HierarchicalLimiter} instances, where the global
+ * budget is shared across sources by weight. Node limits are set per source name or FQN prefix
+ * and can be specified programmatically or via configuration:
+ *
+ *<pre>
+ *<code>
+ *	event.sink.factory.RateLimiterFactory: com.nastel.jkool.tnt4j.limiter.HierarchicalLimiterFactory
+ *	event.sink.factory.RateLimiterFactory.DefaultWeight: 1
+ *	event.sink.factory.RateLimiterFactory.Weight.com.acme.orders: 4
+ *	event.sink.factory.RateLimiterFactory.Weight.com.acme.audit: 2
+ *	event.sink.factory.RateLimiterFactory.MaxMPS.com.acme.audit: 50
+ *</code>
+ *</pre>
+ *
+ * @see HierarchicalLimiter
+ * @see LimiterNode
+ * @version $Revision: 1 $
+ */
+public class HierarchicalLimiterFactory implements LimiterFactory, Configurable {
+	public static final String KEY_DEFAULT_WEIGHT = "DefaultWeight";
+	public static final String PREFIX_WEIGHT = "Weight.";
+	public static final String PREFIX_MAX_MPS = "MaxMPS.";
+	public static final String PREFIX_MAX_BPS = "MaxBPS.";
+
+	private double defWeight = 1.0D;
+	private Map<String, double[]> nodeSpecs = new LinkedHashMap<String, double[]>();
+	private Map<String, Object> config = null;
+
+	/**
+	 * Set limits for a given source name or FQN prefix
+	 *
+	 * @param prefix source name or FQN prefix
+	 * @param weight weight used to compute share of the global budget (must be &gt; 0)
+	 * @param maxMps maximum message/second rate for this node (0 means no cap)
+	 * @param maxBps maximum bytes/second rate for this node (0 means no cap)
+	 * @return same factory instance
+	 */
+	public synchronized HierarchicalLimiterFactory setNodeLimits(String prefix, double weight, double maxMps, double maxBps) {
+		nodeSpecs.put(prefix, new double[] { weight, maxMps, maxBps });
+		return this;
+	}
+
+	/**
+	 * Set weight of the default node used for sources that
+	 * do not match any configured prefix
+	 *
+	 * @param weight weight of the default node
+	 * @return same factory instance
+	 */
+	public HierarchicalLimiterFactory setDefaultWeight(double weight) {
+		defWeight = weight;
+		return this;
+	}
+
+	@Override
+	public Limiter newLimiter(double maxMps, double maxBps) {
+		return newLimiter(maxMps, maxBps, true);
+	}
+
+	@Override
+	public synchronized Limiter newLimiter(double maxMps, double maxBps, boolean enabled) {
+		HierarchicalLimiter limiter = new HierarchicalLimiter(maxMps, maxBps, defWeight, enabled);
+		for (Entry<String, double[]> entry : nodeSpecs.entrySet()) {
+			double[] spec = entry.getValue();
+			limiter.addNode(entry.getKey(), spec[0], spec[1], spec[2]);
+		}
+		return limiter;
+	}
+
+	@Override
+	public Map<String, Object> getConfiguration() {
+		return config;
+	}
+
+	@Override
+	public void setConfiguration(Map<String, Object> settings) throws ConfigException {
+		config = settings;
+		try {
+			Object weight = config.get(KEY_DEFAULT_WEIGHT);
+			if (weight != null) {
+				setDefaultWeight(Double.parseDouble(weight.toString()));
+			}
+			for (Entry<String, Object> entry : config.entrySet()) {
+				String key = entry.getKey();
+				if (key.startsWith(PREFIX_WEIGHT)) {
+					getNodeSpec(key.substring(PREFIX_WEIGHT.length()))[0] = Double.parseDouble(entry.getValue().toString());
+				} else if (key.startsWith(PREFIX_MAX_MPS)) {
+					getNodeSpec(key.substring(PREFIX_MAX_MPS.length()))[1] = Double.parseDouble(entry.getValue().toString());
+				} else if (key.startsWith(PREFIX_MAX_BPS)) {
+					getNodeSpec(key.substring(PREFIX_MAX_BPS.length()))[2] = Double.parseDouble(entry.getValue().toString());
+				}
+			}
+		} catch (NumberFormatException e) {
+			ConfigException ce = new ConfigException(e.getMessage(), config);
+			ce.initCause(e);
+			throw ce;
+		}
+	}
+
+	private synchronized double[] getNodeSpec(String prefix) {
+		double[] spec = nodeSpecs.get(prefix);
+		if (spec == null) {
+			spec = new double[] { 1.0D, 0.0D, 0.0D };
+			nodeSpecs.put(prefix, spec);
+		}
+		return spec;
+	}
+}
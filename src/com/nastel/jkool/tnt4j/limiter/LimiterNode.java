@@ -0,0 +1,366 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.util.concurrent.AtomicDouble;
+
+/**
+ * Rate limiter node within a {@link HierarchicalLimiter}. Each node is associated with
+ * a source name or FQN prefix and gets a weighted share of the global budget.
+ * Nodes without an explicit cap may borrow idle capacity from the parent limiter
+ * when their own share is used up. Each node maintains its own denied and delay counts.
+ *
+ * @see HierarchicalLimiter
+ * @version $Revision: 1 $
+ */
+public class LimiterNode implements Limiter {
+	static final long MIN_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	final String name;
+	final HierarchicalLimiter parent;
+
+	double weight;
+	double capMps, capBps;
+	boolean doLimit = true;
+	long start = System.currentTimeMillis();
+
+	TokenBucket mpsBucket = null;
+	TokenBucket bpsBucket = null;
+
+	AtomicLong byteCount = new AtomicLong(0);
+	AtomicLong msgCount = new AtomicLong(0);
+	AtomicLong delayCount = new AtomicLong(0);
+	AtomicLong denyCount = new AtomicLong(0);
+	AtomicLong borrowCount = new AtomicLong(0);
+
+	AtomicDouble sleepCount = new AtomicDouble(0);
+	AtomicDouble lastSleep = new AtomicDouble(0);
+
+	/**
+	 * Create a limiter node
+	 *
+	 * @param parent hierarchical limiter this node belongs to
+	 * @param name source name or FQN prefix associated with this node
+	 * @param weight weight used to compute share of the global budget
+	 * @param maxMps maximum message/second rate for this node (0 means no cap)
+	 * @param maxBps maximum bytes/second rate for this node (0 means no cap)
+	 */
+	protected LimiterNode(HierarchicalLimiter parent, String name, double weight, double maxMps, double maxBps) {
+		this.parent = parent;
+		this.name = name;
+		this.weight = weight;
+		this.capMps = maxMps;
+		this.capBps = maxBps;
+	}
+
+	/**
+	 * Get source name or FQN prefix associated with this node
+	 *
+	 * @return name associated with this node
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get weight used to compute share of the global budget
+	 *
+	 * @return node weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Get parent limiter
+	 *
+	 * @return parent limiter
+	 */
+	public HierarchicalLimiter getParent() {
+		return parent;
+	}
+
+	/**
+	 * Determine if this node may borrow idle capacity from its parent.
+	 * Nodes with explicit caps never borrow.
+	 *
+	 * @return true if node may borrow, false otherwise
+	 */
+	public boolean isBorrowing() {
+		return capMps <= 0.0D && capBps <= 0.0D;
+	}
+
+	/**
+	 * Get total number of permits granted using borrowed idle capacity
+	 *
+	 * @return total number of borrowed permits
+	 */
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	/**
+	 * Set node rates computed by the parent limiter
+	 *
+	 * @param mps message/second rate (0 means unlimited)
+	 * @param bps bytes/second rate (0 means unlimited)
+	 */
+	synchronized void setRates(double mps, double bps) {
+		mpsBucket = updateBucket(mpsBucket, mps);
+		bpsBucket = updateBucket(bpsBucket, bps);
+	}
+
+	private static TokenBucket updateBucket(TokenBucket bucket, double rate) {
+		if (TokenBucket.isUnlimited(rate)) {
+			return null;
+		}
+		if (bucket == null) {
+			return new TokenBucket(rate, Math.max(rate, 1.0D));
+		}
+		bucket.setRate(rate, Math.max(rate, 1.0D));
+		return bucket;
+	}
+
+	@Override
+	public double getMaxMPS() {
+		TokenBucket bucket = mpsBucket;
+		return (bucket == null ? 0.0D : bucket.getRate());
+	}
+
+	@Override
+	public double getMaxBPS() {
+		TokenBucket bucket = bpsBucket;
+		return (bucket == null ? 0.0D : bucket.getRate());
+	}
+
+	@Override
+	public Limiter setLimits(double maxMps, double maxBps) {
+		synchronized (this) {
+			capMps = maxMps;
+			capBps = maxBps;
+		}
+		parent.rebalance();
+		return this;
+	}
+
+	@Override
+	public double getMPS() {
+		return msgCount.get() * 1000.0 / getAge();
+	}
+
+	@Override
+	public double getBPS() {
+		return byteCount.get() * 1000.0 / getAge();
+	}
+
+	@Override
+	public Limiter setEnabled(boolean flag) {
+		doLimit = flag;
+		if (doLimit) {
+			start = System.currentTimeMillis();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return doLimit && parent.isEnabled();
+	}
+
+	@Override
+	public boolean tryObtain(int msgCount, int byteCount) {
+		return tryObtain(msgCount, byteCount, 0, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public boolean tryObtain(int msgs, int bytes, long timeout, TimeUnit unit) {
+		count(msgs, bytes);
+		if (!isEnabled() || (msgs == 0 && bytes == 0)) {
+			return true;
+		}
+
+		long begin = System.nanoTime();
+		long deadline = begin + unit.toNanos(timeout);
+		boolean permit = take(msgs, bytes);
+		while (!permit) {
+			long left = deadline - System.nanoTime();
+			if (left <= 0) break;
+			LockSupport.parkNanos(Math.min(left, waitNanos(msgs, bytes)));
+			permit = take(msgs, bytes);
+		}
+		if (!permit) {
+			denyCount.incrementAndGet();
+		} else {
+			long waited = System.nanoTime() - begin;
+			if (waited > MIN_WAIT_NANOS) countDelay(waited);
+		}
+		return permit;
+	}
+
+	@Override
+	public double obtain(int msgs, int bytes) {
+		count(msgs, bytes);
+		if (!isEnabled() || (msgs == 0 && bytes == 0)) {
+			return 0;
+		}
+
+		long begin = System.nanoTime();
+		while (!take(msgs, bytes)) {
+			LockSupport.parkNanos(waitNanos(msgs, bytes));
+		}
+		long waited = System.nanoTime() - begin;
+		return waited > MIN_WAIT_NANOS? countDelay(waited): 0;
+	}
+
+	private double countDelay(long nanos) {
+		double sleepTime = nanos / 1000000000.0D;
+		lastSleep.set(sleepTime);
+		sleepCount.addAndGet(sleepTime);
+		delayCount.incrementAndGet();
+		return sleepTime;
+	}
+
+	/**
+	 * Take permits from own share first and then borrow from parent
+	 * idle capacity if allowed.
+	 *
+	 * @param msgs message count
+	 * @param bytes byte count
+	 * @return true if permit obtained, false otherwise
+	 */
+	protected boolean take(int msgs, int bytes) {
+		if (takeOwn(msgs, bytes)) {
+			return true;
+		}
+		if (isBorrowing() && parent.borrow(msgs, bytes)) {
+			borrowCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean takeOwn(int msgs, int bytes) {
+		refill(System.nanoTime());
+		TokenBucket mps = mpsBucket, bps = bpsBucket;
+		if (mps != null && !mps.tryTake(msgs)) {
+			return false;
+		}
+		if (bps != null && !bps.tryTake(bytes)) {
+			if (mps != null) mps.put(msgs);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Refill node buckets and pass tokens that did not fit
+	 * on to the parent as idle capacity.
+	 *
+	 * @param now current time in nanoseconds
+	 */
+	void refill(long now) {
+		TokenBucket mps = mpsBucket, bps = bpsBucket;
+		double mpsOver = mps != null? mps.refill(now): 0;
+		double bpsOver = bps != null? bps.refill(now): 0;
+		if (isBorrowing()) {
+			parent.spill(mpsOver, bpsOver);
+		}
+	}
+
+	private long waitNanos(int msgs, int bytes) {
+		TokenBucket mps = mpsBucket, bps = bpsBucket;
+		long wait = Math.max(mps != null? mps.nanosUntil(msgs): 0, bps != null? bps.nanosUntil(bytes): 0);
+		return Math.max(MIN_WAIT_NANOS, Math.min(wait, MAX_WAIT_NANOS));
+	}
+
+	protected void count(int msgs, int bytes) {
+		if (bytes > 0) {
+			byteCount.addAndGet(bytes);
+		}
+		if (msgs > 0) {
+			msgCount.addAndGet(msgs);
+		}
+	}
+
+	@Override
+	public Limiter reset() {
+		byteCount.set(0);
+		msgCount.set(0);
+		sleepCount.set(0);
+		delayCount.set(0);
+		denyCount.set(0);
+		borrowCount.set(0);
+		start = System.currentTimeMillis();
+		return this;
+	}
+
+	@Override
+	public long getStartTime() {
+		return start;
+	}
+
+	@Override
+	public long getAge() {
+		return Math.max(System.currentTimeMillis() - start, 1);
+	}
+
+	@Override
+	public long getTotalBytes() {
+		return byteCount.get();
+	}
+
+	@Override
+	public long getTotalMsgs() {
+		return msgCount.get();
+	}
+
+	@Override
+	public double getLastDelayTime() {
+		return lastSleep.get();
+	}
+
+	@Override
+	public double getTotalDelayTime() {
+		return sleepCount.get();
+	}
+
+	@Override
+	public long getDelayCount() {
+		return delayCount.get();
+	}
+
+	@Override
+	public long getDenyCount() {
+		return denyCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName()
+			+ "{name=" + name
+			+ ", weight=" + weight
+			+ ", max.mps=" + getMaxMPS()
+			+ ", max.bps=" + getMaxBPS()
+			+ ", denied=" + getDenyCount()
+			+ ", delays=" + getDelayCount()
+			+ "}";
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.limiter;
+
+/**
+ * Simple thread safe token bucket used by {@link HierarchicalLimiter} and {@link LimiterNode}.
+ * Bucket refills at a given rate (tokens/second) up to its capacity (one second worth of tokens).
+ * Tokens that do not fit into the bucket during refill are returned to the caller
+ * as overflow, so that idle capacity can be passed on to other buckets.
+ *
+ * @version $Revision: 1 $
+ */
+class TokenBucket {
+	private double rate;
+	private double capacity;
+	private double tokens;
+	private long lastNanos = System.nanoTime();
+
+	/**
+	 * Create a token bucket with a given refill rate
+	 *
+	 * @param rate refill rate in tokens/second, 0 means no refill
+	 * @param capacity maximum number of tokens held by the bucket
+	 */
+	TokenBucket(double rate, double capacity) {
+		this(rate, capacity, capacity);
+	}
+
+	/**
+	 * Create a token bucket with a given refill rate and initial token count
+	 *
+	 * @param rate refill rate in tokens/second, 0 means no refill
+	 * @param capacity maximum number of tokens held by the bucket
+	 * @param initial initial number of tokens
+	 */
+	TokenBucket(double rate, double capacity, double initial) {
+		this.rate = rate;
+		this.capacity = capacity;
+		this.tokens = Math.min(initial, capacity);
+	}
+
+	/**
+	 * Determine if a given rate should be treated as unlimited
+	 *
+	 * @param rate rate in units/second
+	 * @return true if rate is unlimited, false otherwise
+	 */
+	static boolean isUnlimited(double rate) {
+		return rate <= 0.0D || rate >= Limiter.MAX_RATE;
+	}
+
+	/**
+	 * Set new refill rate and capacity
+	 *
+	 * @param rate refill rate in tokens/second, 0 means no refill
+	 * @param capacity maximum number of tokens held by the bucket
+	 */
+	synchronized void setRate(double rate, double capacity) {
+		refill(System.nanoTime());
+		this.rate = rate;
+		this.capacity = capacity;
+		this.tokens = Math.min(tokens, capacity);
+	}
+
+	/**
+	 * Get refill rate in tokens/second
+	 *
+	 * @return refill rate in tokens/second
+	 */
+	synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Refill the bucket based on time elapsed since last refill
+	 *
+	 * @param now current time in nanoseconds
+	 * @return number of tokens that did not fit into the bucket
+	 */
+	synchronized double refill(long now) {
+		long elapsed = now - lastNanos;
+		if (elapsed <= 0) return 0;
+		lastNanos = now;
+		tokens += rate * elapsed / 1000000000.0D;
+		double overflow = tokens - capacity;
+		if (overflow > 0) {
+			tokens = capacity;
+			return overflow;
+		}
+		return 0;
+	}
+
+	/**
+	 * Add a given number of tokens to the bucket, excess
+	 * beyond capacity is discarded.
+	 *
+	 * @param count number of tokens to add
+	 */
+	synchronized void put(double count) {
+		if (count > 0) {
+			tokens = Math.min(tokens + count, capacity);
+		}
+	}
+
+	/**
+	 * Take a given number of tokens if available. Requests larger than
+	 * capacity are granted once the bucket is full, putting the bucket in debt.
+	 *
+	 * @param count number of tokens requested
+	 * @return true if tokens obtained, false otherwise
+	 */
+	synchronized boolean tryTake(double count) {
+		if (count <= 0) return true;
+		if (tokens >= Math.min(count, capacity)) {
+			tokens -= count;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Estimate time in nanoseconds until a given number of tokens
+	 * becomes available at current refill rate
+	 *
+	 * @param count number of tokens requested
+	 * @return estimated wait time in nanoseconds, {@code Long.MAX_VALUE} if bucket never refills
+	 */
+	synchronized long nanosUntil(double count) {
+		double deficit = Math.min(count, capacity) - tokens;
+		if (deficit <= 0) return 0;
+		if (rate <= 0) return Long.MAX_VALUE;
+		return (long) (deficit * 1000000000.0D / rate);
+	}
+}
@@ -234,5 +234,6 @@ public class SLF4JEventSink extends AbstractEventSink {
 
 	@Override
 	public void close() throws IOException {
+		_flushSummary();
 	}	
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.repository;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.nastel.jkool.tnt4j.config.ConfigException;
+import com.nastel.jkool.tnt4j.config.Configurable;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+import com.nastel.jkool.tnt4j.utils.FileWatcher;
+import com.nastel.jkool.tnt4j.utils.Utils;
+
+/**
+ * <p>This class implements a file based token repository based on a property file following
+ * the key=value pairs defined per line. Unlike {@link FileTokenRepository}, changes are pushed:
+ * the file is watched by a background thread using {@link FileWatcher}, parsed off the
+ * caller's path and compared with the current tokens. A changed file is published as a single
+ * {@code EVENT_RELOAD} {@link TokenRepositoryEvent} whose value is the new immutable token map,
+ * so listeners can swap all tokens at once. Token lookups never touch the file system.</p>
+ *
+ * <p>Configure as follows:</p>
+ *<pre>
+ *<code>
+ *	tracking.selector.Repository: com.nastel.jkool.tnt4j.repository.WatchedFileTokenRepository
+ *	tracking.selector.Repository.Url: ./config/tnt4j-tokens.properties
+ *</code>
+ *</pre>
+ *
+ * @see TokenRepository
+ * @see TokenRepositoryEvent
+ *
+ * @version $Revision: 1 $
+ *
+ */
+public class WatchedFileTokenRepository implements TokenRepository, Configurable {
+	private static EventSink logger = DefaultEventSinkFactory.defaultEventSink(WatchedFileTokenRepository.class);
+
+	private String configName = null;
+	private File configFile = null;
+	private long settleTime = 100;
+	protected Map<String, Object> settings = null;
+
+	private volatile Map<String, Object> tokens = null;
+	private final Object writeLock = new Object();
+	private final CopyOnWriteArrayList<TokenRepositoryListener> listeners = new CopyOnWriteArrayList<TokenRepositoryListener>();
+
+	private FileWatcher watcher = null;
+
+	/**
+	 * Create watched file token repository instance based on default
+	 * file name specified by <code>tnt4j.token.repository</code> java
+	 * property.
+	 *
+	 */
+	public WatchedFileTokenRepository() {
+		this(System.getProperty("tnt4j.token.repository"));
+	}
+
+	/**
+	 * Create watched file token repository instance given a specific filename.
+	 *
+	 * @param fileName name of the property file containing tokens
+	 */
+	public WatchedFileTokenRepository(String fileName) {
+		configName = fileName;
+	}
+
+	@Override
+	public void addRepositoryListener(TokenRepositoryListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	@Override
+	public void removeRepositoryListener(TokenRepositoryListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public Object get(String key) {
+		Map<String, Object> map = tokens;
+		return map != null? map.get(key): null;
+	}
+
+	@Override
+	public Iterator<? extends Object> getKeys() {
+		Map<String, Object> map = tokens;
+		return map != null? map.keySet().iterator(): null;
+	}
+
+	@Override
+	public void remove(String key) {
+		synchronized (writeLock) {
+			if (tokens == null || !tokens.containsKey(key)) return;
+			Map<String, Object> copy = new LinkedHashMap<String, Object>(tokens);
+			Object value = copy.remove(key);
+			tokens = Collections.unmodifiableMap(copy);
+			notifyListeners(TokenRepository.EVENT_CLEAR_KEY, key, value);
+		}
+	}
+
+	@Override
+	public void set(String key, Object value) {
+		synchronized (writeLock) {
+			if (tokens == null) return;
+			Map<String, Object> copy = new LinkedHashMap<String, Object>(tokens);
+			Object prev = copy.put(key, value);
+			tokens = Collections.unmodifiableMap(copy);
+			notifyListeners(prev == null? TokenRepository.EVENT_ADD_KEY: TokenRepository.EVENT_SET_KEY, key, value);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return configName;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "{url: " + getName() + ", settle.ms: " + settleTime + ", tokens: " + tokens + "}";
+	}
+
+	@Override
+	public boolean isOpen() {
+		return tokens != null;
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		if (isOpen() || (configName == null)) return;
+		configFile = new File(configName).getAbsoluteFile();
+		tokens = loadTokens(configFile);
+
+		watcher = new FileWatcher(configFile, settleTime, new Runnable() {
+			@Override
+			public void run() {
+				reload();
+			}
+		}).start("WatchedFileTokenRepository(" + configFile.getName() + ")/watcher");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!isOpen()) return;
+		try {
+			Utils.close(watcher);
+		} finally {
+			watcher = null;
+			tokens = null;
+		}
+	}
+
+	/**
+	 * Load tokens from a given property file
+	 *
+	 * @param file property file
+	 * @return immutable map of tokens, empty if file does not exist
+	 * @throws IOException if error reading file
+	 */
+	protected Map<String, Object> loadTokens(File file) throws IOException {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		if (!file.exists()) {
+			return Collections.unmodifiableMap(map);
+		}
+		Properties props = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			props.load(in);
+		} finally {
+			in.close();
+		}
+		for (Entry<Object, Object> entry : props.entrySet()) {
+			map.put(entry.getKey().toString(), entry.getValue().toString().trim());
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Reload tokens from file, publish new token map and notify
+	 * listeners with a single {@code EVENT_RELOAD} carrying the new map.
+	 * Listeners are not notified if tokens did not change.
+	 */
+	protected void reload() {
+		try {
+			Map<String, Object> newTokens = loadTokens(configFile);
+			synchronized (writeLock) {
+				Map<String, Object> oldTokens = tokens;
+				if (oldTokens == null || oldTokens.equals(newTokens)) return;
+				tokens = newTokens;
+				notifyListeners(TokenRepository.EVENT_RELOAD, null, newTokens);
+			}
+			logger.log(OpLevel.DEBUG, "Reloaded token repository={0}, tokens={1}", configName, newTokens.size());
+		} catch (Throwable e) {
+			logger.log(OpLevel.ERROR, "Failed to reload token repository={0}", configName, e);
+			TokenRepositoryEvent event = new TokenRepositoryEvent(this, TokenRepository.EVENT_EXCEPTION, null, null, e);
+			for (TokenRepositoryListener listener : listeners) {
+				listener.repositoryError(event);
+			}
+		}
+	}
+
+	private void notifyListeners(int type, String key, Object value) {
+		if (listeners.size() == 0) return;
+		TokenRepositoryEvent event = new TokenRepositoryEvent(this, type, key, value, null);
+		for (TokenRepositoryListener listener : listeners) {
+			listener.repositoryChanged(event);
+		}
+	}
+
+	@Override
+	public Map<String, Object> getConfiguration() {
+		return settings;
+	}
+
+	@Override
+	public void setConfiguration(Map<String, Object> props) throws ConfigException {
+		settings = props;
+		Object fileUrl = props.get("Url");
+		configName = fileUrl != null? fileUrl.toString(): configName;
+
+		Object settle = props.get("SettleTime");
+		settleTime = settle != null? Long.parseLong(settle.toString()): settleTime;
+	}
+
+	@Override
+	public boolean isDefined() {
+		return configName != null;
+	}
+}
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import com.nastel.jkool.tnt4j.config.Configurable;
 import com.nastel.jkool.tnt4j.config.ConfigException;
@@ -40,6 +39,14 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  * <code>key=SEV:value-regexp</code> Example (trace all severities, all orders):
  * <code>OrderApp.purchasing.order.id=DEBUG:.*</code>
  * 
+ * Tokens are kept in an immutable map, which is replaced as a whole on every
+ * change, so <code>isSet()</code> calls never lock or race with repository updates.
+ * 
+ * Keys are matched exactly by default. Set <code>tnt4j.selector.hierarchy=true</code> or selector
+ * property <code>Hierarchy: true</code> to make keys hierarchical: a key without its own token
+ * then inherits the token with the longest matching dot separated prefix, e.g.
+ * <code>com.acme=DEBUG</code> applies to <code>com.acme.orders.OrderService</code>.
+ * 
  * @see OpLevel
  * 
  * @version $Revision: 7 $
@@ -48,7 +55,10 @@ import com.nastel.jkool.tnt4j.utils.Utils;
 public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 	private static EventSink logger = DefaultEventSinkFactory.defaultEventSink(DefaultTrackingSelector.class);
 	private static final boolean DEFAULT_RETURN_UNDEFINED = Boolean.valueOf(System.getProperty("tnt4j.selector.undefined.isset", "true"));
-	private HashMap<Object, TntToken> tokenMap = new HashMap<Object, TntToken>(89);
+	private static final boolean DEFAULT_HIERARCHY = Boolean.getBoolean("tnt4j.selector.hierarchy");
+	private volatile TokenMap tokenMap = TokenMap.EMPTY;
+	private final Object writeLock = new Object();
+	private boolean hierarchy = DEFAULT_HIERARCHY;
 	private Map<String, Object> config = null;
 	private TokenRepository tokenRepository = null;
 	private PropertyListener listener = null;
@@ -102,17 +112,56 @@ public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 	}
 
 	protected void reloadConfig() {
-		clear();
 		Iterator<? extends Object> keys = tokenRepository.getKeys();
-		if (keys == null) return;
-		
+		if (keys == null) {
+			clear();
+			return;
+		}
+
+		// build new token map off the read path and publish it at once
+		HashMap<Object, TntToken> tokens = new HashMap<Object, TntToken>(89);
 		while (keys.hasNext()) {
 			String key = String.valueOf(keys.next());
-			putKey(key, tokenRepository.get(key).toString());
+			TntToken tntToken = newToken(key, tokenRepository.get(key));
+			if (tntToken != null) {
+				tokens.put(key, tntToken);
+			}
+		}
+		synchronized (writeLock) {
+			tokenMap = new TokenMap(tokens, hierarchy);
+		}
+	}
+
+	/**
+	 * Replace all tokens with a given key/value snapshot (e.g. carried by
+	 * {@code EVENT_RELOAD}) in one step, without reading back the repository.
+	 *
+	 * @param snapshot map of keys and token values
+	 */
+	protected void reloadConfig(Map<?, ?> snapshot) {
+		HashMap<Object, TntToken> tokens = new HashMap<Object, TntToken>(Math.max(89, snapshot.size() * 2));
+		for (Map.Entry<?, ?> entry : snapshot.entrySet()) {
+			String key = String.valueOf(entry.getKey());
+			TntToken tntToken = newToken(key, entry.getValue());
+			if (tntToken != null) {
+				tokens.put(key, tntToken);
+			}
+		}
+		synchronized (writeLock) {
+			tokenMap = new TokenMap(tokens, hierarchy);
 		}
 	}
 
 	protected void putKey(Object key, Object val) {
+		TntToken tntToken = newToken(key, val);
+		if (tntToken != null) {
+			synchronized (writeLock) {
+				tokenMap = tokenMap.put(key, tntToken, hierarchy);
+			}
+		}
+	}
+
+	private TntToken newToken(Object key, Object val) {
 		String value = String.valueOf(val);
 		int index = value.indexOf(":");
 		try {
@@ -134,12 +183,13 @@ public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 			if (tntToken != null) {
 				logger.log(OpLevel.DEBUG, 
 							"putkey: repository={0}, token={1}", tokenRepository, tntToken);
-				tokenMap.put(key, tntToken);
 			}
+			return tntToken;
 		} catch (Throwable ex) {
 			logger.log(OpLevel.ERROR, 
 					"Failed to process key={0}, value={1}, repository={2}", key, value, tokenRepository, ex);
 		}
+		return null;
 	}
 
 	@Override
@@ -158,7 +208,9 @@ public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 
 	@Override
 	public void remove(Object key) {
-		tokenMap.remove(key);
+		synchronized (writeLock) {
+			tokenMap = tokenMap.remove(key);
+		}
 	}
 
 	@Override
@@ -188,7 +240,9 @@ public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 	}
 
 	protected void clear() {
-		tokenMap.clear();
+		synchronized (writeLock) {
+			tokenMap = TokenMap.EMPTY;
+		}
 	}
 
 	@Override
@@ -205,6 +259,8 @@ public class DefaultTrackingSelector implements TrackingSelector, Configurable {
 	@Override
 	public void setConfiguration(Map<String, Object> props) throws ConfigException {
 		config = props;
+		Object hflag = config.get("Hierarchy");
+		hierarchy = hflag != null? Boolean.parseBoolean(hflag.toString()): hierarchy;
 		Object obj = Utils.createConfigurableObject("Repository", "Repository.", config);
 		setRepository((TokenRepository) obj);
 	}
@@ -237,7 +293,8 @@ class PropertyListener implements TokenRepositoryListener {
 	@Override
 	public void repositoryChanged(TokenRepositoryEvent event) {
 		logger.log(OpLevel.DEBUG, "repositoryChanged source={0}, type={1}, {2}={3}",
-					event.getSource(), event.getType(), event.getKey(), event.getValue());
+					event.getSource(), event.getType(), event.getKey(),
+					event.getType() == TokenRepository.EVENT_RELOAD? "<snapshot>": event.getValue());
 		switch (event.getType()) {
 		case TokenRepository.EVENT_ADD_KEY:
 		case TokenRepository.EVENT_SET_KEY:
@@ -250,7 +307,11 @@ class PropertyListener implements TokenRepositoryListener {
 			selector.clear();
 			break;
 		case TokenRepository.EVENT_RELOAD:
-			selector.reloadConfig();
+			if (event.getValue() instanceof Map) {
+				selector.reloadConfig((Map<?, ?>) event.getValue());
+			} else {
+				selector.reloadConfig();
+			}
 			break;
 		case TokenRepository.EVENT_EXCEPTION:
 			logger.log(OpLevel.ERROR, "Repository error detected, event={0}", event, event.getCause());
@@ -258,41 +319,3 @@ class PropertyListener implements TokenRepositoryListener {
 		}
 	}
 }
-
-class TntToken {
-	Object key;
-	String value;
-	String vPattern;
-	OpLevel sevLimit;
-	Pattern valuePatten;
-
-	public TntToken(OpLevel sev, Object k, String v, String vPtn) {
-		value = v;
-		key = k;
-		sevLimit = sev;
-		vPattern = vPtn;
-		if (vPattern != null) {
-			valuePatten = Pattern.compile(vPattern);
-		}
-	}
-
-	public String getValue() {
-		return value;
-	}
-
-	public boolean isMatch(OpLevel sev, Object key, Object value) {
-		boolean match = false;
-		boolean sevMatch = (sev.ordinal() >= sevLimit.ordinal());
-		match = sevMatch
-		        && ((value != null && valuePatten != null)? valuePatten.matcher(value.toString()).matches(): true);		
-		return match;
-	}
-
-	public String toString() {
-		return "Token{"
-			+ key + ":" + value
-			+ ", sev.level: " + sevLimit
-			+ ", value.pattern: " + vPattern
-			+ "}";
-	}
-}
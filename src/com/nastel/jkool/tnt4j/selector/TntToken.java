@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.selector;
+
+import java.util.regex.Pattern;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+
+/**
+ * Parsed selector token: severity limit and optional value pattern
+ * for a given key, as defined in a token repository.
+ *
+ * @see DefaultTrackingSelector
+ * @version $Revision: 1 $
+ */
+class TntToken {
+	static final String MATCH_ALL = ".*";
+	static final String REGEX_CHARS = "\\^$.|?*+()[]{}";
+
+	Object key;
+	String value;
+	String vPattern;
+	String vLiteral;
+	OpLevel sevLimit;
+	Pattern valuePatten;
+
+	public TntToken(OpLevel sev, Object k, String v, String vPtn) {
+		value = v;
+		key = k;
+		sevLimit = sev;
+		vPattern = vPtn;
+		if (vPattern != null && !MATCH_ALL.equals(vPattern)) {
+			if (isLiteral(vPattern)) {
+				vLiteral = vPattern;
+			} else {
+				valuePatten = Pattern.compile(vPattern);
+			}
+		}
+	}
+
+	private static boolean isLiteral(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if (REGEX_CHARS.indexOf(pattern.charAt(i)) >= 0) return false;
+		}
+		return true;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public boolean isMatch(OpLevel sev, Object key, Object value) {
+		if (sev.ordinal() < sevLimit.ordinal()) {
+			return false;
+		}
+		if (value == null) {
+			return true;
+		}
+		if (vLiteral != null) {
+			return vLiteral.equals(value.toString());
+		}
+		return (valuePatten != null)? valuePatten.matcher(value.toString()).matches(): true;
+	}
+
+	public String toString() {
+		return "Token{"
+			+ key + ":" + value
+			+ ", sev.level: " + sevLimit
+			+ ", value.pattern: " + vPattern
+			+ "}";
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.selector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+
+/**
+ * <p>
+ * Immutable snapshot of selector tokens. Updates never modify an existing instance, instead a new
+ * instance is created (copy-on-write), so that readers never race with writers and a new state
+ * can be published with a single volatile write. Each snapshot carries a per-key lookup cache
+ * including misses, so repeated lookups of unknown keys cost a single hash probe. The cache is
+ * discarded together with the snapshot it belongs to.
+ * </p>
+ * <p>
+ * Hierarchical snapshots resolve keys without an exact token to the token
+ * with the longest matching key prefix (see {@link TokenTrie}).
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+class TokenMap {
+	static final int MAX_CACHE_SIZE = Integer.getInteger("tnt4j.selector.cache.size", 4096);
+	static final TokenMap EMPTY = new TokenMap(Collections.<Object, TntToken> emptyMap(), false);
+
+	private static final TntToken NO_TOKEN = new TntToken(OpLevel.NONE, null, null, null);
+
+	private final Map<Object, TntToken> tokens;
+	private final TokenTrie trie;
+	private final ConcurrentHashMap<Object, TntToken> resolved = new ConcurrentHashMap<Object, TntToken>(89);
+
+	/**
+	 * Create a snapshot using a given token map. The map must not be
+	 * modified after this call.
+	 *
+	 * @param map token map
+	 * @param hierarchical true to resolve keys by longest matching prefix, false for exact keys only
+	 */
+	TokenMap(Map<Object, TntToken> map, boolean hierarchical) {
+		tokens = map;
+		trie = hierarchical? buildTrie(map): null;
+	}
+
+	private static TokenTrie buildTrie(Map<Object, TntToken> map) {
+		TokenTrie trie = new TokenTrie();
+		for (Map.Entry<Object, TntToken> entry : map.entrySet()) {
+			trie.add(String.valueOf(entry.getKey()), entry.getValue());
+		}
+		return trie;
+	}
+
+	/**
+	 * Determine if keys are resolved by longest matching prefix
+	 *
+	 * @return true if hierarchical, false otherwise
+	 */
+	boolean isHierarchical() {
+		return trie != null;
+	}
+
+	/**
+	 * Obtain token for a given key
+	 *
+	 * @param key token key
+	 * @return token associated with the key, null if none
+	 */
+	TntToken get(Object key) {
+		if (key == null) return null;
+		TntToken token = resolved.get(key);
+		if (token == null) {
+			token = resolve(key);
+			if (resolved.size() < MAX_CACHE_SIZE) {
+				resolved.putIfAbsent(key, token != null? token: NO_TOKEN);
+			}
+			return token;
+		}
+		return token != NO_TOKEN? token: null;
+	}
+
+	/**
+	 * Resolve token for a given key when not found in the lookup cache
+	 *
+	 * @param key token key
+	 * @return token associated with the key, null if none
+	 */
+	protected TntToken resolve(Object key) {
+		TntToken token = tokens.get(key);
+		if (token == null && trie != null && (key instanceof String)) {
+			token = trie.longestPrefix((String) key);
+		}
+		return token;
+	}
+
+	/**
+	 * Number of tokens in this snapshot
+	 *
+	 * @return number of tokens
+	 */
+	int size() {
+		return tokens.size();
+	}
+
+	/**
+	 * Create a new snapshot with a given token added or replaced
+	 *
+	 * @param key token key
+	 * @param token token instance
+	 * @param hierarchical true to resolve keys by longest matching prefix, false for exact keys only
+	 * @return new token snapshot
+	 */
+	TokenMap put(Object key, TntToken token, boolean hierarchical) {
+		HashMap<Object, TntToken> copy = new HashMap<Object, TntToken>(tokens);
+		copy.put(key, token);
+		return new TokenMap(copy, hierarchical);
+	}
+
+	/**
+	 * Create a new snapshot with a given token removed
+	 *
+	 * @param key token key
+	 * @return new token snapshot, same instance if key does not exist
+	 */
+	TokenMap remove(Object key) {
+		if (!tokens.containsKey(key)) return this;
+		HashMap<Object, TntToken> copy = new HashMap<Object, TntToken>(tokens);
+		copy.remove(key);
+		return new TokenMap(copy, isHierarchical());
+	}
+}
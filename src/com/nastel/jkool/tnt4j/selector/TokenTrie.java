@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.selector;
+
+import java.util.HashMap;
+
+/**
+ * <p>
+ * Trie of selector tokens keyed by dot separated key segments (e.g. logger hierarchy).
+ * Used to find the token with the longest matching key prefix, so that a token
+ * defined for <code>com.acme</code> applies to <code>com.acme.orders.OrderService</code>.
+ * Prefixes match on whole segments only: <code>com.acme</code> does not apply
+ * to <code>com.acmex</code>. Instances are not modified after they are built.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+class TokenTrie {
+	static final char SEPARATOR = '.';
+
+	private final Node root = new Node();
+
+	/**
+	 * Add a token for a given key
+	 *
+	 * @param key token key
+	 * @param token token instance
+	 */
+	void add(String key, TntToken token) {
+		Node node = root;
+		int start = 0;
+		while (true) {
+			int end = key.indexOf(SEPARATOR, start);
+			String segment = end < 0? key.substring(start): key.substring(start, end);
+			node = node.child(segment, true);
+			if (end < 0) break;
+			start = end + 1;
+		}
+		node.token = token;
+	}
+
+	/**
+	 * Find token with the longest key prefix matching a given key
+	 *
+	 * @param key key to match
+	 * @return matching token, null if none
+	 */
+	TntToken longestPrefix(String key) {
+		Node node = root;
+		TntToken match = null;
+		int start = 0;
+		while (true) {
+			int end = key.indexOf(SEPARATOR, start);
+			String segment = end < 0? key.substring(start): key.substring(start, end);
+			node = node.child(segment, false);
+			if (node == null) break;
+			if (node.token != null) match = node.token;
+			if (end < 0) break;
+			start = end + 1;
+		}
+		return match;
+	}
+
+	private static class Node {
+		HashMap<String, Node> children;
+		TntToken token;
+
+		Node child(String segment, boolean create) {
+			Node node = children != null? children.get(segment): null;
+			if (node == null && create) {
+				if (children == null) children = new HashMap<String, Node>(8);
+				node = new Node();
+				children.put(segment, node);
+			}
+			return node;
+		}
+	}
+}
@@ -27,9 +27,13 @@ import com.nastel.jkool.tnt4j.core.OpLevel;
 import com.nastel.jkool.tnt4j.core.Snapshot;
 import com.nastel.jkool.tnt4j.core.TTL;
 import com.nastel.jkool.tnt4j.format.EventFormatter;
+import com.nastel.jkool.tnt4j.limiter.HierarchicalLimiter;
+import com.nastel.jkool.tnt4j.limiter.LimiterNode;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
+import com.nastel.jkool.tnt4j.utils.TimeService;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
@@ -186,7 +190,7 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 		stats.put(Utils.qualify(this, KEY_SKIPPED_COUNT), skipCount.get());
 		if (lastTime.get() > 0) {
 			stats.put(Utils.qualify(this, KEY_LAST_TIMESTAMP), new Date(lastTime.get()));
-			stats.put(Utils.qualify(this, KEY_LAST_AGE), (System.currentTimeMillis() - lastTime.get()));
+			stats.put(Utils.qualify(this, KEY_LAST_AGE), (TimeService.coarseTimeMillis() - lastTime.get()));
 		}
 		if (limiter != null) {
 			stats.put(Utils.qualify(this, KEY_LIMITER_ENABLED), limiter.getLimiter().isEnabled());
@@ -200,10 +204,30 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 			stats.put(Utils.qualify(this, KEY_LIMITER_TOTAL_DELAYS), limiter.getLimiter().getDelayCount());
 			stats.put(Utils.qualify(this, KEY_LIMITER_LAST_DELAY_TIME), limiter.getLimiter().getLastDelayTime());
 			stats.put(Utils.qualify(this, KEY_LIMITER_TOTAL_DELAY_TIME), limiter.getLimiter().getTotalDelayTime());
+			if (limiter.isDegrading()) {
+				stats.put(Utils.qualify(this, KEY_LIMITER_TOTAL_DEGRADED), limiter.getDegradeCount());
+				stats.put(Utils.qualify(this, KEY_LIMITER_TOTAL_SUMMARIES), limiter.getSummaryCount());
+			}
+			if (limiter.getLimiter() instanceof HierarchicalLimiter) {
+				getNodeStats(stats, (HierarchicalLimiter) limiter.getLimiter());
+			}
 		}
 		return this;
 	}
 
+	private void getNodeStats(Map<String, Object> stats, HierarchicalLimiter hlimiter) {
+		for (LimiterNode node : hlimiter.getNodes()) {
+			String pfix = "limiter-node=" + node.getName();
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_MPS), node.getMPS());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_MAX_MPS), node.getMaxMPS());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_MAX_BPS), node.getMaxBPS());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_TOTAL_DENIED), node.getDenyCount());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_TOTAL_DELAYS), node.getDelayCount());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_TOTAL_BORROWED), node.getBorrowCount());
+			stats.put(Utils.qualify(this, pfix, KEY_LIMITER_TOTAL_DELAY_TIME), node.getTotalDelayTime());
+		}
+	}
+
 	@Override
 	public void resetStats() {
 		loggedActivities.set(0);
@@ -380,17 +404,28 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	@Override
 	public void log(TrackingActivity activity) {
 		_checkState();
-		boolean doLog = filterCheck? isLoggable(activity): true;
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = filterCheck? isLoggable(activity): true;
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
 		if (doLog) {
 			try {
 				if (ttl != TTL.TTL_CONTEXT) {
 					activity.setTTL(ttl);
 				}
-				if (!_limiter(1, 0)) return;
-				_log(activity);
+				if (!_limiter(activity.getSource(), activity.getSeverity(), activity.getName(), 1, 0)) return;
+				stage = StageTimer.start(StageTimer.STAGE_SINK_LOG);
+				try {
+					_log(activity);
+				} finally {
+					StageTimer.stop(StageTimer.STAGE_SINK_LOG, stage);
+				}
 				loggedActivities.incrementAndGet();
 				loggedSnaps.addAndGet(activity.getSnapshotCount());
-				lastTime.set(System.currentTimeMillis());
+				lastTime.set(TimeService.coarseTimeMillis());
 				errorState = false;
 				if (logListeners.size() > 0) {
 					notifyListeners(new SinkLogEvent(this, activity));
@@ -404,17 +439,28 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	@Override
 	public void log(TrackingEvent event) {
 		_checkState();
-		boolean doLog = filterCheck? isLoggable(event): true;
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = filterCheck? isLoggable(event): true;
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
 		if (doLog) {
 			try {
 				if (ttl != TTL.TTL_CONTEXT) {
 					event.setTTL(ttl);
 				}
-				if (!_limiter(1, event.getSize())) return;
-				_log(event);
+				if (!_limiter(event.getSource(), event.getSeverity(), event.getOperation().getName(), 1, event.getSize())) return;
+				stage = StageTimer.start(StageTimer.STAGE_SINK_LOG);
+				try {
+					_log(event);
+				} finally {
+					StageTimer.stop(StageTimer.STAGE_SINK_LOG, stage);
+				}
 				loggedEvents.incrementAndGet();
 				loggedSnaps.addAndGet(event.getOperation().getSnapshotCount());
-				lastTime.set(System.currentTimeMillis());
+				lastTime.set(TimeService.coarseTimeMillis());
 				errorState = false;
 				if (logListeners.size() > 0) {
 					notifyListeners(new SinkLogEvent(this, event));
@@ -428,16 +474,27 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	@Override
 	public void log(Snapshot snapshot) {
 		_checkState();
-		boolean doLog = filterCheck? isLoggable(snapshot): true;
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = filterCheck? isLoggable(snapshot): true;
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
 		if (doLog) {
 			try {
 				if (ttl != TTL.TTL_CONTEXT) {
 					snapshot.setTTL(ttl);
 				}
-				if (!_limiter(1, 0)) return;
-				_log(snapshot);
+				if (!_limiter(snapshot.getSource(), snapshot.getSeverity(), snapshot.getName(), 1, 0)) return;
+				stage = StageTimer.start(StageTimer.STAGE_SINK_LOG);
+				try {
+					_log(snapshot);
+				} finally {
+					StageTimer.stop(StageTimer.STAGE_SINK_LOG, stage);
+				}
 				loggedSnaps.incrementAndGet();
-				lastTime.set(System.currentTimeMillis());
+				lastTime.set(TimeService.coarseTimeMillis());
 				errorState = false;
 				if (logListeners.size() > 0) {
 					notifyListeners(new SinkLogEvent(this, snapshot));
@@ -461,14 +518,25 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	@Override
 	public void log(long ttl_sec, Source src, OpLevel sev, String msg, Object... args) {
 		_checkState();
-		boolean doLog = filterCheck? isLoggable(ttl_sec, source, sev, msg): true;
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = filterCheck? isLoggable(ttl_sec, source, sev, msg): true;
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
 		if (doLog) {
 			try {
 				long nttl = ((ttl_sec != TTL.TTL_CONTEXT)? ttl_sec: TTL.TTL_DEFAULT);
-				if (!_limiter(1, msg.length())) return;
-				_log(nttl, src, sev, msg, args);
+				if (!_limiter(src, sev, null, 1, msg.length())) return;
+				stage = StageTimer.start(StageTimer.STAGE_SINK_LOG);
+				try {
+					_log(nttl, src, sev, msg, args);
+				} finally {
+					StageTimer.stop(StageTimer.STAGE_SINK_LOG, stage);
+				}
 				loggedMsgs.incrementAndGet();
-				lastTime.set(System.currentTimeMillis());
+				lastTime.set(TimeService.coarseTimeMillis());
 				errorState = false;
 				if (logListeners.size() > 0) {
 					notifyListeners(new SinkLogEvent(this, src, sev, nttl, msg, args));
@@ -483,9 +551,14 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	public void write(Object msg, Object...args) throws IOException, InterruptedException {
 		try {
 			if (!_limiter(msg)) return;
-			_write(msg, args);
+			long stage = StageTimer.start(StageTimer.STAGE_SINK_LOG);
+			try {
+				_write(msg, args);
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_SINK_LOG, stage);
+			}
 			sinkWrites.incrementAndGet();
-			lastTime.set(System.currentTimeMillis());
+			lastTime.set(TimeService.coarseTimeMillis());
 			errorState = false;
 			if (logListeners.size() > 0) {
 				notifyListeners(new SinkLogEvent(this, getSource(), OpLevel.NONE, (ttl != TTL.TTL_CONTEXT)? ttl: TTL.TTL_DEFAULT, msg, args));
@@ -517,6 +590,7 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	
 	@Override
 	public void flush() throws IOException {
+		_flushSummary();
 	}
 
 	/**
@@ -553,6 +627,79 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
     	return true;
     }
 
+	/**
+	 * Applies rate limiting on mps/bps on behalf of a given source
+	 * 
+	 * @param src event source
+	 * @param msgCount messages sent
+	 * @param byteCount bytes sent
+	 * @return true if permit obtained, false otherwise
+	 */
+    protected boolean _limiter(Source src, int msgCount, int byteCount) {
+    	if (limiter != null) {
+    		return limiter.obtain(src, msgCount, byteCount);
+    	}
+    	return true;
+    }
+
+	/**
+	 * Applies rate limiting on mps/bps on behalf of a given source.
+	 * In degrade mode denied events are folded into a summary and
+	 * summaries are logged once per interval.
+	 * 
+	 * @param src event source
+	 * @param sev event severity
+	 * @param opName operation name (may be null)
+	 * @param msgCount messages sent
+	 * @param byteCount bytes sent
+	 * @return true if permit obtained, false otherwise
+	 * @see DeniedEventSummary
+	 */
+    protected boolean _limiter(Source src, OpLevel sev, String opName, int msgCount, int byteCount) {
+    	if (limiter == null) {
+    		return true;
+    	}
+    	long stage = StageTimer.start(StageTimer.STAGE_LIMITER);
+    	try {
+    		boolean permit = _limiter(src, msgCount, byteCount);
+    		if (limiter.isDegrading()) {
+    			if (!permit) {
+    				limiter.degrade(src, sev, opName, byteCount);
+    			}
+    			_logSummary(limiter.rollSummary());
+    		}
+    		return permit;
+    	} finally {
+    		StageTimer.stop(StageTimer.STAGE_LIMITER, stage);
+    	}
+    }
+
+	/**
+	 * Log a summary of denied events bypassing the rate limiter
+	 * 
+	 * @param summary summary of denied events (ignored if null)
+	 */
+    protected void _logSummary(DeniedEventSummary summary) {
+    	if (summary == null) return;
+    	Snapshot snapshot = summary.toSnapshot(getSource(), limiter.getDegradeInterval());
+    	try {
+    		_log(snapshot);
+    		loggedSnaps.incrementAndGet();
+    	} catch (Throwable ex) {
+    		notifyListeners(snapshot, ex);
+    	}
+    }
+
+	/**
+	 * Log pending summary of denied events (if any) without waiting for
+	 * its interval to elapse. Sinks call this when flushed and before they close.
+	 */
+    protected void _flushSummary() {
+    	if (limiter != null && limiter.isDegrading() && isOpen()) {
+    		_logSummary(limiter.drainSummary());
+    	}
+    }
+
 	/**
 	 * Applies rate limiting on mps/bps
 	 * 
@@ -561,7 +708,12 @@ public abstract class AbstractEventSink implements EventSink, EventSinkStats {
 	 */
     protected boolean _limiter(Object obj) {
     	if (limiter != null) {
-    		return limiter.obtain(1, String.valueOf(obj).length());
+    		long stage = StageTimer.start(StageTimer.STAGE_LIMITER);
+    		try {
+    			return limiter.obtain(1, String.valueOf(obj).length());
+    		} finally {
+    			StageTimer.stop(StageTimer.STAGE_LIMITER, stage);
+    		}
     	} 
     	return true;
     }
@@ -23,6 +23,7 @@ import com.nastel.jkool.tnt4j.config.Configurable;
 import com.nastel.jkool.tnt4j.core.TTL;
 import com.nastel.jkool.tnt4j.limiter.DefaultLimiterFactory;
 import com.nastel.jkool.tnt4j.limiter.Limiter;
+import com.nastel.jkool.tnt4j.limiter.LimiterFactory;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
@@ -144,7 +145,13 @@ abstract public class AbstractEventSinkFactory implements EventSinkFactory, Conf
 			double maxbps = maxBps != null? Double.parseDouble(maxBps.toString()): Limiter.MAX_RATE;
 			boolean enabled = rateLimit != null? Boolean.parseBoolean(rateLimit.toString()): true;
 			long timeout = maxTimeout != null? Long.parseLong(maxTimeout.toString()): EventLimiter.BLOCK_UNTIL_GRANTED;
-			limiter = new EventLimiter(DefaultLimiterFactory.getInstance().newLimiter(maxmps, maxbps, enabled), timeout, TimeUnit.MILLISECONDS);
+			LimiterFactory limiterFactory = (LimiterFactory) Utils.createConfigurableObject("RateLimiterFactory", "RateLimiterFactory.", config);
+			limiterFactory = limiterFactory != null? limiterFactory: DefaultLimiterFactory.getInstance();
+			limiter = new EventLimiter(limiterFactory.newLimiter(maxmps, maxbps, enabled), timeout, TimeUnit.MILLISECONDS);
+			Object degrade = config.get("RateDegradeInterval");
+			if (degrade != null) {
+				limiter.setDegradeInterval(Long.parseLong(degrade.toString()), TimeUnit.MILLISECONDS);
+			}
 		}
 		eventFilter = (SinkEventFilter) Utils.createConfigurableObject("Filter", "Filter.", config);
 		errorListener = (SinkErrorListener) Utils.createConfigurableObject("ErrorListener", "ErrorListener.", config);
@@ -29,6 +29,7 @@ import com.nastel.jkool.tnt4j.format.EventFormatter;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
@@ -57,6 +58,7 @@ public class BufferedEventSink implements EventSink {
 	private EventSink outSink = null;
 	private BufferedEventSinkFactory factory;
 	private AtomicLong dropCount = new AtomicLong(0), skipCount = new AtomicLong(0);
+	private volatile boolean closed = false;
 
 	/**
 	 * Create a buffered sink instance with a specified out sink
@@ -133,7 +135,14 @@ public class BufferedEventSink implements EventSink {
     public void write(Object msg, Object... args) throws IOException, InterruptedException {
 		_checkState();
 		String txtMsg = String.valueOf(msg);
-		if (isLoggable(OpLevel.NONE, txtMsg, args)) {
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = isLoggable(OpLevel.NONE, txtMsg, args);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
+		if (doLog) {
 			SinkLogEvent sinkEvent = new SinkLogEvent(outSink, getSource(), OpLevel.NONE, (ttl != TTL.TTL_CONTEXT)? ttl: TTL.TTL_DEFAULT, txtMsg, resolveArguments(args));
 			_writeEvent(sinkEvent, block);
 		} else {
@@ -144,7 +153,14 @@ public class BufferedEventSink implements EventSink {
 	@Override
     public void log(TrackingActivity activity) {
 		_checkState();
-		if (isLoggable(activity)) {
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = isLoggable(activity);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
+		if (doLog) {
 			if (ttl != TTL.TTL_CONTEXT) activity.setTTL(ttl);
 			SinkLogEvent sinkEvent = new SinkLogEvent(outSink, activity);
 			_writeEvent(sinkEvent, block);
@@ -156,7 +172,14 @@ public class BufferedEventSink implements EventSink {
 	@Override
     public void log(TrackingEvent event) {
 		_checkState();
-		if (isLoggable(event)) {
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = isLoggable(event);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
+		if (doLog) {
 			if (ttl != TTL.TTL_CONTEXT) event.setTTL(ttl);
 			SinkLogEvent sinkEvent = new SinkLogEvent(outSink, event);
 			_writeEvent(sinkEvent, block);
@@ -168,7 +191,14 @@ public class BufferedEventSink implements EventSink {
 	@Override
     public void log(Snapshot snapshot) {
 		_checkState();
-		if (isLoggable(snapshot)) {
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = isLoggable(snapshot);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
+		if (doLog) {
 			if (ttl != TTL.TTL_CONTEXT) snapshot.setTTL(ttl);
 			SinkLogEvent sinkEvent = new SinkLogEvent(outSink, snapshot);
 			_writeEvent(sinkEvent, block);
@@ -190,7 +220,14 @@ public class BufferedEventSink implements EventSink {
 	@Override
     public void log(long ttl_sec, Source src, OpLevel sev, String msg, Object... args) {
 		_checkState();
-		if (isLoggable(sev, msg, args)) {
+		boolean doLog;
+		long stage = StageTimer.start(StageTimer.STAGE_FILTER);
+		try {
+			doLog = isLoggable(sev, msg, args);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FILTER, stage);
+		}
+		if (doLog) {
 			SinkLogEvent sinkEvent = new SinkLogEvent(outSink, src, sev, ttl_sec, msg, resolveArguments(args));
 			_writeEvent(sinkEvent, block);
 		} else {
@@ -233,17 +270,22 @@ public class BufferedEventSink implements EventSink {
 
 	@Override
     public boolean isOpen() {
-	    return true;
+	    return !closed;
     }
 
 	@Override
     public void open() {
 		// open asynchronously PooledLogger should handle it
 		// outSink.open();
+		if (closed) {
+			closed = false;
+			factory.getPooledLogger().reopen(outSink);
+		}
 	}
 
 	@Override
     public void close() throws IOException {
+		closed = true;
 		flush(SinkLogEvent.SIGNAL_CLOSE);
     }
 
@@ -21,6 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import com.nastel.jkool.tnt4j.config.ConfigException;
+import com.nastel.jkool.tnt4j.core.OpLevel;
 import com.nastel.jkool.tnt4j.format.EventFormatter;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
@@ -30,6 +31,11 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  * specified concrete {@link EventSinkFactory} instance specified by {@link EventSinkFactory}
  * configuration attribute. This factory uses specified event sink factory to create event sinks and wraps
  * then with instances of {@link BufferedEventSink}.
+ * Pooled loggers are shared by name ({@code PoolName}) and reference counted by the factories using them.
+ * When a factory is reconfigured with a different {@code PoolSize} or {@code PoolCapacity} for a pool it alone uses
+ * (e.g. after configuration reload), a new pooled logger replaces the registered one. Conflicting sizes for a pool
+ * shared with other factories are ignored with a warning. Pooled loggers no longer used by any factory are stopped
+ * once their queued events are logged.
  *
  *
  * @see EventSink
@@ -40,6 +46,7 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  *
  */
 public class BufferedEventSinkFactory extends AbstractEventSinkFactory {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(BufferedEventSinkFactory.class);
 	private static int MAX_POOL_SIZE = Integer.getInteger("tnt4j.pooled.logger.pool", 5);
 	private static int MAX_CAPACITY = Integer.getInteger("tnt4j.pooled.logger.capacity", 10000);
 	
@@ -113,22 +120,53 @@ public class BufferedEventSinkFactory extends AbstractEventSinkFactory {
 		Object blockMode = props.get("BlockWrites");
 		blockWrites = blockMode == null? blockWrites: Boolean.parseBoolean(blockMode.toString());
 		
-		// create and register pooled logger instance if not yet available
-		pooledLogger = new PooledLogger(loggerName, poolSize, capacity);
-		POOLED_LOGGERS.putIfAbsent(loggerName, new PooledLogger(loggerName, poolSize, capacity));
-		
-		// obtain the required logger and attempt to start
-		pooledLogger = POOLED_LOGGERS.get(loggerName);
+		// obtain the registered logger, create and register one if not yet available
+		PooledLogger previous = pooledLogger;
+		synchronized (POOLED_LOGGERS) {
+			PooledLogger registered = POOLED_LOGGERS.get(loggerName);
+			if (registered == null) {
+				registered = new PooledLogger(loggerName, poolSize, capacity);
+				POOLED_LOGGERS.put(loggerName, registered);
+			} else if (registered.poolSize != poolSize || registered.capacity != capacity) {
+				if (registered == previous && registered.factoryRefs == 1) {
+					// sizing of a pool used only by this factory changed: replace
+					registered = new PooledLogger(loggerName, poolSize, capacity);
+					POOLED_LOGGERS.put(loggerName, registered);
+				} else {
+					logger.log(OpLevel.WARNING,
+						"Conflicting pool settings ignored: pool.name={0}, pool.size={1}, pool.capacity={2}, using pool.size={3}, pool.capacity={4}",
+						loggerName, poolSize, capacity, registered.poolSize, registered.capacity);
+				}
+			}
+			if (registered != previous) {
+				registered.factoryRefs++;
+				pooledLogger = registered;
+				releasePooledLogger(previous);
+			}
+		}
 		pooledLogger.start();
 	}
+
+	/**
+	 * Release a reference to a given pooled logger. Pooled logger is
+	 * unregistered and stopped when no longer used by any factory.
+	 * Must be called while holding the pool registry lock.
+	 *
+	 * @param lg pooled logger instance
+	 */
+	private static void releasePooledLogger(PooledLogger lg) {
+		if (lg != null && --lg.factoryRefs <= 0) {
+			POOLED_LOGGERS.remove(lg.getName(), lg);
+			lg.retire(PooledLogger.RETIRE_TIMEOUT);
+		}
+	}
 	
 	@Override
 	protected void finalize() throws Throwable {
 		try {
-			PooledLogger lg = POOLED_LOGGERS.get(factoryName);
-			if (lg != null) {
-				POOLED_LOGGERS.remove(factoryName);
-				lg.stop();
+			synchronized (POOLED_LOGGERS) {
+				releasePooledLogger(pooledLogger);
+				pooledLogger = null;
 			}
 		} finally {
 			super.finalize();
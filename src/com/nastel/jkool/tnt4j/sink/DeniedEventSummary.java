@@ -0,0 +1,233 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.sink;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.Property;
+import com.nastel.jkool.tnt4j.core.PropertySnapshot;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.core.ValueTypes;
+import com.nastel.jkool.tnt4j.source.Source;
+
+/**
+ * This class aggregates events denied by {@link EventLimiter} within a single time window.
+ * Instead of dropping denied events, sinks fold them into a summary (count, level histogram,
+ * first/last timestamp, top operation names), which is emitted as a {@link Snapshot}
+ * once per window. Access to this class is thread safe.
+ *
+ * @see EventLimiter
+ * @version $Revision: 1 $
+ */
+public class DeniedEventSummary {
+	public static final String SNAPSHOT_CATEGORY = "Limiter";
+	public static final String SNAPSHOT_NAME = "DeniedEvents";
+
+	public static final String PROPERTY_COUNT = "Count";
+	public static final String PROPERTY_BYTES = "Bytes";
+	public static final String PROPERTY_FIRST_TIME = "FirstTime";
+	public static final String PROPERTY_LAST_TIME = "LastTime";
+	public static final String PROPERTY_WINDOW = "WindowMsec";
+	public static final String PROPERTY_LEVEL_PREFIX = "Level.";
+	public static final String PROPERTY_OP_PREFIX = "Op.";
+	public static final String PROPERTY_OP_OTHER = "Op.Other";
+
+	public static final int MAX_OP_NAMES = 128;
+	public static final int TOP_OP_NAMES = 5;
+
+	private static final OpLevel[] LEVELS = OpLevel.values();
+
+	private final long startTime;
+	private volatile Source source;
+	private final AtomicLong count = new AtomicLong(0);
+	private final AtomicLong bytes = new AtomicLong(0);
+	private final AtomicLong firstTime = new AtomicLong(0);
+	private final AtomicLong lastTime = new AtomicLong(0);
+	private final AtomicLong otherOps = new AtomicLong(0);
+	private final AtomicLongArray levels = new AtomicLongArray(LEVELS.length);
+	private final ConcurrentHashMap<String, AtomicLong> opNames = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * Create a summary for a window starting at a given time
+	 *
+	 * @param start window start time in milliseconds
+	 */
+	public DeniedEventSummary(long start) {
+		this.startTime = start;
+	}
+
+	/**
+	 * Fold a denied event into this summary
+	 *
+	 * @param src event source
+	 * @param sev event severity
+	 * @param opName operation name (may be null)
+	 * @param byteCount event size in bytes
+	 * @param time time of denial in milliseconds
+	 */
+	public void add(Source src, OpLevel sev, String opName, int byteCount, long time) {
+		if (count.getAndIncrement() == 0) {
+			firstTime.compareAndSet(0, time);
+		}
+		if (source == null && src != null) {
+			source = src;
+		}
+		lastTime.set(time);
+		if (byteCount > 0) {
+			bytes.addAndGet(byteCount);
+		}
+		if (sev != null) {
+			levels.incrementAndGet(sev.ordinal());
+		}
+		if (opName != null) {
+			countOp(opName);
+		}
+	}
+
+	private void countOp(String opName) {
+		AtomicLong opCount = opNames.get(opName);
+		if (opCount == null) {
+			if (opNames.size() >= MAX_OP_NAMES) {
+				otherOps.incrementAndGet();
+				return;
+			}
+			AtomicLong prev = opNames.putIfAbsent(opName, opCount = new AtomicLong(0));
+			opCount = prev != null? prev: opCount;
+		}
+		opCount.incrementAndGet();
+	}
+
+	/**
+	 * Get window start time in milliseconds
+	 *
+	 * @return window start time in milliseconds
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Get number of denied events in this window
+	 *
+	 * @return number of denied events
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Get total size in bytes of denied events in this window
+	 *
+	 * @return total size in bytes
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Get time of first denied event in this window
+	 *
+	 * @return time in milliseconds, 0 if none
+	 */
+	public long getFirstTime() {
+		return firstTime.get();
+	}
+
+	/**
+	 * Get time of last denied event in this window
+	 *
+	 * @return time in milliseconds, 0 if none
+	 */
+	public long getLastTime() {
+		return lastTime.get();
+	}
+
+	/**
+	 * Get number of denied events with a given severity
+	 *
+	 * @param sev event severity
+	 * @return number of denied events
+	 */
+	public long getCount(OpLevel sev) {
+		return levels.get(sev.ordinal());
+	}
+
+	/**
+	 * Get most frequent operation names denied in this window.
+	 * Counts are copied before sorting, so concurrent updates
+	 * do not affect ordering.
+	 *
+	 * @param topN maximum number of names
+	 * @return list of name/count entries ordered by count (highest first)
+	 */
+	public List<Entry<String, Long>> getTopOperations(int topN) {
+		List<Entry<String, Long>> list = new ArrayList<Entry<String, Long>>(opNames.size());
+		for (Entry<String, AtomicLong> entry : opNames.entrySet()) {
+			list.add(new SimpleImmutableEntry<String, Long>(entry.getKey(), entry.getValue().get()));
+		}
+		Collections.sort(list, new Comparator<Entry<String, Long>>() {
+			@Override
+			public int compare(Entry<String, Long> o1, Entry<String, Long> o2) {
+				long c1 = o1.getValue(), c2 = o2.getValue();
+				return c1 < c2? 1: (c1 == c2? 0: -1);
+			}
+		});
+		return list.size() > topN? list.subList(0, topN): list;
+	}
+
+	/**
+	 * Create a snapshot describing this summary
+	 *
+	 * @param defSource source used when no denied event carried a source
+	 * @param windowMs window length in milliseconds
+	 * @return snapshot containing summary properties
+	 */
+	public Snapshot toSnapshot(Source defSource, long windowMs) {
+		OpLevel maxLevel = OpLevel.NONE;
+		for (int i = 0; i < LEVELS.length; i++) {
+			if (levels.get(i) > 0) maxLevel = LEVELS[i];
+		}
+		PropertySnapshot snapshot = new PropertySnapshot(SNAPSHOT_CATEGORY, SNAPSHOT_NAME, maxLevel);
+		snapshot.setSource(source != null? source: defSource);
+		snapshot.add(new Property(PROPERTY_COUNT, count.get(), ValueTypes.VALUE_TYPE_COUNTER));
+		snapshot.add(new Property(PROPERTY_BYTES, bytes.get(), ValueTypes.VALUE_TYPE_SIZE_BYTE));
+		snapshot.add(new Property(PROPERTY_FIRST_TIME, firstTime.get(), ValueTypes.VALUE_TYPE_TIMESTAMP));
+		snapshot.add(new Property(PROPERTY_LAST_TIME, lastTime.get(), ValueTypes.VALUE_TYPE_TIMESTAMP));
+		snapshot.add(new Property(PROPERTY_WINDOW, windowMs, ValueTypes.VALUE_TYPE_AGE_MSEC));
+		for (int i = 0; i < LEVELS.length; i++) {
+			long lcount = levels.get(i);
+			if (lcount > 0) {
+				snapshot.add(new Property(PROPERTY_LEVEL_PREFIX + LEVELS[i], lcount, ValueTypes.VALUE_TYPE_COUNTER));
+			}
+		}
+		for (Entry<String, Long> entry : getTopOperations(TOP_OP_NAMES)) {
+			snapshot.add(new Property(PROPERTY_OP_PREFIX + entry.getKey(), entry.getValue(), ValueTypes.VALUE_TYPE_COUNTER));
+		}
+		if (otherOps.get() > 0) {
+			snapshot.add(new Property(PROPERTY_OP_OTHER, otherOps.get(), ValueTypes.VALUE_TYPE_COUNTER));
+		}
+		return snapshot;
+	}
+}
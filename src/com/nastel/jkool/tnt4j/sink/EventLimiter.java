@@ -16,21 +16,36 @@
 package com.nastel.jkool.tnt4j.sink;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.limiter.HierarchicalLimiter;
 import com.nastel.jkool.tnt4j.limiter.Limiter;
+import com.nastel.jkool.tnt4j.source.Source;
 
 /**
  * Event rate limiter wrapper around {@link Limiter} implementations.
+ * Events denied by the limiter are dropped by default. When degrade mode
+ * is enabled (see {@link #setDegradeInterval(long, TimeUnit)}), denied events are folded into a
+ * {@link DeniedEventSummary}, which sinks emit once per interval and when flushed or closed.
  *
+ * @see DeniedEventSummary
  * @version $Revision: 1 $
  */
 public class EventLimiter {
 	public static final long BLOCK_NONE = 0;
 	public static final long BLOCK_UNTIL_GRANTED = -1;
+	public static final long DEGRADE_NONE = 0;
 	
 	Limiter limiter;
 	long timeout;
 	TimeUnit unit;
+	long degradeMs = DEGRADE_NONE;
+
+	AtomicReference<DeniedEventSummary> summary = new AtomicReference<DeniedEventSummary>(new DeniedEventSummary(System.currentTimeMillis()));
+	AtomicLong degradeCount = new AtomicLong(0);
+	AtomicLong summaryCount = new AtomicLong(0);
 	
 	/**
 	 * Create an event rate limiter with specified limiter
@@ -47,6 +62,106 @@ public class EventLimiter {
 		this.unit = unit;
 	}
 	
+	/**
+	 * Enable degrade mode, where denied events are aggregated
+	 * into summaries emitted once per given interval.
+	 * 
+	 * @param interval summary interval, {@link #DEGRADE_NONE} to drop denied events
+	 * @param tunit time unit for interval value
+	 * @return same event limiter instance
+	 */
+	public EventLimiter setDegradeInterval(long interval, TimeUnit tunit) {
+		degradeMs = tunit.toMillis(interval);
+		return this;
+	}
+
+	/**
+	 * Get summary interval in milliseconds
+	 *
+	 * @return summary interval in milliseconds, {@link #DEGRADE_NONE} if degrade mode is disabled
+	 */
+	public long getDegradeInterval() {
+		return degradeMs;
+	}
+
+	/**
+	 * Determine if denied events are aggregated into summaries
+	 *
+	 * @return true if degrade mode is enabled, false otherwise
+	 */
+	public boolean isDegrading() {
+		return degradeMs > DEGRADE_NONE;
+	}
+
+	/**
+	 * Get total number of denied events folded into summaries
+	 *
+	 * @return total number of degraded events
+	 */
+	public long getDegradeCount() {
+		return degradeCount.get();
+	}
+
+	/**
+	 * Get total number of summaries handed out for emission
+	 *
+	 * @return total number of summaries
+	 */
+	public long getSummaryCount() {
+		return summaryCount.get();
+	}
+
+	/**
+	 * Fold a denied event into current summary window
+	 * 
+	 * @param src event source
+	 * @param sev event severity
+	 * @param opName operation name (may be null)
+	 * @param bytes event size in bytes
+	 */
+	public void degrade(Source src, OpLevel sev, String opName, int bytes) {
+		summary.get().add(src, sev, opName, bytes, System.currentTimeMillis());
+		degradeCount.incrementAndGet();
+	}
+
+	/**
+	 * Close current summary window if its interval elapsed and start a new one.
+	 * Only one caller receives the closed summary. Events denied concurrently
+	 * with the window switch may be omitted from the closed summary.
+	 * 
+	 * @return closed summary with at least one denied event, null otherwise
+	 */
+	public DeniedEventSummary rollSummary() {
+		DeniedEventSummary current = summary.get();
+		long now = System.currentTimeMillis();
+		if ((now - current.getStartTime()) < degradeMs) {
+			return null;
+		}
+		return closeSummary(current, now);
+	}
+
+	/**
+	 * Close current summary window regardless of its interval and start a new one.
+	 * Used to emit pending summary when a sink is flushed or closed.
+	 * 
+	 * @return closed summary with at least one denied event, null otherwise
+	 */
+	public DeniedEventSummary drainSummary() {
+		DeniedEventSummary current = summary.get();
+		if (current.getCount() == 0) {
+			return null;
+		}
+		return closeSummary(current, System.currentTimeMillis());
+	}
+
+	private DeniedEventSummary closeSummary(DeniedEventSummary current, long now) {
+		if (summary.compareAndSet(current, new DeniedEventSummary(now)) && current.getCount() > 0) {
+			summaryCount.incrementAndGet();
+			return current;
+		}
+		return null;
+	}
+
 	/**
 	 * Get rate limiter implementation
 	 *
@@ -57,6 +172,22 @@ public class EventLimiter {
 		return limiter;
 	}
 	
+	/**
+	 * Get rate limiter associated with a given source.
+	 * Returns per source node for {@link HierarchicalLimiter},
+	 * default limiter otherwise.
+	 *
+	 * @param src event source
+	 * @return rate limiter
+	 * @see Limiter
+	 */
+	public Limiter getLimiter(Source src) {
+		if (limiter instanceof HierarchicalLimiter) {
+			return ((HierarchicalLimiter) limiter).getLimiter(src);
+		}
+		return limiter;
+	}
+	
 	/**
 	 * Obtain permit for messages/bytes chunk.
 	 * This call may block to satisfy max limits.
@@ -66,11 +197,28 @@ public class EventLimiter {
 	 * @return true if permit obtained, false otherwise
 	 */
 	public boolean obtain(int msgs, int bytes) {
+		return obtain(limiter, msgs, bytes);
+	}
+
+	/**
+	 * Obtain permit for messages/bytes chunk on behalf
+	 * of a given source. This call may block to satisfy max limits.
+	 * 
+	 * @param src event source
+	 * @param msgs message count
+	 * @param bytes byte count
+	 * @return true if permit obtained, false otherwise
+	 */
+	public boolean obtain(Source src, int msgs, int bytes) {
+		return obtain(getLimiter(src), msgs, bytes);
+	}
+
+	private boolean obtain(Limiter lim, int msgs, int bytes) {
 		if (timeout < BLOCK_NONE) {
-			limiter.obtain(msgs, bytes);
+			lim.obtain(msgs, bytes);
 			return true;
 		} else {
-			return limiter.tryObtain(msgs, bytes, timeout, unit);
+			return lim.tryObtain(msgs, bytes, timeout, unit);
 		}
 	}
 }
@@ -46,6 +46,9 @@ public interface EventSinkStats {
 	static final String KEY_LIMITER_TOTAL_BYTES = "limiter-total-bytes";
 	static final String KEY_LIMITER_TOTAL_DENIED = "limiter-total-denied";
 	static final String KEY_LIMITER_TOTAL_DELAYS = "limiter-total-delays";
+	static final String KEY_LIMITER_TOTAL_BORROWED = "limiter-total-borrowed";
+	static final String KEY_LIMITER_TOTAL_DEGRADED = "limiter-total-degraded";
+	static final String KEY_LIMITER_TOTAL_SUMMARIES = "limiter-total-summaries";
 	static final String KEY_LIMITER_LAST_DELAY_TIME = "limiter-last-delay-sec";
 	static final String KEY_LIMITER_TOTAL_DELAY_TIME = "limiter-total-delay-time-sec";
 }
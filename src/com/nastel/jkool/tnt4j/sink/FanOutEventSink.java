@@ -0,0 +1,404 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.nastel.jkool.tnt4j.core.KeyValueStats;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.format.EventFormatter;
+import com.nastel.jkool.tnt4j.source.Source;
+import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
+import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.Utils;
+
+/**
+ * <p>
+ * This class implements a fan-out event sink, which writes the same events to multiple
+ * destination sinks (routes). Each event is dispatched to each route as a {@link SinkLogEvent}
+ * through a separate bounded queue served by a dedicated thread. Events are formatted by route
+ * threads once per distinct formatter: routes sharing a formatter reuse the payload cached by
+ * {@link SinkLogEvent#getFormatted(EventFormatter)}, and so does a write retried after a destination
+ * is reopened. A slow or unavailable destination does not block the caller or other routes: events
+ * are dropped when a route queue is full. Each route reports its own statistics.
+ * Events are checked against level and {@link SinkEventFilter}s of each destination sink before
+ * they are queued for the route, raw messages passed to {@link #write(Object, Object...)} are not filtered.
+ * </p>
+ * <p>
+ * Destination sinks receive formatted text via {@link EventSink#write(Object, Object...)}, so they
+ * should be created with a formatter passing text through (e.g. {@code DefaultFormatter}).
+ * </p>
+ *
+ * @version $Revision: 1 $
+ *
+ * @see EventSink
+ * @see FanOutEventSinkFactory
+ */
+public class FanOutEventSink extends AbstractEventSink {
+	static final String KEY_ROUTE_QUEUED = "route-queued";
+	static final String KEY_ROUTE_WRITTEN = "route-written";
+	static final String KEY_ROUTE_DROPPED = "route-dropped";
+	static final String KEY_ROUTE_ERRORS = "route-errors";
+	static final String KEY_ROUTE_RETRIES = "route-retries";
+	static final String KEY_ROUTE_Q_SIZE = "route-queue-size";
+	static final String KEY_ROUTE_Q_CAPACITY = "route-queue-capacity";
+
+	private static final long FLUSH_TIMEOUT_MS = Long.getLong("tnt4j.sink.fanout.flush.timeout.ms", 5000);
+
+	private final List<SinkRoute> routes = new ArrayList<SinkRoute>();
+	private volatile boolean openFlag = false;
+
+	/**
+	 * Create a fan-out sink with a given name and default formatter
+	 * used by routes without a formatter of their own.
+	 *
+	 * @param name event sink name
+	 * @param frm default event formatter
+	 */
+	public FanOutEventSink(String name, EventFormatter frm) {
+		super(name, frm);
+	}
+
+	/**
+	 * Add a destination route. Routes must be added before the sink is opened.
+	 *
+	 * @param routeName route name used to qualify route statistics
+	 * @param sink destination event sink
+	 * @param frm formatter used to format events for the route, null to use the default formatter
+	 * @param capacity maximum number of events queued for the route
+	 * @return same fan-out sink instance
+	 */
+	public synchronized FanOutEventSink addRoute(String routeName, EventSink sink, EventFormatter frm, int capacity) {
+		if (openFlag) {
+			throw new IllegalStateException("Unable to add route to open sink: sink=" + getName() + ", route=" + routeName);
+		}
+		routes.add(new SinkRoute(this, routeName, sink, frm != null? frm: getEventFormatter(), capacity));
+		sink.setSource(getSource());
+		return this;
+	}
+
+	/**
+	 * Obtain names of all routes
+	 *
+	 * @return list of route names
+	 */
+	public synchronized List<String> getRouteNames() {
+		List<String> names = new ArrayList<String>(routes.size());
+		for (SinkRoute route : routes) {
+			names.add(route.name);
+		}
+		return names;
+	}
+
+	@Override
+	public void setSource(Source src) {
+		super.setSource(src);
+		for (SinkRoute route : routes) {
+			route.sink.setSource(src);
+		}
+	}
+
+	@Override
+	public boolean isSet(OpLevel sev) {
+		for (SinkRoute route : routes) {
+			if (route.sink.isSet(sev)) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public Object getSinkHandle() {
+		return routes;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return openFlag;
+	}
+
+	@Override
+	public synchronized void open() throws IOException {
+		if (openFlag) return;
+		for (SinkRoute route : routes) {
+			route.start();
+		}
+		openFlag = true;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!openFlag) return;
+		_flushSummary();
+		openFlag = false;
+		for (SinkRoute route : routes) {
+			route.stop();
+		}
+	}
+
+	/**
+	 * Wait until all events queued so far are written by all routes
+	 * (bounded by {@code tnt4j.sink.fanout.flush.timeout.ms}) and flush
+	 * destination sinks.
+	 */
+	@Override
+	public void flush() throws IOException {
+		_flushSummary();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS);
+		for (SinkRoute route : routes) {
+			while (!route.isIdle() && route.isAlive() && System.nanoTime() < deadline) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+			}
+			route.sink.flush();
+		}
+	}
+
+	@Override
+	public KeyValueStats getStats(Map<String, Object> stats) {
+		super.getStats(stats);
+		for (SinkRoute route : routes) {
+			String pfix = "route=" + route.name;
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_QUEUED), route.queued.get());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_WRITTEN), route.written.get());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_DROPPED), route.dropped.get());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_ERRORS), route.errors.get());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_RETRIES), route.retries.get());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_Q_SIZE), route.queue.size());
+			stats.put(Utils.qualify(this, pfix, KEY_ROUTE_Q_CAPACITY), route.capacity);
+		}
+		return this;
+	}
+
+	@Override
+	public void resetStats() {
+		super.resetStats();
+		for (SinkRoute route : routes) {
+			route.resetStats();
+		}
+	}
+
+	@Override
+	protected void _checkState() throws IllegalStateException {
+		if (!openFlag) {
+			throw new IllegalStateException("Sink is closed: sink=" + getName());
+		}
+	}
+
+	@Override
+	protected void _log(TrackingEvent event) {
+		dispatch(new SinkLogEvent(this, event), true);
+	}
+
+	@Override
+	protected void _log(TrackingActivity activity) {
+		dispatch(new SinkLogEvent(this, activity), true);
+	}
+
+	@Override
+	protected void _log(Snapshot snapshot) {
+		dispatch(new SinkLogEvent(this, snapshot), true);
+	}
+
+	@Override
+	protected void _log(long ttl, Source src, OpLevel sev, String msg, Object... args) {
+		dispatch(new SinkLogEvent(this, src, sev, ttl, msg, args), true);
+	}
+
+	@Override
+	protected void _write(Object msg, Object... args) {
+		dispatch(new SinkLogEvent(this, getSource(), OpLevel.NONE, getTTL(), msg, args), false);
+	}
+
+	private void dispatch(SinkLogEvent event, boolean filter) {
+		for (SinkRoute route : routes) {
+			if (!filter || route.isLoggable(event)) {
+				route.offer(event);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "{name: " + getName() + ", routes: " + getRouteNames() + ", is.open: " + openFlag + "}";
+	}
+}
+
+class SinkRoute implements Runnable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(SinkRoute.class);
+	static final long STOP_TIMEOUT_MS = Long.getLong("tnt4j.sink.fanout.stop.timeout.ms", 5000);
+	final String name;
+	final EventSink sink;
+	final EventFormatter formatter;
+	final int capacity;
+	final ArrayBlockingQueue<SinkLogEvent> queue;
+	final AtomicLong queued = new AtomicLong(0);
+	final AtomicLong written = new AtomicLong(0);
+	final AtomicLong dropped = new AtomicLong(0);
+	final AtomicLong errors = new AtomicLong(0);
+	final AtomicLong retries = new AtomicLong(0);
+
+	private final FanOutEventSink owner;
+	private volatile boolean busy = false;
+	private Thread worker;
+
+	SinkRoute(FanOutEventSink owner, String name, EventSink sink, EventFormatter frm, int capacity) {
+		this.owner = owner;
+		this.name = name;
+		this.sink = sink;
+		this.formatter = frm;
+		this.capacity = capacity;
+		this.queue = new ArrayBlockingQueue<SinkLogEvent>(capacity);
+	}
+
+	void offer(SinkLogEvent event) {
+		if (queue.offer(event)) {
+			queued.incrementAndGet();
+		} else {
+			dropped.incrementAndGet();
+		}
+	}
+
+	boolean isLoggable(SinkLogEvent event) {
+		Object sinkObject = event.getSinkObject();
+		if (sinkObject instanceof TrackingEvent) {
+			return sink.isLoggable((TrackingEvent) sinkObject);
+		} else if (sinkObject instanceof TrackingActivity) {
+			return sink.isLoggable((TrackingActivity) sinkObject);
+		} else if (sinkObject instanceof Snapshot) {
+			return sink.isLoggable(event.getSnapshot());
+		} else {
+			return sink.isLoggable(event.getTTL(), event.getEventSource(), event.getSeverity(),
+				String.valueOf(sinkObject), event.getArguments());
+		}
+	}
+
+	boolean isIdle() {
+		return queue.isEmpty() && !busy;
+	}
+
+	boolean isAlive() {
+		Thread task = worker;
+		return task != null && task.isAlive();
+	}
+
+	void resetStats() {
+		queued.set(0);
+		written.set(0);
+		dropped.set(0);
+		errors.set(0);
+		retries.set(0);
+	}
+
+	synchronized void start() {
+		if (worker != null) return;
+		worker = new Thread(this, "FanOutEventSink(" + owner.getName() + ")/route-" + name);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	synchronized void stop() {
+		Thread task = worker;
+		if (task == null) return;
+		worker = null;
+		try {
+			// drain queued events, then close destination; a stuck destination
+			// must not block the caller, its queued events are dropped
+			long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MS;
+			if (queue.offer(new SinkLogEvent(owner, Thread.currentThread(), SinkLogEvent.SIGNAL_CLOSE), STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				task.join(Math.max(1, deadline - System.currentTimeMillis()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (task.isAlive()) {
+			dropped.addAndGet(queue.size());
+			queue.clear();
+			task.interrupt();
+			logger.log(OpLevel.WARNING, "Route stopped before draining: route={0}, sink={1}, timeout.ms={2}", name, sink, STOP_TIMEOUT_MS);
+		}
+	}
+
+	private void openSink() throws IOException {
+		if (!sink.isOpen()) {
+			if (sink.errorState() && (System.currentTimeMillis() - sink.getLastErrorTime()) < PooledLogger.REOPEN_FREQ) {
+				throw new IOException("Sink unavailable: route=" + name + ", sink=" + sink, sink.getLastError());
+			}
+			try {
+				sink.open();
+				sink.setErrorState(null);
+			} catch (IOException e) {
+				sink.setErrorState(e);
+				throw e;
+			}
+		}
+	}
+
+	private void write(SinkLogEvent event) throws IOException, InterruptedException {
+		openSink();
+		String text = event.getFormatted(formatter);
+		long errorCount = sink.getErrorCount();
+		sink.write(text);
+		if (sink.getErrorCount() != errorCount) {
+			// destination failed: reopen and retry once with the same payload
+			retries.incrementAndGet();
+			Utils.close(sink);
+			sink.open();
+			sink.write(text);
+			if (sink.getErrorCount() != errorCount + 1) {
+				throw new IOException("Failed to write to route=" + name + ", sink=" + sink, sink.getLastError());
+			}
+		}
+		written.incrementAndGet();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				SinkLogEvent event = queue.take();
+				if (event.getSignal() != null) break;
+				busy = true;
+				try {
+					write(event);
+				} catch (InterruptedException e) {
+					throw e;
+				} catch (Throwable e) {
+					if (errors.incrementAndGet() == 1) {
+						logger.log(OpLevel.ERROR, "Failed to write to route={0}, sink={1}", name, sink, e);
+					}
+				} finally {
+					busy = false;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			Utils.close(sink);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "{route: " + name + ", sink: " + sink + ", queue.size: " + queue.size() + "}";
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.nastel.jkool.tnt4j.config.ConfigException;
+import com.nastel.jkool.tnt4j.format.DefaultFormatter;
+import com.nastel.jkool.tnt4j.format.EventFormatter;
+import com.nastel.jkool.tnt4j.format.SimpleFormatter;
+import com.nastel.jkool.tnt4j.utils.Utils;
+
+/**
+ * <p>Fan-out implementation of {@link EventSinkFactory} interface, which creates instances of
+ * {@link FanOutEventSink} writing events to multiple destinations. Each route is defined by its own
+ * {@link EventSinkFactory}, optional formatter and queue capacity. Routes without a formatter
+ * use the formatter passed to the factory (e.g. {@code event.formatter}).</p>
+ *
+ * <p>Configure as follows:</p>
+ *<pre>
+ *<code>
+ *	event.sink.factory: com.nastel.jkool.tnt4j.sink.FanOutEventSinkFactory
+ *	event.sink.factory.Routes: file,socket
+ *	event.sink.factory.RouteCapacity: 10000
+ *	event.sink.factory.file.EventSinkFactory: com.nastel.jkool.tnt4j.sink.FileEventSinkFactory
+ *	event.sink.factory.file.EventSinkFactory.FileName: tnt4j.log
+ *	event.sink.factory.socket.EventSinkFactory: com.nastel.jkool.tnt4j.sink.SocketEventSinkFactory
+ *	event.sink.factory.socket.EventSinkFactory.Host: localhost
+ *	event.sink.factory.socket.EventSinkFactory.Port: 6400
+ *	event.sink.factory.socket.Formatter: com.nastel.jkool.tnt4j.format.JSONFormatter
+ *	event.sink.factory.socket.Capacity: 50000
+ *</code>
+ *</pre>
+ *
+ * @see EventSink
+ * @see FanOutEventSink
+ *
+ * @version $Revision: 1 $
+ *
+ */
+public class FanOutEventSinkFactory extends AbstractEventSinkFactory {
+	private static int DEFAULT_CAPACITY = Integer.getInteger("tnt4j.sink.fanout.capacity", 10000);
+
+	private final List<RouteConfig> routes = new ArrayList<RouteConfig>();
+	private int routeCapacity = DEFAULT_CAPACITY;
+
+	@Override
+	public EventSink getEventSink(String name) {
+		return getEventSink(name, System.getProperties());
+	}
+
+	@Override
+	public EventSink getEventSink(String name, Properties props) {
+		return getEventSink(name, props, new SimpleFormatter("{0} | {1} | {2}"));
+	}
+
+	@Override
+	public EventSink getEventSink(String name, Properties props, EventFormatter frmt) {
+		FanOutEventSink sink = new FanOutEventSink(name, frmt);
+		for (RouteConfig route : routes) {
+			// destinations receive formatted text, passed through as is
+			EventSink outSink = route.factory.getEventSink(name, props, new DefaultFormatter());
+			sink.addRoute(route.name, outSink, route.formatter, route.capacity);
+		}
+		return configureSink(sink);
+	}
+
+	@Override
+	public void setConfiguration(Map<String, Object> props) throws ConfigException {
+		super.setConfiguration(props);
+		Object capacity = props.get("RouteCapacity");
+		routeCapacity = capacity == null? routeCapacity: Integer.parseInt(capacity.toString());
+
+		Object names = props.get("Routes");
+		if (names == null) {
+			throw new ConfigException("Missing Routes property", props);
+		}
+		routes.clear();
+		for (String routeName : names.toString().split("\\s*,\\s*")) {
+			if (routeName.length() == 0) continue;
+			EventSinkFactory factory = (EventSinkFactory) Utils.createConfigurableObject(routeName + ".EventSinkFactory",
+			        routeName + ".EventSinkFactory.", props);
+			if (factory == null) {
+				throw new ConfigException("Missing " + routeName + ".EventSinkFactory property", props);
+			}
+			EventFormatter formatter = (EventFormatter) Utils.createConfigurableObject(routeName + ".Formatter",
+			        routeName + ".Formatter.", props);
+			Object routeCap = props.get(routeName + ".Capacity");
+			int cap = routeCap == null? routeCapacity: Integer.parseInt(routeCap.toString());
+			routes.add(new RouteConfig(routeName, factory, formatter, cap));
+		}
+	}
+
+	private static class RouteConfig {
+		final String name;
+		final EventSinkFactory factory;
+		final EventFormatter formatter;
+		final int capacity;
+
+		RouteConfig(String name, EventSinkFactory factory, EventFormatter formatter, int capacity) {
+			this.name = name;
+			this.factory = factory;
+			this.formatter = formatter;
+			this.capacity = capacity;
+		}
+	}
+}
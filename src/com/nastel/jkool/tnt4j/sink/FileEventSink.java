@@ -24,6 +24,7 @@ import com.nastel.jkool.tnt4j.format.EventFormatter;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
 
 /**
  * <p>
@@ -77,6 +78,7 @@ public class FileEventSink extends AbstractEventSink {
 
 	@Override
     public void close() throws IOException {
+		_flushSummary();
 		fileSink.close();
 	}
 
@@ -105,20 +107,35 @@ public class FileEventSink extends AbstractEventSink {
 	@Override
     protected void _log(Snapshot snapshot) {
 		PrintStream printer = fileSink.getPrintStream();
-		printer.println(getEventFormatter().format(snapshot));		
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(snapshot);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		printer.println(line);
 		printer.flush();
 	}	
 
 	@Override
     protected void _log(long ttl, Source src, OpLevel sev, String msg, Object... args) {
 		PrintStream printer = fileSink.getPrintStream();
-		printer.println(getEventFormatter().format(ttl, src, sev, msg, args));		
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(ttl, src, sev, msg, args);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		printer.println(line);
 		printer.flush();
 	}	
 	
 	@Override
 	public void flush() {
 		if (isOpen()) {
+			_flushSummary();
 			fileSink.flush();
 		}
 	}
@@ -16,8 +16,11 @@
 package com.nastel.jkool.tnt4j.sink;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -32,8 +35,10 @@ import com.nastel.jkool.tnt4j.core.OpLevel;
 import com.nastel.jkool.tnt4j.core.Snapshot;
 import com.nastel.jkool.tnt4j.limiter.DefaultLimiterFactory;
 import com.nastel.jkool.tnt4j.limiter.Limiter;
+import com.nastel.jkool.tnt4j.tracker.LatencyTracker;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
@@ -57,6 +62,7 @@ public class PooledLogger implements KeyValueStats {
 	protected static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(PooledLogger.class);
 	protected static final double ERROR_RATE = Double.valueOf(System.getProperty("tnt4j.pooled.logger.error.rate", "0.1"));
 	protected static final int REOPEN_FREQ = Integer.getInteger("tnt4j.pooled.logger.reopen.freq.ms", 30000);
+	protected static final long RETIRE_TIMEOUT = Long.getLong("tnt4j.pooled.logger.retire.ms", 30000);
 			
 	static final String KEY_Q_SIZE = "pooled-queue-size";
 	static final String KEY_Q_TASKS = "pooled-queue-tasks";
@@ -69,13 +75,17 @@ public class PooledLogger implements KeyValueStats {
 	static final String KEY_RECOVERY_COUNT = "pooled-recovery-count";
 	static final String KEY_TOTAL_TIME_USEC = "pooled-total-time-usec";
 	static final String KEY_TOTAL_SERVICE_TIME_USEC = "pooled-total-service-time-usec";
+	static final String OP_SERVICE = "pooled-service";
+	static final String OP_PROCESS = "pooled-process";
 
 	String poolName;
 	int poolSize, capacity;
 	ExecutorService threadPool;
 	ArrayBlockingQueue<SinkLogEvent> eventQ;
+	Set<EventSink> closedSinks = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<EventSink, Boolean>()));
 
 	volatile boolean started = false;
+	int factoryRefs = 0; // guarded by BufferedEventSinkFactory pool registry
 
 	AtomicLong dropCount = new AtomicLong(0);
 	AtomicLong skipCount = new AtomicLong(0);
@@ -85,6 +95,7 @@ public class PooledLogger implements KeyValueStats {
 	AtomicLong recoveryCount = new AtomicLong(0);
 	AtomicLong totalNanos = new AtomicLong(0);
 	AtomicLong totalServiceNanos = new AtomicLong(0);
+	LatencyTracker latency;
 
     /**
      * Create a pooled logger instance.
@@ -96,6 +107,7 @@ public class PooledLogger implements KeyValueStats {
 		poolName = name;
 		poolSize = threadPoolSize;
 		capacity = maxCapacity;
+		latency = new LatencyTracker(name);
 		threadPool = Executors.newFixedThreadPool(poolSize, new LoggingThreadFactory("PooledLogger(" + name + "," + poolSize + "," + capacity + ")/task-"));
 		eventQ = new ArrayBlockingQueue<SinkLogEvent>(capacity);
 	}
@@ -129,6 +141,7 @@ public class PooledLogger implements KeyValueStats {
 	    stats.put(Utils.qualify(this, poolName, KEY_SIGNAL_COUNT), signalCount.get());
 	    stats.put(Utils.qualify(this, poolName, KEY_TOTAL_TIME_USEC), totalNanos.get()/1000);
 	    stats.put(Utils.qualify(this, poolName, KEY_TOTAL_SERVICE_TIME_USEC), totalServiceNanos.get()/1000);
+	    latency.getStats(stats);
 	    return this;
     }
 
@@ -141,6 +154,7 @@ public class PooledLogger implements KeyValueStats {
 		totalNanos.set(0);
 		recoveryCount.set(0);
 		exceptionCount.set(0);
+		latency.resetStats();
 	}
 
 	/**
@@ -202,6 +216,16 @@ public class PooledLogger implements KeyValueStats {
 		return totalNanos.get();
 	}
 
+	/**
+	 * Obtain latency histograms of service time (pooled-service) and
+	 * processing time (pooled-process) of logged events
+	 *
+	 * @return latency tracker associated with this pooled logger
+	 */
+	public LatencyTracker getLatencyTracker() {
+		return latency;
+	}
+
 	/**
 	 * Obtain total number of events buffered in a queue waiting to be flushed
 	 *
@@ -221,6 +245,16 @@ public class PooledLogger implements KeyValueStats {
 		return capacity;
 	}
 
+	/**
+	 * Allow a sink closed by this pooled logger to be reopened. Events for sinks closed
+	 * by {@code SIGNAL_CLOSE} are skipped until the sink is reopened.
+	 *
+	 * @param sink event sink to be reopened on next logged event
+	 */
+	public void reopen(EventSink sink) {
+		closedSinks.remove(sink);
+	}
+
 	/**
      * Inserts the specified log event at the tail of this pooled logger.
      *
@@ -228,7 +262,13 @@ public class PooledLogger implements KeyValueStats {
      * @return true if event is inserted/accepted false otherwise
      */
 	public boolean offer(SinkLogEvent event) {
-		boolean flag = eventQ.offer(event);
+		boolean flag;
+		long stage = StageTimer.start(StageTimer.STAGE_ENQUEUE);
+		try {
+			flag = eventQ.offer(event);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_ENQUEUE, stage);
+		}
 		if (!flag) dropCount.incrementAndGet();
 		return flag;
 	}
@@ -241,7 +281,12 @@ public class PooledLogger implements KeyValueStats {
      * @throws InterruptedException if interrupted waiting for space in logger
      */
 	public void put(SinkLogEvent event) throws InterruptedException {
-		eventQ.put(event);
+		long stage = StageTimer.start(StageTimer.STAGE_ENQUEUE);
+		try {
+			eventQ.put(event);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_ENQUEUE, stage);
+		}
 	}
 
 	
@@ -263,6 +308,36 @@ public class PooledLogger implements KeyValueStats {
 		started = true;
 	}
 
+    /**
+     * Stop this pooled logger in the background once all queued events
+     * are logged or a given timeout elapses, whichever comes first.
+     *
+     * @param timeoutMs maximum time in milliseconds to wait for queued events
+     */
+	protected void retire(final long timeoutMs) {
+		Thread task = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long deadline = System.currentTimeMillis() + timeoutMs;
+				try {
+					while (!eventQ.isEmpty() && System.currentTimeMillis() < deadline) {
+						Thread.sleep(10);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					if (!eventQ.isEmpty()) {
+						logger.log(OpLevel.WARNING, "Retired pool not drained: pool.name={0}, queue.size={1}, timeout.ms={2}",
+							poolName, eventQ.size(), timeoutMs);
+					}
+					stop();
+				}
+			}
+		}, "PooledLogger(" + poolName + ")/retire");
+		task.setDaemon(true);
+		task.start();
+	}
+
     /**
      * Stop the the thread pool and all threads in this pooled logger.
      */
@@ -324,6 +399,9 @@ class LoggingTask implements Runnable {
 
 	protected boolean isLoggable(EventSink sink) throws IOException {
 		if (!sink.isOpen()) {
+			if (pooledLogger.closedSinks.contains(sink)) {
+				return false; // closed (e.g. retired) sink, never reopened here
+			}
 			synchronized (sink) {
 				if (sink.errorState()) {
 					long lastErrorTime = sink.getLastErrorTime();
@@ -371,7 +449,10 @@ class LoggingTask implements Runnable {
 			pooledLogger.signalCount.incrementAndGet();
 			Thread signal = event.getSignal();
 			if (event.getSignalType() == SinkLogEvent.SIGNAL_CLOSE) {
+				pooledLogger.closedSinks.add(event.getEventSink());
 				event.getEventSink().close();
+			} else if (event.getEventSink().isOpen()) {
+				event.getEventSink().flush();
 			}
 			LockSupport.unpark(signal);
 		} else if (isLoggable(event.getEventSink())) {
@@ -409,9 +490,12 @@ class LoggingTask implements Runnable {
 				} catch (Throwable err) {
 					handleError(event, err);
 				} finally {
-					pooledLogger.totalServiceNanos.addAndGet(event.complete());
+					long serviceNanos = event.complete();
+					pooledLogger.totalServiceNanos.addAndGet(serviceNanos);
 					long elaspedNanos = System.nanoTime() - start;
 					pooledLogger.totalNanos.addAndGet(elaspedNanos);					
+					pooledLogger.latency.record(PooledLogger.OP_SERVICE, serviceNanos);
+					pooledLogger.latency.record(PooledLogger.OP_PROCESS, elaspedNanos);
 				}
 			}
 		} catch (Throwable e) {
@@ -20,15 +20,22 @@ import java.util.EventObject;
 import com.nastel.jkool.tnt4j.core.OpLevel;
 import com.nastel.jkool.tnt4j.core.Snapshot;
 import com.nastel.jkool.tnt4j.core.TTL;
+import com.nastel.jkool.tnt4j.format.EventFormatter;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
  * <p>
  * An event class for reporting logging activities generated by an {@link EventSink} instance.
  * </p>
+ * <p>
+ * Each event carries a lazily populated cache of rendered payloads keyed by formatter identity
+ * (see {@link #getFormatted(EventFormatter)}), so that fan-out routes sharing a formatter and
+ * retried route writes do not format the event again.
+ * </p>
  * 
  * @see EventSink
  * @see TrackingEvent
@@ -54,6 +61,7 @@ public class SinkLogEvent extends EventObject implements TTL {
 	private long ttl;
 	private long startTimeNanos =  System.nanoTime();
 	private long stopTimeNanos = 0;
+	private transient volatile Rendered rendered = null;
 
 	/**
 	 * Create a new log event instance designed as a signal
@@ -68,6 +76,7 @@ public class SinkLogEvent extends EventObject implements TTL {
 	public SinkLogEvent(EventSink sink, Thread th, int signalType) {
 		super(sink);
 		logObj = th;
+		this.signalType = signalType;
 	}
 
 	/**
@@ -232,6 +241,65 @@ public class SinkLogEvent extends EventObject implements TTL {
 		return snapshot;
 	}
 
+	/**
+	 * Obtain event payload rendered by a given formatter. The payload is
+	 * rendered on first request and cached for subsequent requests with
+	 * the same formatter instance.
+	 *
+	 * @param frm event formatter
+	 * @return formatted event payload
+	 */
+	public String getFormatted(EventFormatter frm) {
+		return getRendered(frm).text;
+	}
+
+	private Rendered getRendered(EventFormatter frm) {
+		Rendered entry = find(rendered, frm);
+		if (entry != null) return entry;
+
+		// format outside of the lock so that routes using other formatters are not serialized,
+		// concurrent requests with the same formatter may format more than once, first one is kept
+		String text = render(frm);
+		synchronized (this) {
+			entry = find(rendered, frm);
+			if (entry == null) {
+				entry = rendered = new Rendered(frm, text, rendered);
+			}
+			return entry;
+		}
+	}
+
+	private static Rendered find(Rendered head, EventFormatter frm) {
+		for (Rendered entry = head; entry != null; entry = entry.next) {
+			if (entry.formatter == frm) return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Render event payload using a given formatter. Objects other than tracking
+	 * events, activities and snapshots are rendered as log messages.
+	 *
+	 * @param frm event formatter
+	 * @return formatted event payload
+	 */
+	protected String render(EventFormatter frm) {
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			if (logObj instanceof TrackingEvent) {
+				return frm.format((TrackingEvent) logObj);
+			} else if (logObj instanceof TrackingActivity) {
+				return frm.format((TrackingActivity) logObj);
+			} else if (logObj instanceof Snapshot) {
+				return frm.format((Snapshot) logObj);
+			} else {
+				return frm.format(ttl, evSrc, level, String.valueOf(logObj), argList);
+			}
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+	}
+
 	/**
 	 * This method is called when event processing is complete and
 	 * service time is calculated.
@@ -273,4 +341,16 @@ public class SinkLogEvent extends EventObject implements TTL {
     public void setTTL(long ttl) {
 		this.ttl = ttl;
 	}
+
+	private static class Rendered {
+		final EventFormatter formatter;
+		final Rendered next;
+		final String text;
+
+		Rendered(EventFormatter frm, String txt, Rendered nextEntry) {
+			formatter = frm;
+			text = txt;
+			next = nextEntry;
+		}
+	}
 }
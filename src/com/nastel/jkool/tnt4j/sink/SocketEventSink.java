@@ -17,6 +17,7 @@ package com.nastel.jkool.tnt4j.sink;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 
 import com.nastel.jkool.tnt4j.core.OpLevel;
@@ -25,12 +26,17 @@ import com.nastel.jkool.tnt4j.format.EventFormatter;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.tracker.TrackingActivity;
 import com.nastel.jkool.tnt4j.tracker.TrackingEvent;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
  * <p>
  * This class implements {@link EventSink} with socket as  the underlying
- * sink implementation.
+ * sink implementation. Connections are established with a timeout of
+ * {@code tnt4j.socket.connect.timeout.ms} (default 5000) milliseconds. A lost connection
+ * is re-established on the next write; after a failed attempt further attempts are
+ * refused for a backoff period doubling from {@code tnt4j.socket.reconnect.min.ms}
+ * (default 100) up to {@code tnt4j.socket.reconnect.max.ms} (default 30000) milliseconds.
  * </p>
  * 
  * 
@@ -43,11 +49,16 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  * @see EventFormatter
  */
 public class SocketEventSink extends AbstractEventSink {
+	private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("tnt4j.socket.connect.timeout.ms", 5000);
+	private static final long RECONNECT_MIN_MS = Long.getLong("tnt4j.socket.reconnect.min.ms", 100);
+	private static final long RECONNECT_MAX_MS = Long.getLong("tnt4j.socket.reconnect.max.ms", 30000);
+
 	private Socket socketSink = null;
 	private DataOutputStream outStream = null;
 	private EventSink logSink = null;
 	private String hostName = "localhost";
 	private int portNo = 6400;
+	private long backoffMs = 0, nextConnectTime = 0;
 
 	/**
 	 * Create a socket event sink based on a given host, port and formatter.
@@ -71,7 +82,14 @@ public class SocketEventSink extends AbstractEventSink {
 		if (logSink != null) {
 			logSink.log(activity);
 		}
-		writeLine(getEventFormatter().format(activity));
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(activity);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		writeLine(line);
 	}
 
 	@Override
@@ -79,7 +97,14 @@ public class SocketEventSink extends AbstractEventSink {
 		if (logSink != null) {
 			logSink.log(event);
 		}
-		writeLine(getEventFormatter().format(event));
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(event);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		writeLine(line);
 	}
 
 	@Override
@@ -87,7 +112,14 @@ public class SocketEventSink extends AbstractEventSink {
 		if (logSink != null) {
 			logSink.log(snapshot);
 		}
-		writeLine(getEventFormatter().format(snapshot));		
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(snapshot);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		writeLine(line);
 	}
 	
 	@Override
@@ -95,13 +127,27 @@ public class SocketEventSink extends AbstractEventSink {
 		if (logSink != null) {
 			logSink.log(ttl, src, sev, msg, args);
 		}
-		writeLine(getEventFormatter().format(ttl, src, sev, msg, args));
+		String line;
+		long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+		try {
+			line = getEventFormatter().format(ttl, src, sev, msg, args);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+		}
+		writeLine(line);
 	}
 
 	@Override
 	protected void _write(Object msg, Object...args) throws IOException {
 		if (isOpen()) {
-			writeLine(getEventFormatter().format(msg, args));
+			String line;
+			long stage = StageTimer.start(StageTimer.STAGE_FORMAT);
+			try {
+				line = getEventFormatter().format(msg, args);
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_FORMAT, stage);
+			}
+			writeLine(line);
 		}
 	}
 
@@ -117,8 +163,7 @@ public class SocketEventSink extends AbstractEventSink {
 
 	@Override
 	public synchronized void open() throws IOException {
-		socketSink = new Socket(hostName, portNo);
-		outStream = new DataOutputStream(socketSink.getOutputStream());
+		connect();
 		if (logSink != null) {
 			logSink.open();
 		}
@@ -127,6 +172,7 @@ public class SocketEventSink extends AbstractEventSink {
 	@Override
 	public void flush() throws IOException {
 		if (isOpen()) {
+			_flushSummary();
 			outStream.flush();
 		}
 	}
@@ -135,6 +181,7 @@ public class SocketEventSink extends AbstractEventSink {
 	public synchronized void close() throws IOException {
 		try {
 			if (isOpen()) {
+				_flushSummary();
 				Utils.close(logSink);
 				outStream.close();
 				socketSink.close();
@@ -142,6 +189,7 @@ public class SocketEventSink extends AbstractEventSink {
 		} finally {
 			outStream = null;
 			socketSink = null;
+			backoffMs = nextConnectTime = 0;
 		}
 	}	
 	
@@ -159,10 +207,43 @@ public class SocketEventSink extends AbstractEventSink {
 	private synchronized void writeLine(String msg) throws IOException {
 		String lineMsg = msg.endsWith("\n")? msg: msg + "\n";
 		byte [] bytes = lineMsg.getBytes();
+		if (outStream != null) {
+			try {
+				outStream.write(bytes, 0, bytes.length);
+				outStream.flush();
+				return;
+			} catch (IOException e) {
+				// connection lost: reconnect once and resend already encoded bytes
+				Utils.close(outStream);
+				Utils.close(socketSink);
+				outStream = null;
+				socketSink = null;
+			}
+		}
+		connect();
 		outStream.write(bytes, 0, bytes.length);
 		outStream.flush();
 	}
 
+	private void connect() throws IOException {
+		long now = System.currentTimeMillis();
+		if (now < nextConnectTime) {
+			throw new IOException("Reconnect backoff: " + hostName + ":" + portNo + ", retry.in.ms=" + (nextConnectTime - now));
+		}
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(hostName, portNo), CONNECT_TIMEOUT_MS);
+			outStream = new DataOutputStream(socket.getOutputStream());
+		} catch (IOException e) {
+			Utils.close(socket);
+			backoffMs = backoffMs == 0? RECONNECT_MIN_MS: Math.min(backoffMs * 2, RECONNECT_MAX_MS);
+			nextConnectTime = now + backoffMs;
+			throw e;
+		}
+		socketSink = socket;
+		backoffMs = nextConnectTime = 0;
+	}
+
 	@Override
     public boolean isSet(OpLevel sev) {
 	    return logSink != null? logSink.isSet(sev): true;
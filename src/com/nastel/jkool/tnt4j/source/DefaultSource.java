@@ -15,6 +15,8 @@
  */
 package com.nastel.jkool.tnt4j.source;
 
+import org.apache.commons.lang3.StringEscapeUtils;
+
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 /**
@@ -22,6 +24,11 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  * Implements Source entity -- container of other sources. Each one identifies a specific entity such as an application,
  * server, device etc.
  * </p>
+ * <p>
+ * Fully qualified name and its JSON rendering are computed once and cached.
+ * Cache is invalidated when this source is modified or when the fully qualified name
+ * of the parent source changes.
+ * </p>
  * 
  * 
  * @version $Revision: 3 $
@@ -34,6 +41,7 @@ public class DefaultSource implements Source {
 	private Source parentSource;
 	private SourceType sourceType;
 	private SourceFactory factory;
+	private volatile Rendering rendering;
 
 	/**
 	 * Creates an Source object with the specified properties.
@@ -62,18 +70,51 @@ public class DefaultSource implements Source {
 
 	@Override
 	public String getFQName() {
-		StringBuilder buff = new StringBuilder(128);
-		return getFQName(buff).toString();
+		return getRendering().fqName;
 	}
 
 	@Override
     public StringBuilder getFQName(StringBuilder buff) {
-		buff.append(sourceType).append("=").append(sname);
-		if (parentSource != null) {
-			buff.append("#");
-			parentSource.getFQName(buff);
+		return buff.append(getFQName());
+	}
+
+	/**
+	 * Gets the fully qualified name rendered as a JSON string value (quoted and escaped)
+	 * 
+	 * @return fully qualified name as JSON string value
+	 */
+	public String getFQNameJson() {
+		return getRendering().fqNameJson;
+	}
+
+	/**
+	 * Gets the source factory SSN rendered as a JSON string value (quoted and escaped)
+	 * 
+	 * @return SSN as JSON string value, null if SSN is not set
+	 */
+	public String getSSNJson() {
+		return getRendering().ssnJson;
+	}
+
+	/**
+	 * Obtain cached renderings of this source, rebuilding them if
+	 * this source, its parent or factory SSN changed.
+	 * 
+	 * @return cached renderings
+	 */
+	private Rendering getRendering() {
+		Rendering current = rendering;
+		String parentFqn = parentSource != null? parentSource.getFQName(): null;
+		String ssn = factory != null? factory.getSSN(): null;
+		if (current == null || !same(current.parentFqn, parentFqn) || !same(current.ssn, ssn)) {
+			current = new Rendering(this, parentFqn, ssn);
+			rendering = current;
 		}
-		return buff;
+		return current;
+	}
+
+	private static boolean same(String s1, String s2) {
+		return s1 == s2 || (s1 != null && s1.equals(s2));
 	}
 
 	/**
@@ -84,6 +125,7 @@ public class DefaultSource implements Source {
 	 */
 	public void setName(String name) {
 		this.sname = name;
+		this.rendering = null;
 	}
 
 	@Override
@@ -108,6 +150,7 @@ public class DefaultSource implements Source {
 	 */
 	public Source setSource(Source parent) {
 		this.parentSource = parent;
+		this.rendering = null;
 		return this;
 	}
 
@@ -129,6 +172,16 @@ public class DefaultSource implements Source {
 	@Override
 	public void setUrl(String url) {
 		this.url = url;
+		this.rendering = null;
+	}
+
+	/**
+	 * Gets the URL rendered as a JSON string value (quoted and escaped)
+	 * 
+	 * @return URL as JSON string value, null if URL is not set
+	 */
+	public String getUrlJson() {
+		return getRendering().urlJson;
 	}
 
 	@Override
@@ -155,6 +208,7 @@ public class DefaultSource implements Source {
 	 */
 	protected void setType(SourceType type) {
 		sourceType = type;
+		rendering = null;
 	}
 
 	/**
@@ -227,4 +281,30 @@ public class DefaultSource implements Source {
 	public SourceFactory getSourceFactory() {
 		return factory;
 	}
+
+	/**
+	 * Immutable set of renderings computed for a given state of source and its parent
+	 */
+	private static class Rendering {
+		final String parentFqn;
+		final String fqName;
+		final String fqNameJson;
+		final String urlJson;
+		final String ssn;
+		final String ssnJson;
+
+		Rendering(DefaultSource src, String parentFqn, String ssn) {
+			this.parentFqn = parentFqn;
+			this.ssn = ssn;
+			StringBuilder buff = new StringBuilder(128);
+			buff.append(src.sourceType).append("=").append(src.sname);
+			if (parentFqn != null) {
+				buff.append("#").append(parentFqn);
+			}
+			fqName = buff.toString();
+			fqNameJson = Utils.quote(StringEscapeUtils.escapeJson(fqName));
+			urlJson = src.url != null? Utils.quote(StringEscapeUtils.escapeJson(src.url)): null;
+			ssnJson = !Utils.isEmpty(ssn)? Utils.quote(StringEscapeUtils.escapeJson(ssn)): null;
+		}
+	}
 }
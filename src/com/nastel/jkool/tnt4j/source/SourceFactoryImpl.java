@@ -17,6 +17,7 @@ package com.nastel.jkool.tnt4j.source;
 
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.nastel.jkool.tnt4j.config.Configurable;
 import com.nastel.jkool.tnt4j.utils.Utils;
@@ -34,9 +35,14 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  *  source.factory.DEVICE: HPPRO
  *  source.factory.PROCESS: $java.process
  *  source.factory.RootFQN: PROCESS=?#RUNTIME=?#SERVER=?#NETADDR=?#DATACENTER=?#GEOADDR=?	
+ *  source.factory.Intern: false
  * }
  * </pre>
  * 
+ * When <code>Intern</code> is set to true (or {@code tnt4j.source.intern=true}), sources created by this factory
+ * are interned, so that identical sources share one instance along with its cached renderings. Interning is off
+ * by default, since sources are mutable: enable it only when sources obtained from the factory are never modified.
+ * 
  * @version $Revision: 1 $
  * 
  */
@@ -48,6 +54,7 @@ public class SourceFactoryImpl implements SourceFactory, Configurable {
 	private final static String TNT4J_SOURCE_PFIX = "tnt4j.source.";	
 	private final static String USER_NAME_KEY = "user.name";	
 	private final static String [] DEFAULT_SOURCES;
+	private final static int MAX_INTERNED = Integer.getInteger("tnt4j.source.intern.size", 1024);
 	
 	static {
 		int i = 0;
@@ -83,6 +90,8 @@ public class SourceFactoryImpl implements SourceFactory, Configurable {
 	private String rootSSN = DEFAULT_SOURCE_ROOT_SSN;
 	private String [] defaultSources = DEFAULT_SOURCES.clone();
 	private Source rootSource = null;
+	private boolean intern = Boolean.getBoolean("tnt4j.source.intern");
+	private final ConcurrentHashMap<String, Source> interned = new ConcurrentHashMap<String, Source>();
 
 	public SourceFactoryImpl() {
 		rootSource = newFromFQN(rootFqn);
@@ -127,7 +136,7 @@ public class SourceFactoryImpl implements SourceFactory, Configurable {
     public Source newSource(String name, SourceType tp, Source parent, String user) {
 		DefaultSource src =  new DefaultSource(this, getNameFromType(name, tp), tp, parent, user);
 		src.setSSN(getSSN());
-		return src;
+		return intern(src);
     }
 
 	@Override
@@ -140,9 +149,31 @@ public class SourceFactoryImpl implements SourceFactory, Configurable {
 	    return config;
     }
 
+	/**
+	 * Obtain a shared instance of a source identical to a given one
+	 * (same fully qualified name, user, SSN and URL). A given source becomes
+	 * the shared instance if none exists yet.
+	 * 
+	 * @param src source to intern
+	 * @return shared source instance, or given source if interning is disabled or registry is full
+	 */
+	public Source intern(Source src) {
+		if (!intern || src == null) return src;
+		String key = src.getFQName() + "\u0000" + src.getUser() + "\u0000" + src.getSSN() + "\u0000" + src.getUrl();
+		Source shared = interned.get(key);
+		if (shared != null) return shared;
+		if (interned.size() >= MAX_INTERNED) return src;
+		shared = interned.putIfAbsent(key, src);
+		return shared != null? shared: src;
+	}
+
 	@Override
     public void setConfiguration(Map<String, Object> settings) {
 		config = settings;
+		interned.clear();
+		if (config.get("Intern") != null) {
+			intern = Boolean.valueOf(config.get("Intern").toString());
+		}
 		
 		// initialize source types for this factory
 		for (SourceType type: SourceType.values()) {
@@ -236,6 +267,6 @@ public class SourceFactoryImpl implements SourceFactory, Configurable {
 		if (child != null) {
 			child.setSource(parent);
 		}
-		return root;		
+		return intern(root);		
 	}
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.tracker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This class implements a time tracker for a set of keys backed by open addressing
+ * tables of primitive counters. For each key the tracker maintains hit count, time of last hit
+ * and minimum, maximum and average interval between hits. Hits on tracked keys do not allocate.
+ * The table is split into independently locked stripes
+ * ({@code tnt4j.time.tracker.stripes}, default 16).
+ * <p>
+ * Capacity is fixed: when a stripe is full, a new key replaces the least recently
+ * hit key found on its probe sequence, so frequently hit keys are retained under high key
+ * cardinality. Hot keys reported by {@link #getHotKeys(int)} are therefore approximate: counts
+ * of evicted keys are lost.
+ * </p>
+ *
+ * @see TimeTracker
+ * @version $Revision: 1$
+ */
+public class HitTimeTracker {
+	public static final int DEFAULT_STRIPES = Integer.getInteger("tnt4j.time.tracker.stripes", 16);
+
+	private static final int MAX_PROBES = 16;
+
+	private final Stripe[] stripes;
+	private final int stripeShift, capacity;
+
+	/**
+	 * Create a time tracker with specified capacity and default
+	 * number of stripes
+	 *
+	 * @param capacity maximum number of tracked keys
+	 */
+	public HitTimeTracker(int capacity) {
+		this(capacity, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Create a time tracker with specified capacity and number of stripes
+	 *
+	 * @param capacity maximum number of tracked keys
+	 * @param concurrency number of independently locked stripes (rounded up to a power of 2)
+	 */
+	public HitTimeTracker(int capacity, int concurrency) {
+		int count = powerOf2(Math.max(1, concurrency));
+		int perStripe = Math.max(1, (capacity + count - 1) / count);
+		stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe(perStripe);
+		}
+		stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+		this.capacity = perStripe * count;
+	}
+
+	/**
+	 * Hit and obtain elapsed nanoseconds since last hit
+	 *
+	 * @param key timer key
+	 * @return elapsed nanoseconds since last hit, 0 on first hit
+	 */
+	public long hitAndGet(String key) {
+		int hash = spread(key.hashCode());
+		return stripeFor(hash).hit(key, hash, System.nanoTime());
+	}
+
+	/**
+	 * Obtain hit count for a specific key
+	 *
+	 * @param key timer key
+	 * @return hit count for a specific key, 0 if not tracked
+	 */
+	public long getHitCount(String key) {
+		return get(key, Stripe.HITS);
+	}
+
+	/**
+	 * Obtain elapsed nanoseconds since last hit for a specific key
+	 *
+	 * @param key timer key
+	 * @return elapsed nanoseconds since last hit, 0 if not tracked
+	 */
+	public long getElapsedNanos(String key) {
+		return get(key, Stripe.AGE);
+	}
+
+	/**
+	 * Obtain minimum interval between hits for a specific key
+	 *
+	 * @param key timer key
+	 * @return minimum interval in nanoseconds, 0 if less than 2 hits
+	 */
+	public long getMinNanos(String key) {
+		return get(key, Stripe.MIN);
+	}
+
+	/**
+	 * Obtain maximum interval between hits for a specific key
+	 *
+	 * @param key timer key
+	 * @return maximum interval in nanoseconds, 0 if less than 2 hits
+	 */
+	public long getMaxNanos(String key) {
+		return get(key, Stripe.MAX);
+	}
+
+	/**
+	 * Obtain average interval between hits for a specific key
+	 *
+	 * @param key timer key
+	 * @return average interval in nanoseconds, 0 if less than 2 hits
+	 */
+	public long getAvgNanos(String key) {
+		return get(key, Stripe.AVG);
+	}
+
+	/**
+	 * Number of tracked keys
+	 *
+	 * @return number of tracked keys
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Maximum number of tracked keys
+	 *
+	 * @return maximum number of tracked keys
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Number of keys evicted to make room for new keys
+	 *
+	 * @return number of evicted keys
+	 */
+	public long getEvictionCount() {
+		long count = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				count += stripe.evictions;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Obtain keys with highest hit counts
+	 *
+	 * @param count maximum number of keys
+	 * @return map of keys and hit counts, sorted by hit count
+	 */
+	public Map<String, Long> getHotKeys(int count) {
+		PriorityQueue<HotKey> top = new PriorityQueue<HotKey>(Math.max(1, count));
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				for (int i = 0; i < stripe.keys.length; i++) {
+					if (stripe.keys[i] == null) continue;
+					long hits = stripe.hits[i];
+					if (top.size() < count) {
+						top.add(new HotKey(stripe.keys[i], hits));
+					} else if (count > 0 && top.peek().hits < hits) {
+						top.poll();
+						top.add(new HotKey(stripe.keys[i], hits));
+					}
+				}
+			}
+		}
+		List<HotKey> list = new ArrayList<HotKey>(top.size());
+		while (!top.isEmpty()) {
+			list.add(top.poll());
+		}
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (int i = list.size() - 1; i >= 0; i--) {
+			result.put(list.get(i).key, list.get(i).hits);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove all tracked keys
+	 */
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	private long get(String key, int field) {
+		int hash = spread(key.hashCode());
+		return stripeFor(hash).get(key, hash, field);
+	}
+
+	private Stripe stripeFor(int hash) {
+		return stripeShift == 32? stripes[0]: stripes[hash >>> stripeShift];
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int powerOf2(int n) {
+		int p = Integer.highestOneBit(n);
+		return p == n? n: p << 1;
+	}
+
+	private static class HotKey implements Comparable<HotKey> {
+		final String key;
+		final long hits;
+
+		HotKey(String key, long hits) {
+			this.key = key;
+			this.hits = hits;
+		}
+
+		@Override
+		public int compareTo(HotKey other) {
+			return hits < other.hits? -1: (hits == other.hits? 0: 1);
+		}
+	}
+
+	private static class Stripe {
+		static final int HITS = 0, AGE = 1, MIN = 2, MAX = 3, AVG = 4;
+
+		final int maxSize, mask;
+		final String[] keys;
+		final long[] hits, last, min, max, sum;
+		int size = 0, hand = 0;
+		long evictions = 0;
+
+		Stripe(int maxSize) {
+			// keep load factor at or below 0.5 so probe sequences stay short
+			int length = powerOf2(maxSize * 2);
+			this.maxSize = maxSize;
+			this.mask = length - 1;
+			keys = new String[length];
+			hits = new long[length];
+			last = new long[length];
+			min = new long[length];
+			max = new long[length];
+			sum = new long[length];
+		}
+
+		synchronized long hit(String key, int hash, long now) {
+			int i = hash & mask, oldest = -1;
+			for (int probe = 0; keys[i] != null; probe++, i = (i + 1) & mask) {
+				String k = keys[i];
+				if (k == key || (k.hashCode() == key.hashCode() && k.equals(key))) {
+					long interval = Math.max(0, now - last[i]);
+					last[i] = now;
+					hits[i]++;
+					sum[i] += interval;
+					if (hits[i] == 2 || interval < min[i]) min[i] = interval;
+					if (interval > max[i]) max[i] = interval;
+					return interval;
+				}
+				if (probe < MAX_PROBES && (oldest < 0 || last[i] < last[oldest])) {
+					oldest = i;
+				}
+			}
+			if (size >= maxSize) {
+				// stripe is full: evict least recently hit key on the probe sequence
+				remove(oldest >= 0? oldest: nextVictim());
+				evictions++;
+				for (i = hash & mask; keys[i] != null; i = (i + 1) & mask);
+			}
+			keys[i] = key;
+			size++;
+			return reset(i, now);
+		}
+
+		private int nextVictim() {
+			while (keys[hand] == null) {
+				hand = (hand + 1) & mask;
+			}
+			return hand;
+		}
+
+		private void remove(int i) {
+			keys[i] = null;
+			size--;
+			// shift back following entries of the cluster so probe sequences stay intact
+			for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+				int home = spread(keys[j].hashCode()) & mask;
+				boolean movable = (i <= j)? (home <= i || home > j): (home <= i && home > j);
+				if (movable) {
+					keys[i] = keys[j];
+					hits[i] = hits[j];
+					last[i] = last[j];
+					min[i] = min[j];
+					max[i] = max[j];
+					sum[i] = sum[j];
+					keys[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		private long reset(int i, long now) {
+			hits[i] = 1;
+			last[i] = now;
+			min[i] = max[i] = sum[i] = 0;
+			return 0;
+		}
+
+		synchronized long get(String key, int hash, int field) {
+			for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+				String k = keys[i];
+				if (k == key || k.equals(key)) {
+					switch (field) {
+					case HITS:
+						return hits[i];
+					case AGE:
+						return System.nanoTime() - last[i];
+					case MIN:
+						return min[i];
+					case MAX:
+						return max[i];
+					default:
+						return hits[i] > 1? sum[i] / (hits[i] - 1): 0;
+					}
+				}
+			}
+			return 0;
+		}
+
+		void clear() {
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = null;
+			}
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.tracker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.nastel.jkool.tnt4j.core.KeyValueStats;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.Snapshot;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+import com.nastel.jkool.tnt4j.utils.LatencyHistogram;
+import com.nastel.jkool.tnt4j.utils.Utils;
+
+/**
+ * This class maintains latency histograms per operation name. Each operation keeps
+ * a histogram of the current interval and a cumulative histogram since last reset.
+ * Intervals are rotated by the first recording after the interval expires
+ * ({@code tnt4j.latency.interval.ms}, default 60000) or by calling {@link #rotate()}.
+ * Percentiles of each completed interval are reported as snapshots (category "Latency")
+ * when a reporting tracker is given; snapshots are logged by the thread completing the interval.
+ * Cumulative percentiles are available via {@link #getStats()}.
+ * Number of tracked operation names is bounded ({@code tnt4j.latency.max.operations},
+ * default 256), recordings of other operations are counted under {@link #OTHER_OPERATION}.
+ *
+ * @see LatencyHistogram
+ * @version $Revision: 1 $
+ */
+public class LatencyTracker implements KeyValueStats {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(LatencyTracker.class);
+
+	public static final long DEFAULT_INTERVAL_MS = Long.getLong("tnt4j.latency.interval.ms", 60000);
+	public static final int DEFAULT_MAX_OPERATIONS = Integer.getInteger("tnt4j.latency.max.operations", 256);
+	public static final boolean DEFAULT_REPORT = Boolean.getBoolean("tnt4j.latency.report");
+	public static final String SNAPSHOT_CATEGORY = "Latency";
+	public static final String OTHER_OPERATION = "$other";
+
+	static final String KEY_COUNT = "latency-count";
+	static final String KEY_P50_USEC = "latency-p50-usec";
+	static final String KEY_P90_USEC = "latency-p90-usec";
+	static final String KEY_P99_USEC = "latency-p99-usec";
+	static final String KEY_P999_USEC = "latency-p999-usec";
+	static final String KEY_MAX_USEC = "latency-max-usec";
+
+	private final String name;
+	private final Tracker reporter;
+	private final long intervalNanos;
+	private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+	private final ConcurrentMap<String, OpLatency> operations = new ConcurrentHashMap<String, OpLatency>();
+
+	/**
+	 * Create latency tracker with default interval and no snapshot reporting
+	 *
+	 * @param name latency tracker name, used to qualify statistics keys
+	 */
+	public LatencyTracker(String name) {
+		this(name, null, DEFAULT_INTERVAL_MS);
+	}
+
+	/**
+	 * Create latency tracker
+	 *
+	 * @param name latency tracker name, used to qualify statistics keys
+	 * @param reporter tracker where interval snapshots are reported (may be null)
+	 * @param intervalMs interval duration in milliseconds, 0 to rotate only on demand
+	 */
+	public LatencyTracker(String name, Tracker reporter, long intervalMs) {
+		this.name = name;
+		this.reporter = reporter;
+		this.intervalNanos = intervalMs * 1000000L;
+	}
+
+	/**
+	 * Obtain latency tracker name
+	 *
+	 * @return latency tracker name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Record latency of a given operation
+	 *
+	 * @param operation operation name
+	 * @param elapsedNanos operation latency in nanoseconds
+	 */
+	public void record(String operation, long elapsedNanos) {
+		if (operation == null) operation = OTHER_OPERATION;
+		OpLatency latency = operations.get(operation);
+		if (latency == null) {
+			latency = newLatency(operation);
+		}
+		latency.current.get().record(elapsedNanos);
+		latency.total.record(elapsedNanos);
+		if (intervalNanos > 0) {
+			long start = intervalStart.get();
+			long now = System.nanoTime();
+			if ((now - start) >= intervalNanos && intervalStart.compareAndSet(start, now)) {
+				rotateAndReport();
+			}
+		}
+	}
+
+	/**
+	 * Complete current interval and report interval snapshots
+	 */
+	public void rotate() {
+		intervalStart.set(System.nanoTime());
+		rotateAndReport();
+	}
+
+	/**
+	 * Obtain latency histograms of the last completed interval
+	 *
+	 * @return map of operation names and interval histograms
+	 */
+	public Map<String, LatencyHistogram> getIntervalHistograms() {
+		Map<String, LatencyHistogram> result = new LinkedHashMap<String, LatencyHistogram>();
+		for (Map.Entry<String, OpLatency> entry : operations.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().last);
+		}
+		return result;
+	}
+
+	/**
+	 * Obtain cumulative latency histograms since last reset
+	 *
+	 * @return map of operation names and cumulative histograms
+	 */
+	public Map<String, LatencyHistogram> getHistograms() {
+		Map<String, LatencyHistogram> result = new LinkedHashMap<String, LatencyHistogram>();
+		for (Map.Entry<String, OpLatency> entry : operations.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().total);
+		}
+		return result;
+	}
+
+	/**
+	 * Create a snapshot with percentiles of a given histogram
+	 *
+	 * @param tracker tracker instance used to create the snapshot
+	 * @param operation operation name (snapshot name)
+	 * @param histogram latency histogram
+	 * @return new snapshot instance
+	 */
+	public static Snapshot newSnapshot(Tracker tracker, String operation, LatencyHistogram histogram) {
+		Snapshot snapshot = tracker.newSnapshot(SNAPSHOT_CATEGORY, operation, OpLevel.INFO);
+		snapshot.add(KEY_COUNT, histogram.getCount());
+		snapshot.add(KEY_P50_USEC, histogram.getValueAtPercentile(50) / 1000);
+		snapshot.add(KEY_P90_USEC, histogram.getValueAtPercentile(90) / 1000);
+		snapshot.add(KEY_P99_USEC, histogram.getValueAtPercentile(99) / 1000);
+		snapshot.add(KEY_P999_USEC, histogram.getValueAtPercentile(99.9) / 1000);
+		snapshot.add(KEY_MAX_USEC, histogram.getMax() / 1000);
+		return snapshot;
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		getStats(stats);
+		return stats;
+	}
+
+	@Override
+	public KeyValueStats getStats(Map<String, Object> stats) {
+		for (Map.Entry<String, OpLatency> entry : operations.entrySet()) {
+			String pfix = name + "/" + entry.getKey();
+			LatencyHistogram histogram = entry.getValue().total;
+			stats.put(Utils.qualify(this, pfix, KEY_COUNT), histogram.getCount());
+			stats.put(Utils.qualify(this, pfix, KEY_P50_USEC), histogram.getValueAtPercentile(50) / 1000);
+			stats.put(Utils.qualify(this, pfix, KEY_P90_USEC), histogram.getValueAtPercentile(90) / 1000);
+			stats.put(Utils.qualify(this, pfix, KEY_P99_USEC), histogram.getValueAtPercentile(99) / 1000);
+			stats.put(Utils.qualify(this, pfix, KEY_P999_USEC), histogram.getValueAtPercentile(99.9) / 1000);
+			stats.put(Utils.qualify(this, pfix, KEY_MAX_USEC), histogram.getMax() / 1000);
+		}
+		return this;
+	}
+
+	@Override
+	public void resetStats() {
+		operations.clear();
+		intervalStart.set(System.nanoTime());
+	}
+
+	private OpLatency newLatency(String operation) {
+		if (operations.size() >= DEFAULT_MAX_OPERATIONS) {
+			operation = OTHER_OPERATION;
+			OpLatency latency = operations.get(operation);
+			if (latency != null) return latency;
+		}
+		OpLatency latency = new OpLatency();
+		OpLatency prev = operations.putIfAbsent(operation, latency);
+		return prev != null? prev: latency;
+	}
+
+	private void rotateAndReport() {
+		for (Map.Entry<String, OpLatency> entry : operations.entrySet()) {
+			OpLatency latency = entry.getValue();
+			latency.last = latency.current.getAndSet(new LatencyHistogram());
+			if (reporter != null && latency.last.getCount() > 0) {
+				try {
+					reporter.tnt(newSnapshot(reporter, entry.getKey(), latency.last));
+				} catch (Throwable ex) {
+					logger.log(OpLevel.ERROR, "Failed to report latency: name={0}, operation={1}", name, entry.getKey(), ex);
+				}
+			}
+		}
+	}
+
+	private static class OpLatency {
+		final AtomicReference<LatencyHistogram> current = new AtomicReference<LatencyHistogram>(new LatencyHistogram());
+		final LatencyHistogram total = new LatencyHistogram();
+		volatile LatencyHistogram last = new LatencyHistogram();
+	}
+}
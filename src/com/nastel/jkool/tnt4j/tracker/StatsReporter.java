@@ -0,0 +1,358 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.tracker;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.nastel.jkool.tnt4j.TrackingLogger;
+import com.nastel.jkool.tnt4j.core.KeyValueStats;
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.core.PropertySnapshot;
+import com.nastel.jkool.tnt4j.core.ValueTypes;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+
+/**
+ * This class implements a periodic reporter of {@link KeyValueStats} statistics.
+ * Every period ({@code tnt4j.stats.report.period.ms}, default 60000) the reporter
+ * walks all trackers ({@code TrackingLogger.getAllTrackers()}, including their sinks and
+ * pooled loggers) and any additional statistics sources, computes per interval deltas
+ * and rates of counters and logs them as snapshots (category "Stats") with
+ * {@link ValueTypes#VALUE_TYPE_COUNTER}, {@link ValueTypes#VALUE_TYPE_RATE_SEC}
+ * and {@link ValueTypes#VALUE_TYPE_GAUGE} value types to a given event sink.
+ * State of each statistics key is kept between intervals, so only new keys allocate.
+ * <p>
+ * When enabled the reporter is also registered as a platform MXBean
+ * ({@code com.nastel.jkool.tnt4j:type=StatsReporter,name=...}), which exposes the
+ * same data as the reported snapshots.
+ * </p>
+ *
+ * @see StatsReporterMXBean
+ * @see KeyValueStats
+ * @version $Revision: 1 $
+ */
+public class StatsReporter implements StatsReporterMXBean, Runnable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(StatsReporter.class);
+
+	public static final long DEFAULT_PERIOD_MS = Long.getLong("tnt4j.stats.report.period.ms", 60000);
+	public static final String SNAPSHOT_CATEGORY = "Stats";
+	public static final String KEY_RATE_SUFFIX = "/rate";
+
+	private static final String[] COUNTER_SUFFIXES = { "-activities", "-events", "-messages", "-snapshots",
+	        "-started", "-stopped", "-noops", "-errors", "-exceptions", "-signals", "-dropped", "-skipped",
+	        "-logged", "-written", "-retries", "-queued", "-failures", "-writes", "-count" };
+
+	private final String name;
+	private final long periodMs;
+	private final EventSink sink;
+	private final Map<String, KeyValueStats> sources = new LinkedHashMap<String, KeyValueStats>();
+	private final Map<KeyValueStats, Slot> slots = new WeakHashMap<KeyValueStats, Slot>();
+
+	private ScheduledThreadPoolExecutor scheduler;
+	private ObjectName objectName;
+	private long lastNanos = System.nanoTime(), reportCount = 0;
+
+	/**
+	 * Create a reporter with a given name and default period
+	 *
+	 * @param name reporter name
+	 * @param out event sink where snapshots are logged, null to expose data via JMX only
+	 */
+	public StatsReporter(String name, EventSink out) {
+		this(name, out, DEFAULT_PERIOD_MS);
+	}
+
+	/**
+	 * Create a reporter with a given name and period
+	 *
+	 * @param name reporter name
+	 * @param out event sink where snapshots are logged, null to expose data via JMX only
+	 * @param periodMs reporting period in milliseconds
+	 */
+	public StatsReporter(String name, EventSink out, long periodMs) {
+		this.name = name;
+		this.sink = out;
+		this.periodMs = Math.max(1, periodMs);
+	}
+
+	/**
+	 * Add a statistics source reported in addition to all trackers
+	 * (e.g. pooled loggers or sinks not associated with trackers)
+	 *
+	 * @param srcName source name (snapshot name)
+	 * @param stats statistics source
+	 * @return same reporter instance
+	 */
+	public synchronized StatsReporter addSource(String srcName, KeyValueStats stats) {
+		sources.put(srcName, stats);
+		return this;
+	}
+
+	/**
+	 * Remove a statistics source
+	 *
+	 * @param srcName source name
+	 * @return same reporter instance
+	 */
+	public synchronized StatsReporter removeSource(String srcName) {
+		KeyValueStats stats = sources.remove(srcName);
+		if (stats != null) slots.remove(stats);
+		return this;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getPeriodMs() {
+		return periodMs;
+	}
+
+	@Override
+	public synchronized boolean isEnabled() {
+		return scheduler != null;
+	}
+
+	@Override
+	public synchronized void setEnabled(boolean flag) {
+		if (flag && scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread task = new Thread(r, "StatsReporter(" + name + ")/report");
+					task.setDaemon(true);
+					return task;
+				}
+			});
+			scheduler.scheduleAtFixedRate(this, periodMs, periodMs, TimeUnit.MILLISECONDS);
+			registerMBean();
+		} else if (!flag && scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+			unregisterMBean();
+		}
+	}
+
+	@Override
+	public synchronized long getReportCount() {
+		return reportCount;
+	}
+
+	@Override
+	public synchronized Map<String, Long> getDeltas() {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		for (Slot slot : slots.values()) {
+			for (Map.Entry<String, Metric> entry : slot.metrics.entrySet()) {
+				Metric metric = entry.getValue();
+				if (metric.counter && metric.reported == reportCount) {
+					result.put(slot.name + "/" + entry.getKey(), metric.delta);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized Map<String, Double> getRates() {
+		Map<String, Double> result = new LinkedHashMap<String, Double>();
+		for (Slot slot : slots.values()) {
+			for (Map.Entry<String, Metric> entry : slot.metrics.entrySet()) {
+				Metric metric = entry.getValue();
+				if (metric.counter && metric.reported == reportCount) {
+					result.put(slot.name + "/" + entry.getKey(), metric.rate);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized Map<String, Double> getGauges() {
+		Map<String, Double> result = new LinkedHashMap<String, Double>();
+		for (Slot slot : slots.values()) {
+			for (Map.Entry<String, Metric> entry : slot.metrics.entrySet()) {
+				Metric metric = entry.getValue();
+				if (!metric.counter && metric.reported == reportCount) {
+					result.put(slot.name + "/" + entry.getKey(), metric.gauge);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void run() {
+		try {
+			report();
+		} catch (Throwable ex) {
+			logger.log(OpLevel.ERROR, "Failed to report stats: name={0}", name, ex);
+		}
+	}
+
+	@Override
+	public synchronized void report() {
+		long now = System.nanoTime();
+		double elapsedSec = Math.max(1, now - lastNanos) / 1000000000.0;
+		lastNanos = now;
+		reportCount++;
+		for (TrackingLogger lg : TrackingLogger.getAllTrackers()) {
+			report(lg, lg.getSource().getName(), lg, elapsedSec);
+		}
+		for (Map.Entry<String, KeyValueStats> entry : sources.entrySet()) {
+			report(entry.getValue(), entry.getKey(), null, elapsedSec);
+		}
+	}
+
+	/**
+	 * Determine if a given statistics key denotes a monotonic counter.
+	 * All other numeric values are treated as gauges.
+	 *
+	 * @param key statistics key
+	 * @return true if key is a counter, false if gauge
+	 */
+	protected boolean isCounter(String key) {
+		String last = key.substring(key.lastIndexOf('/') + 1);
+		if (last.contains("total-") || last.contains("overhead")) {
+			return true;
+		}
+		for (String suffix : COUNTER_SUFFIXES) {
+			if (last.endsWith(suffix)) return true;
+		}
+		return false;
+	}
+
+	private void report(KeyValueStats source, String srcName, Tracker tracker, double elapsedSec) {
+		Slot slot = slots.get(source);
+		if (slot == null) {
+			slot = new Slot(srcName);
+			slots.put(source, slot);
+		}
+		slot.stats.clear();
+		try {
+			source.getStats(slot.stats);
+		} catch (Throwable ex) {
+			logger.log(OpLevel.WARNING, "Failed to obtain stats: name={0}, source={1}", name, srcName, ex);
+			return;
+		}
+		PropertySnapshot snapshot = sink != null? new PropertySnapshot(SNAPSHOT_CATEGORY, srcName, OpLevel.INFO): null;
+		for (Map.Entry<String, Object> entry : slot.stats.entrySet()) {
+			if (!(entry.getValue() instanceof Number)) continue;
+			Number value = (Number) entry.getValue();
+			Metric metric = slot.metrics.get(entry.getKey());
+			if (metric == null) {
+				metric = new Metric(isCounter(entry.getKey()));
+				slot.metrics.put(entry.getKey(), metric);
+			}
+			if (metric.counter) {
+				long count = value.longValue();
+				boolean first = metric.reported == 0;
+				// counter was reset when it goes backwards
+				metric.delta = count >= metric.last? count - metric.last: count;
+				metric.rate = metric.delta / elapsedSec;
+				metric.last = count;
+				metric.reported = reportCount;
+				if (first) {
+					metric.reported = -1;
+					continue;
+				}
+				if (snapshot != null) {
+					snapshot.add(entry.getKey(), metric.delta, ValueTypes.VALUE_TYPE_COUNTER);
+					snapshot.add(entry.getKey() + KEY_RATE_SUFFIX, metric.rate, ValueTypes.VALUE_TYPE_RATE_SEC);
+				}
+			} else {
+				metric.gauge = value.doubleValue();
+				metric.reported = reportCount;
+				if (snapshot != null) {
+					snapshot.add(entry.getKey(), value, ValueTypes.VALUE_TYPE_GAUGE);
+				}
+			}
+		}
+		if (snapshot != null && snapshot.size() > 0) {
+			if (tracker != null) snapshot.setSource(tracker.getSource());
+			logSnapshot(snapshot);
+		}
+	}
+
+	private void logSnapshot(PropertySnapshot snapshot) {
+		try {
+			if (!sink.isOpen()) {
+				sink.open();
+			}
+			sink.log(snapshot);
+		} catch (Throwable ex) {
+			logger.log(OpLevel.ERROR, "Failed to log stats snapshot: name={0}, sink={1}", name, sink, ex);
+		}
+	}
+
+	private void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName("com.nastel.jkool.tnt4j:type=StatsReporter,name=" + ObjectName.quote(name));
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+			}
+		} catch (Throwable ex) {
+			objectName = null;
+			logger.log(OpLevel.WARNING, "Failed to register stats reporter mbean: name={0}", name, ex);
+		}
+	}
+
+	private void unregisterMBean() {
+		if (objectName == null) return;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Throwable ex) {
+			logger.log(OpLevel.WARNING, "Failed to unregister stats reporter mbean: name={0}", name, ex);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	private static class Slot {
+		final String name;
+		final Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		final Map<String, Metric> metrics = new HashMap<String, Metric>();
+
+		Slot(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class Metric {
+		final boolean counter;
+		long last, delta, reported;
+		double rate, gauge;
+
+		Metric(boolean counter) {
+			this.counter = counter;
+		}
+	}
+}
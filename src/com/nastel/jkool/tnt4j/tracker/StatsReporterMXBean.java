@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.tracker;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of {@link StatsReporter}. Exposes the deltas, rates
+ * and gauges computed during the last completed reporting interval. Keys are qualified
+ * by the name of the reported statistics source.
+ *
+ * @see StatsReporter
+ * @version $Revision: 1 $
+ */
+public interface StatsReporterMXBean {
+	/**
+	 * Obtain reporter name
+	 *
+	 * @return reporter name
+	 */
+	String getName();
+
+	/**
+	 * Obtain reporting period in milliseconds
+	 *
+	 * @return reporting period in milliseconds
+	 */
+	long getPeriodMs();
+
+	/**
+	 * Determine if periodic reporting is enabled
+	 *
+	 * @return true if enabled, false otherwise
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Enable or disable periodic reporting
+	 *
+	 * @param flag true to enable, false to disable
+	 */
+	void setEnabled(boolean flag);
+
+	/**
+	 * Obtain number of completed reporting intervals
+	 *
+	 * @return number of completed reporting intervals
+	 */
+	long getReportCount();
+
+	/**
+	 * Obtain counter deltas of the last interval
+	 *
+	 * @return map of counter keys and deltas
+	 */
+	Map<String, Long> getDeltas();
+
+	/**
+	 * Obtain counter rates per second of the last interval
+	 *
+	 * @return map of counter keys and rates per second
+	 */
+	Map<String, Double> getRates();
+
+	/**
+	 * Obtain gauge values at the end of the last interval
+	 *
+	 * @return map of gauge keys and values
+	 */
+	Map<String, Double> getGauges();
+
+	/**
+	 * Complete current interval and report immediately
+	 */
+	void report();
+}
@@ -21,9 +21,13 @@ import java.util.Collection;
 import java.util.EmptyStackException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.nastel.jkool.tnt4j.config.ConfigChangeListener;
 import com.nastel.jkool.tnt4j.config.TrackerConfig;
+import com.nastel.jkool.tnt4j.config.TrackerConfigStore;
 import com.nastel.jkool.tnt4j.core.Handle;
 import com.nastel.jkool.tnt4j.core.KeyValueStats;
 import com.nastel.jkool.tnt4j.core.OpLevel;
@@ -37,8 +41,12 @@ import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
 import com.nastel.jkool.tnt4j.sink.EventSink;
 import com.nastel.jkool.tnt4j.sink.SinkError;
 import com.nastel.jkool.tnt4j.sink.SinkErrorListener;
+import com.nastel.jkool.tnt4j.sink.SinkEventFilter;
+import com.nastel.jkool.tnt4j.sink.SinkLogEventListener;
 import com.nastel.jkool.tnt4j.source.Source;
 import com.nastel.jkool.tnt4j.utils.LightStack;
+import com.nastel.jkool.tnt4j.utils.StageTimer;
+import com.nastel.jkool.tnt4j.utils.TimeService;
 import com.nastel.jkool.tnt4j.utils.Utils;
 
 
@@ -61,7 +69,7 @@ import com.nastel.jkool.tnt4j.utils.Utils;
  * @version $Revision: 21 $
  *
  */
-public class TrackerImpl implements Tracker, SinkErrorListener {
+public class TrackerImpl implements Tracker, SinkErrorListener, ConfigChangeListener {
 	private static EventSink logger = DefaultEventSinkFactory.defaultEventSink(TrackerImpl.class);
 	private static ThreadLocal<LightStack<TrackingActivity>> ACTIVITY_STACK = new ThreadLocal<LightStack<TrackingActivity>>();
 	
@@ -73,9 +81,12 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 	public static final NullEvent NULL_EVENT = new NullEvent();
 
 	private String id;
-	private EventSink eventSink;
+	private final AtomicReference<EventSink> eventSink = new AtomicReference<EventSink>();
 	private TrackerConfig tConfig;
 	private TrackingSelector selector;
+	// listener and filter attached to the current event sink
+	private SinkLogEventListener sinkListener;
+	private SinkEventFilter sinkFilter;
 	private TrackingFilter filter;
 	
 	// tracker statistics
@@ -88,6 +99,7 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 	private AtomicLong popCount = new AtomicLong(0);
 	private AtomicLong noopCount = new AtomicLong(0);
 	private AtomicLong overheadNanos = new AtomicLong(0);
+	private final LatencyTracker latency = new LatencyTracker("tracker", LatencyTracker.DEFAULT_REPORT? this: null, LatencyTracker.DEFAULT_INTERVAL_MS);
 	private volatile boolean openFlag = false, keepContext = false;
 
 	protected TrackerImpl(TrackerConfig config) {
@@ -102,7 +114,7 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 		this.tConfig = config;
 		this.id = newUUID();
 		this.selector = tConfig.getTrackingSelector();
-		this.eventSink = tConfig.getEventSink();
+		this.eventSink.set(tConfig.getEventSink());
 		open();
 	}
 
@@ -113,95 +125,153 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			errorCount.incrementAndGet();
 			logger.log(OpLevel.ERROR,
 					"Failed to open handle={4}, vm.name={0}, tid={1}, event.sink={2}, source={3}",
-					Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), handle, e);
+					Utils.getVMName(), Thread.currentThread().getId(), eventSink.get(), getSource(), handle, e);
 		}
 	}
 
-	private synchronized void openEventSink() {
+	private synchronized void openEventSink(EventSink sink) {
 		try {
-			if (tConfig.getSinkLogEventListener() != null) {
-				eventSink.addSinkLogEventListener(tConfig.getSinkLogEventListener());
+			sinkListener = tConfig.getSinkLogEventListener();
+			sinkFilter = tConfig.getSinkEventFilter();
+			if (sinkListener != null) {
+				sink.addSinkLogEventListener(sinkListener);
 			}
-			if (tConfig.getSinkEventFilter() != null) {
-				eventSink.addSinkEventFilter(tConfig.getSinkEventFilter());
+			if (sinkFilter != null) {
+				sink.addSinkEventFilter(sinkFilter);
 			}
-			eventSink.addSinkErrorListener(this);
-			eventSink.open();
+			sink.addSinkErrorListener(this);
+			sink.open();
 		} catch (Throwable e) {
 			errorCount.incrementAndGet();
 			logger.log(OpLevel.ERROR,
 					"Failed to open event sink vm.name={0}, tid={1}, event.sink={2}, source={3}",
-					Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), e);
+					Utils.getVMName(), Thread.currentThread().getId(), sink, getSource(), e);
 		}
 	}
 
-	private synchronized void closeEventSink() {
+	private synchronized void closeEventSink(EventSink sink, SinkLogEventListener listener, SinkEventFilter filter) {
 		try {
-			if (eventSink != null) {
-				if (tConfig.getSinkLogEventListener() != null) {
-					eventSink.removeSinkLogEventListener(tConfig.getSinkLogEventListener());
+			if (sink != null) {
+				if (listener != null) {
+					sink.removeSinkLogEventListener(listener);
 				}
-				if (tConfig.getSinkEventFilter() != null) {
-					eventSink.removeSinkEventFilter(tConfig.getSinkEventFilter());
+				if (filter != null) {
+					sink.removeSinkEventFilter(filter);
 				}
-				eventSink.removeSinkErrorListener(this);
-				eventSink.flush();
-				eventSink.close();
+				sink.removeSinkErrorListener(this);
+				sink.flush();
+				sink.close();
 			}
 		} catch (Throwable e) {
 			errorCount.incrementAndGet();
 			logger.log(OpLevel.ERROR,
 					"Failed to close event sink vm.name={0}, tid={1}, event.sink={2}, source={3}",
-					Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), e);
+					Utils.getVMName(), Thread.currentThread().getId(), sink, getSource(), e);
 		}
 	}
 
 	private synchronized void resetEventSink() {
+		EventSink sink = eventSink.get();
 		try {
-			if (eventSink != null) {
-				eventSink.flush();
-				eventSink.close();
+			if (sink != null) {
+				sink.flush();
+				sink.close();
 			}
 		} catch (Throwable e) {
 			errorCount.incrementAndGet();
 			logger.log(OpLevel.ERROR,
 					"Failed to reset event sink vm.name={0}, tid={1}, event.sink={2}, source={3}",
-					Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), e);
+					Utils.getVMName(), Thread.currentThread().getId(), sink, getSource(), e);
 		}
 	}
 
+	/**
+	 * Reopen current event sink if it is closed. Sinks retired by
+	 * {@link #swapEventSink(EventSink)} are never reopened, callers
+	 * holding a retired sink get the current one instead.
+	 *
+	 * @return current event sink
+	 * @throws IOException if error opening the sink
+	 */
+	private synchronized EventSink reopenEventSink() throws IOException {
+		EventSink sink = eventSink.get();
+		if (!sink.isOpen()) {
+			sink.open();
+		}
+		return sink;
+	}
+
+	/**
+	 * Replace current event sink with a given one. Events already accepted by the current
+	 * sink (e.g. queued by a buffered sink) are drained before the switch, events
+	 * logged during the switch are drained before the current sink is closed.
+	 *
+	 * @param sink new event sink
+	 */
+	protected synchronized void swapEventSink(EventSink sink) {
+		EventSink oldSink = eventSink.get();
+		if (sink == oldSink) return;
+		SinkLogEventListener oldListener = sinkListener;
+		SinkEventFilter oldFilter = sinkFilter;
+		if (isOpen()) {
+			openEventSink(sink);
+		}
+		try {
+			if (oldSink != null) oldSink.flush();
+		} catch (Throwable e) {
+			errorCount.incrementAndGet();
+			logger.log(OpLevel.ERROR,
+					"Failed to drain event sink vm.name={0}, tid={1}, event.sink={2}, source={3}",
+					Utils.getVMName(), Thread.currentThread().getId(), oldSink, getSource(), e);
+		}
+		eventSink.set(sink);
+		closeEventSink(oldSink, oldListener, oldFilter);
+		logger.log(OpLevel.DEBUG,
+			"Event sink replaced vm.name={0}, tid={1}, event.sink={2}, old.sink={3}, source={4}",
+			Utils.getVMName(), Thread.currentThread().getId(), sink, oldSink, getSource());
+	}
+
 	private void reportActivity(TrackingActivity activity) throws IOException, URISyntaxException {
+		EventSink sink = eventSink.get();
 		try {
-			if (!eventSink.isOpen()) {
-				eventSink.open();
+			if (!sink.isOpen()) {
+				sink = reopenEventSink();
 			}
 		} finally {
 			if (!activity.isStopped()) {
 				activity.stop();
 			}
-			eventSink.log(activity);
+			sink.log(activity);
 			snapCount.addAndGet(activity.getSnapshotCount());
 			activityCount.incrementAndGet();
+			latency.record(activity.getName(), activity.getElapsedTimeUsec() * 1000);
 		}
 	}
 
 	private void reportEvent(TrackingEvent event) throws IOException, URISyntaxException {
+		EventSink sink = eventSink.get();
 		try {
-			if (!eventSink.isOpen()) {
-				eventSink.open();
+			if (!sink.isOpen()) {
+				sink = reopenEventSink();
 			}
 		} finally {
 			if (!event.isStopped()) {
 				event.stop();
 			}
-			eventSink.log(event);
+			sink.log(event);
 			eventCount.incrementAndGet();
+			latency.record(event.getOperation().getName(), event.getOperation().getElapsedTimeUsec() * 1000);
 		}
 	}
 
 	private boolean isTrackingEnabled(OpLevel level, Object...args) {
 		if (filter == null) return true;
-		return filter.isTrackingEnabled(this, level, args);
+		long start = StageTimer.start(StageTimer.STAGE_SELECTOR);
+		try {
+			return filter.isTrackingEnabled(this, level, args);
+		} finally {
+			StageTimer.stop(StageTimer.STAGE_SELECTOR, start);
+		}
 	}
 
 	/**
@@ -263,13 +333,23 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 		return overheadNanos.addAndGet(delta);
 	}
 
+	/**
+	 * Obtain latency histograms maintained per activity and event
+	 * operation name
+	 *
+	 * @return latency tracker associated with this tracker
+	 */
+	public LatencyTracker getLatencyTracker() {
+		return latency;
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName()
 				+ "{jid=" + Integer.toHexString(System.identityHashCode(this))
 				+ ", name=" + getSource().getName()
 				+ ", keep.context=" + keepContext
-				+ ", sink=" + eventSink
+				+ ", sink=" + eventSink.get()
 				+ "}";
 	}
 
@@ -292,7 +372,11 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 		stats.put(Utils.qualify(this, KEY_ACTIVITIES_STOPPED), popCount.get());
 		stats.put(Utils.qualify(this, KEY_STACK_DEPTH), getStackSize());
 		stats.put(Utils.qualify(this, KEY_OVERHEAD_USEC), overheadNanos.get()/1000);
-		if (eventSink != null) eventSink.getStats(stats);
+		latency.getStats(stats);
+		TimeService.getStats(stats);
+		StageTimer.getStats(stats);
+		EventSink sink = eventSink.get();
+		if (sink != null) sink.getStats(stats);
 		return this;
 	}
 
@@ -307,8 +391,10 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 		popCount.set(0);
 		noopCount.set(0);
 		overheadNanos.set(0);
-		if (eventSink != null) {
-			eventSink.resetStats();
+		latency.resetStats();
+		EventSink sink = eventSink.get();
+		if (sink != null) {
+			sink.resetStats();
 		}
 	}
 
@@ -384,7 +470,7 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 
 	@Override
     public EventSink getEventSink() {
-	    return eventSink;
+	    return eventSink.get();
     }
 
 
@@ -436,7 +522,7 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (logger.isSet(OpLevel.DEBUG)) {
 				logger.log(OpLevel.ERROR,
 					"Failed to track activity: signature={0}, tid={1}, event.sink={2}, source={3}",
-					activity.getTrackingId(), Thread.currentThread().getId(), eventSink, getSource(), ex);
+					activity.getTrackingId(), Thread.currentThread().getId(), eventSink.get(), getSource(), ex);
 			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
@@ -456,7 +542,7 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (logger.isSet(OpLevel.DEBUG)) {
 				logger.log(OpLevel.ERROR,
 						"Failed to track event: signature={0}, tid={1}, event.sink={2}, source={3}",
-						event.getTrackingId(), Thread.currentThread().getId(), eventSink, getSource(), ex);
+						event.getTrackingId(), Thread.currentThread().getId(), eventSink.get(), getSource(), ex);
 			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
@@ -468,13 +554,13 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
     public void tnt(Snapshot snapshot) {
 		long start = System.nanoTime();
 		try {
-			eventSink.log(snapshot);
+			eventSink.get().log(snapshot);
 			snapCount.incrementAndGet();
 		} catch (Throwable ex) {
 			if (logger.isSet(OpLevel.DEBUG)) {
 				logger.log(OpLevel.ERROR,
 					"Failed to track snapshot: signature={0}, tid={1}, event.sink={2}, snapshot={3}",
-					snapshot.getTrackingId(), Thread.currentThread().getId(), eventSink, snapshot, ex);
+					snapshot.getTrackingId(), Thread.currentThread().getId(), eventSink.get(), snapshot, ex);
 			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
@@ -485,7 +571,8 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
     public void log(OpLevel sev, String msg, Object... args) {
 		long start = System.nanoTime();
 		try {
-			eventSink.log(eventSink.getTTL(), getSource(), sev, msg, args);
+			EventSink sink = eventSink.get();
+			sink.log(sink.getTTL(), getSource(), sev, msg, args);
 			msgCount.incrementAndGet();
 		} catch (Throwable ex) {
 			if (logger.isSet(OpLevel.DEBUG)) {
@@ -504,9 +591,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(OpLevel.NONE, opName, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), OpLevel.NONE, opName, (String)null, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), OpLevel.NONE, opName, (String)null, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -519,9 +611,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlator, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlator, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlator, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -536,9 +633,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlator, tag, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlator, tag, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlator, tag, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -551,9 +653,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlator, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlator, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlator, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -568,9 +675,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlator, tag, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlator, tag, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlator, tag, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -584,9 +696,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlators, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlators, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlators, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -600,9 +717,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlators, tags, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlators, tags, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlators, tags, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -616,9 +738,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlators, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlators, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opName, correlators, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -632,9 +759,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 			if (!isTrackingEnabled(severity, opName, correlators, tags, msg, args)) {
 				return NULL_EVENT;
 			}
-			TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlators, tags, msg, args);
-			event.getOperation().setUser(tConfig.getSource().getUser());
-			return event;
+			long stage = StageTimer.start(StageTimer.STAGE_NEW_EVENT);
+			try {
+				TrackingEvent event = new TrackingEvent(getSource(), severity, opType, opName, correlators, tags, msg, args);
+				event.getOperation().setUser(tConfig.getSource().getUser());
+				return event;
+			} finally {
+				StageTimer.stop(StageTimer.STAGE_NEW_EVENT, stage);
+			}
 		} finally {
 			countOverheadNanos(System.nanoTime() - start);
 		}
@@ -668,11 +800,14 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
     public synchronized void open() {
 		if (!isOpen()) {
 			openIOHandle(selector);
-			openEventSink();
+			openEventSink(eventSink.get());
+			if (tConfig instanceof TrackerConfigStore) {
+				((TrackerConfigStore) tConfig).addConfigChangeListener(this);
+			}
 			openFlag = true;
 			logger.log(OpLevel.DEBUG,
 				"Tracker opened vm.name={0}, tid={1}, event.sink={2}, source={3}",
-				Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource());
+				Utils.getVMName(), Thread.currentThread().getId(), eventSink.get(), getSource());
 		}
     }
 
@@ -680,16 +815,21 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 	public synchronized void close() {
 		if (!isOpen()) return;
 		try {
-			closeEventSink();
+			if (tConfig instanceof TrackerConfigStore) {
+				((TrackerConfigStore) tConfig).removeConfigChangeListener(this);
+			}
+			closeEventSink(eventSink.get(), sinkListener, sinkFilter);
+			sinkListener = null;
+			sinkFilter = null;
 			Utils.close(selector);
 			logger.log(OpLevel.DEBUG,
 				"Tracker closed vm.name={0}, tid={1}, event.sink={2}, source={3}",
-				Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource());
+				Utils.getVMName(), Thread.currentThread().getId(), eventSink.get(), getSource());
 		} catch (Throwable e) {
 			errorCount.incrementAndGet();
 			logger.log(OpLevel.ERROR,
 				"Failed to close tracker vm.name={0}, tid={1}, event.sink={2}, source={3}",
-				Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), e);
+				Utils.getVMName(), Thread.currentThread().getId(), eventSink.get(), getSource(), e);
 		} finally {
 			openFlag = false;
 		}
@@ -701,11 +841,18 @@ public class TrackerImpl implements Tracker, SinkErrorListener {
 		if (logger.isSet(OpLevel.DEBUG)) {
 			logger.log(OpLevel.ERROR,
 				"Sink write error: count={4}, vm.name={0}, tid={1}, event.sink={2}, source={3}",
-				Utils.getVMName(), Thread.currentThread().getId(), eventSink, getSource(), errorCount.get(), ev.getCause());
+				Utils.getVMName(), Thread.currentThread().getId(), eventSink.get(), getSource(), errorCount.get(), ev.getCause());
 		}
 		resetEventSink();
 	}
 
+	@Override
+	public void configChanged(TrackerConfig config, Set<String> keys) {
+		if (isOpen()) {
+			swapEventSink(config.getEventSink());
+		}
+	}
+
 	@Override
     public Snapshot newSnapshot(String name) {
 	    return newSnapshot(tConfig.getProperty(DEFAULT_SNAPSHOT_CAT_KEY, DEFAULT_SNAPSHOT_CATEGORY), name);
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import com.nastel.jkool.tnt4j.core.OpLevel;
+import com.nastel.jkool.tnt4j.sink.DefaultEventSinkFactory;
+import com.nastel.jkool.tnt4j.sink.EventSink;
+
+/**
+ * Watches a single file for changes (create, modify, delete) using {@link WatchService}
+ * on a daemon thread and runs a given change handler. Bursts of file events are coalesced
+ * into a single handler call after a settle time, which also lets writers finish.
+ * Handler errors are logged and do not stop the watcher.
+ *
+ * @version $Revision: 1 $
+ */
+public class FileWatcher implements Runnable, Closeable {
+	private static final EventSink logger = DefaultEventSinkFactory.defaultEventSink(FileWatcher.class);
+
+	private final File file;
+	private final long settleMs;
+	private final Runnable handler;
+	private final WatchService service;
+
+	/**
+	 * Create a file watcher. Call {@link #start(String)} to start watching.
+	 *
+	 * @param file file to watch
+	 * @param settleMs time in milliseconds to wait after a change before running the handler
+	 * @param handler change handler
+	 * @throws IOException if the directory of the file can not be watched
+	 */
+	public FileWatcher(File file, long settleMs, Runnable handler) throws IOException {
+		this.file = file.getAbsoluteFile();
+		this.settleMs = settleMs;
+		this.handler = handler;
+		this.service = FileSystems.getDefault().newWatchService();
+		this.file.getParentFile().toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+		        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+	}
+
+	/**
+	 * Start watching on a new daemon thread
+	 *
+	 * @param threadName watcher thread name
+	 * @return same file watcher instance
+	 */
+	public FileWatcher start(String threadName) {
+		Thread task = new Thread(this, threadName);
+		task.setDaemon(true);
+		task.start();
+		return this;
+	}
+
+	/**
+	 * Obtain watched file
+	 *
+	 * @return watched file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Stop watching, the watcher thread exits
+	 */
+	@Override
+	public void close() {
+		Utils.close(service);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean changed = isChanged(key);
+				key.reset();
+				if (changed) {
+					Thread.sleep(settleMs);
+					for (WatchKey next = service.poll(); next != null; next = service.poll()) {
+						next.pollEvents();
+						next.reset();
+					}
+					try {
+						handler.run();
+					} catch (Throwable e) {
+						logger.log(OpLevel.ERROR, "Failed to handle file change, file={0}, handler={1}", file, handler, e);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// watcher closed
+		} catch (Throwable e) {
+			logger.log(OpLevel.ERROR, "File watcher stopped, file={0}", file, e);
+		} finally {
+			Utils.close(service);
+		}
+	}
+
+	private boolean isChanged(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				changed = true;
+			} else if (file.getName().equals(String.valueOf(event.context()))) {
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "{file: " + file + ", settle.ms: " + settleMs + "}";
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class implements a lock-free latency histogram with log-linear buckets
+ * (similar to HDR histograms). Each power of 2 range of values is split into 32 linear
+ * sub-buckets, which bounds relative error of reported percentiles to about 3%.
+ * Values up to 2^42 (about 73 minutes in nanoseconds) are tracked, larger values
+ * are counted in the last bucket. Buckets of each power of 2 range are allocated on first use,
+ * so a histogram only holds ranges it has seen. Recording never blocks and allocates only when
+ * a value falls into a new range.
+ *
+ * @version $Revision: 1 $
+ */
+public class LatencyHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int MAX_BITS = 42;
+	private static final int RANGE_COUNT = MAX_BITS - SUB_BITS + 2;
+	private static final int BUCKET_COUNT = RANGE_COUNT * SUB_COUNT;
+
+	private final AtomicReferenceArray<AtomicLongArray> ranges = new AtomicReferenceArray<AtomicLongArray>(RANGE_COUNT);
+	private final AtomicLong count = new AtomicLong(0);
+	private final AtomicLong total = new AtomicLong(0);
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(0);
+
+	/**
+	 * Record a single value
+	 *
+	 * @param value value to record, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		int index = indexOf(value);
+		range(index >> SUB_BITS).incrementAndGet(index & (SUB_COUNT - 1));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long v;
+		while (value < (v = min.get()) && !min.compareAndSet(v, value));
+		while (value > (v = max.get()) && !max.compareAndSet(v, value));
+	}
+
+	/**
+	 * Merge all values recorded by another histogram into this one
+	 *
+	 * @param other histogram to merge
+	 * @return this histogram
+	 */
+	public LatencyHistogram add(LatencyHistogram other) {
+		if (other.getCount() == 0) return this;
+		for (int r = 0; r < RANGE_COUNT; r++) {
+			AtomicLongArray src = other.ranges.get(r);
+			if (src == null) continue;
+			for (int i = 0; i < SUB_COUNT; i++) {
+				long c = src.get(i);
+				if (c != 0) range(r).addAndGet(i, c);
+			}
+		}
+		count.addAndGet(other.count.get());
+		total.addAndGet(other.total.get());
+		long v, value = other.min.get();
+		while (value < (v = min.get()) && !min.compareAndSet(v, value));
+		value = other.max.get();
+		while (value > (v = max.get()) && !max.compareAndSet(v, value));
+		return this;
+	}
+
+	/**
+	 * Obtain number of recorded values
+	 *
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Obtain sum of all recorded values
+	 *
+	 * @return sum of all recorded values
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * Obtain minimum recorded value
+	 *
+	 * @return minimum recorded value, 0 if none
+	 */
+	public long getMin() {
+		return getCount() > 0? min.get(): 0;
+	}
+
+	/**
+	 * Obtain maximum recorded value
+	 *
+	 * @return maximum recorded value, 0 if none
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Obtain mean of all recorded values
+	 *
+	 * @return mean of recorded values, 0 if none
+	 */
+	public double getMean() {
+		long n = getCount();
+		return n > 0? (double) getTotal() / n: 0;
+	}
+
+	/**
+	 * Obtain value at a given percentile. Returned value is the upper bound
+	 * of the bucket containing the percentile, capped by the maximum recorded value.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return value at a given percentile, 0 if none
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = 0;
+		for (int r = 0; r < RANGE_COUNT; r++) {
+			AtomicLongArray range = ranges.get(r);
+			if (range == null) continue;
+			for (int i = 0; i < SUB_COUNT; i++) {
+				n += range.get(i);
+			}
+		}
+		if (n == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) * n / 100));
+		long seen = 0;
+		for (int r = 0; r < RANGE_COUNT; r++) {
+			AtomicLongArray range = ranges.get(r);
+			if (range == null) continue;
+			for (int i = 0; i < SUB_COUNT; i++) {
+				seen += range.get(i);
+				if (seen >= rank) {
+					return Math.min(highestValueOf((r << SUB_BITS) + i), getMax());
+				}
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Clear all recorded values
+	 */
+	public void reset() {
+		for (int r = 0; r < RANGE_COUNT; r++) {
+			ranges.set(r, null);
+		}
+		count.set(0);
+		total.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(0);
+	}
+
+	private AtomicLongArray range(int r) {
+		AtomicLongArray range = ranges.get(r);
+		if (range == null) {
+			range = new AtomicLongArray(SUB_COUNT);
+			if (!ranges.compareAndSet(r, null, range)) {
+				range = ranges.get(r);
+			}
+		}
+		return range;
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_COUNT) return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		if (shift > MAX_BITS - SUB_BITS) return BUCKET_COUNT - 1;
+		return (shift << SUB_BITS) + (int) (value >>> shift);
+	}
+
+	private static long highestValueOf(int index) {
+		if (index < SUB_COUNT) return index;
+		int shift = (index >> SUB_BITS) - 1;
+		long mantissa = index - ((long) shift << SUB_BITS);
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName()
+			+ "{count=" + getCount()
+			+ ", min=" + getMin()
+			+ ", p50=" + getValueAtPercentile(50)
+			+ ", p99=" + getValueAtPercentile(99)
+			+ ", max=" + getMax()
+			+ "}";
+	}
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This class estimates deep memory footprint of object graphs. Object graphs are walked
+ * iteratively using an explicit stack, so deep graphs (e.g. long linked lists) do not overflow
+ * the thread stack. Reference field layouts (offset and type) are computed once per class and
+ * cached, visited objects are tracked in an open addressing identity table.
+ * </p>
+ * <p>
+ * Each estimate is bounded by a number of visited objects ({@code tnt4j.sizeof.max.objects},
+ * default 1000000) and time ({@code tnt4j.sizeof.max.time.ms}, default 1000). When a budget
+ * runs out the walk stops and a partial estimate is returned, see {@link Estimate#isComplete()}.
+ * Shallow sizes are obtained from {@link SizeOf} when running as a java agent, otherwise they
+ * are computed from field offsets (when the VM exposes them) or field sizes. VM internals are
+ * reached reflectively, falling back to plain reflection; fields that can not be read are skipped.
+ * </p>
+ *
+ * @see SizeOf
+ * @version $Revision: 1 $
+ */
+public class SizeEstimator {
+	public static final int DEFAULT_MAX_OBJECTS = Integer.getInteger("tnt4j.sizeof.max.objects", 1000000);
+	public static final long DEFAULT_MAX_TIME_MS = Long.getLong("tnt4j.sizeof.max.time.ms", 1000);
+
+	private static final int OBJECT_ALIGNMENT = 8;
+	private static final int TIME_CHECK_MASK = 0x3FF;
+	private static final VMLayout VM_LAYOUT = VMLayout.create();
+	private static final int REFERENCE_SIZE = VM_LAYOUT != null? VM_LAYOUT.arrayIndexScale(Object[].class): 4;
+	private static final int OBJECT_HEADER_SIZE = VM_LAYOUT != null? VM_LAYOUT.arrayBaseOffset(Object[].class) - 4: 12;
+
+	private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+		@Override
+		protected ClassLayout computeValue(Class<?> clazz) {
+			return new ClassLayout(clazz);
+		}
+	};
+
+	private final int maxObjects;
+	private final long maxTimeNanos;
+	private boolean skipStatic = true, skipFinal = false, skipFlyweight = false;
+
+	/**
+	 * Create an estimator with default budgets
+	 */
+	public SizeEstimator() {
+		this(DEFAULT_MAX_OBJECTS, DEFAULT_MAX_TIME_MS);
+	}
+
+	/**
+	 * Create an estimator with given budgets
+	 *
+	 * @param maxObjects maximum number of objects visited per estimate
+	 * @param maxTimeMs maximum time spent per estimate in milliseconds
+	 */
+	public SizeEstimator(int maxObjects, long maxTimeMs) {
+		this.maxObjects = Math.max(1, maxObjects);
+		this.maxTimeNanos = maxTimeMs * 1000000L;
+	}
+
+	/**
+	 * Skip objects referenced by static fields. Default is true.
+	 *
+	 * @param flag true to skip static fields
+	 * @return same estimator instance
+	 */
+	public SizeEstimator skipStatic(boolean flag) {
+		skipStatic = flag;
+		return this;
+	}
+
+	/**
+	 * Skip objects referenced by final fields. Default is false.
+	 *
+	 * @param flag true to skip final fields
+	 * @return same estimator instance
+	 */
+	public SizeEstimator skipFinal(boolean flag) {
+		skipFinal = flag;
+		return this;
+	}
+
+	/**
+	 * Count shared flyweights (e.g. interned strings, cached boxed numbers, enums) as 0 size.
+	 * Default is false.
+	 *
+	 * @param flag true to skip shared flyweights
+	 * @return same estimator instance
+	 */
+	public SizeEstimator skipFlyweight(boolean flag) {
+		skipFlyweight = flag;
+		return this;
+	}
+
+	/**
+	 * Estimate memory footprint of a given object and all objects reachable from it
+	 *
+	 * @param obj object whose size is to be estimated
+	 * @return size estimate
+	 */
+	public Estimate estimate(Object obj) {
+		return estimate(obj, null);
+	}
+
+	/**
+	 * Estimate memory footprint of a given object and all objects reachable from it.
+	 * Sizes of object graphs reachable from each reference field of the given object
+	 * are recorded in a given map. Objects reachable from several fields are accounted
+	 * for the first field (in declaration order) only.
+	 *
+	 * @param obj object whose size is to be estimated
+	 * @param fieldSizes map where sizes per field are recorded, null if not required
+	 * @return size estimate
+	 */
+	public Estimate estimate(Object obj, Map<Field, Long> fieldSizes) {
+		Walk walk = new Walk();
+		if (obj != null && walk.push(obj)) {
+			walk.pop();
+			ClassLayout layout = LAYOUTS.get(obj.getClass());
+			if (fieldSizes == null || layout.isArray) {
+				walk.pushChildren(obj, layout);
+				walk.run();
+			} else {
+				for (FieldRef ref : layout.refs) {
+					if (!isComputable(ref)) continue;
+					long before = walk.size;
+					Object child = ref.get(obj);
+					if (child != null && walk.push(child)) {
+						walk.run();
+					}
+					fieldSizes.put(ref.field, walk.size - before);
+					if (walk.exhausted) break;
+				}
+			}
+		}
+		return new Estimate(walk.size, walk.objects, !walk.exhausted);
+	}
+
+	/**
+	 * Obtain shallow size of a given object. Size is obtained via {@link SizeOf}
+	 * if available, otherwise computed from the object layout.
+	 *
+	 * @param obj object
+	 * @return shallow size in bytes
+	 */
+	public static long shallowSizeOf(Object obj) {
+		if (obj == null) return 0;
+		long size = SizeOf.sizeOf(obj);
+		return size > 0? size: LAYOUTS.get(obj.getClass()).sizeOf(obj);
+	}
+
+	private boolean isComputable(FieldRef ref) {
+		return !((skipStatic && ref.isStatic) || (skipFinal && ref.isFinal));
+	}
+
+	private static long align(long size) {
+		return (size + OBJECT_ALIGNMENT - 1) & -OBJECT_ALIGNMENT;
+	}
+
+	private static int sizeOfType(Class<?> type) {
+		if (type == long.class || type == double.class) return 8;
+		if (type == int.class || type == float.class) return 4;
+		if (type == short.class || type == char.class) return 2;
+		if (type == byte.class || type == boolean.class) return 1;
+		return REFERENCE_SIZE;
+	}
+
+	/**
+	 * Result of a size estimate
+	 */
+	public static class Estimate {
+		private final long size;
+		private final int objects;
+		private final boolean complete;
+
+		Estimate(long size, int objects, boolean complete) {
+			this.size = size;
+			this.objects = objects;
+			this.complete = complete;
+		}
+
+		/**
+		 * Estimated size of visited objects
+		 *
+		 * @return size in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Number of visited objects
+		 *
+		 * @return number of visited objects
+		 */
+		public int getObjectCount() {
+			return objects;
+		}
+
+		/**
+		 * Determine if all reachable objects were visited
+		 *
+		 * @return true if complete, false if a budget ran out and size is partial
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+
+		@Override
+		public String toString() {
+			return super.toString() + "{size: " + size + ", objects: " + objects + ", complete: " + complete + "}";
+		}
+	}
+
+	private class Walk {
+		final IdentitySet visited = new IdentitySet();
+		final long deadline = System.nanoTime() + maxTimeNanos;
+		Object[] stack = new Object[64];
+		int top = 0, objects = 0;
+		long size = 0;
+		boolean exhausted = false;
+
+		boolean push(Object obj) {
+			if (exhausted || !visited.add(obj)) return false;
+			if (objects >= maxObjects || ((objects & TIME_CHECK_MASK) == 0 && System.nanoTime() > deadline)) {
+				exhausted = true;
+				return false;
+			}
+			objects++;
+			if (!(skipFlyweight && SizeOf.isSharedFlyweight(obj))) {
+				size += shallowSizeOf(obj);
+			}
+			if (top == stack.length) {
+				Object[] grown = new Object[stack.length * 2];
+				System.arraycopy(stack, 0, grown, 0, top);
+				stack = grown;
+			}
+			stack[top++] = obj;
+			return true;
+		}
+
+		Object pop() {
+			Object obj = stack[--top];
+			stack[top] = null;
+			return obj;
+		}
+
+		void run() {
+			while (top > 0 && !exhausted) {
+				Object obj = pop();
+				pushChildren(obj, LAYOUTS.get(obj.getClass()));
+			}
+		}
+
+		void pushChildren(Object obj, ClassLayout layout) {
+			if (layout.isArray) {
+				if (obj instanceof Object[]) {
+					for (Object child : (Object[]) obj) {
+						if (child != null) push(child);
+						if (exhausted) return;
+					}
+				}
+			} else {
+				for (FieldRef ref : layout.refs) {
+					if (!isComputable(ref)) continue;
+					Object child = ref.get(obj);
+					if (child != null) push(child);
+					if (exhausted) return;
+				}
+			}
+		}
+	}
+
+	private static class ClassLayout {
+		final boolean isArray;
+		final FieldRef[] refs;
+		final long instanceSize;
+		final int arrayBase, arrayScale;
+
+		ClassLayout(Class<?> clazz) {
+			isArray = clazz.isArray();
+			List<FieldRef> list = new ArrayList<FieldRef>();
+			long end = OBJECT_HEADER_SIZE, fieldBytes = 0;
+			boolean hasOffsets = VM_LAYOUT != null;
+			if (isArray) {
+				Class<?> type = clazz.getComponentType();
+				arrayBase = VM_LAYOUT != null? VM_LAYOUT.arrayBaseOffset(clazz): OBJECT_HEADER_SIZE + 4;
+				arrayScale = VM_LAYOUT != null? VM_LAYOUT.arrayIndexScale(clazz): sizeOfType(type);
+			} else {
+				arrayBase = arrayScale = 0;
+				for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+					for (Field field : c.getDeclaredFields()) {
+						boolean isStatic = Modifier.isStatic(field.getModifiers());
+						long offset = offsetOf(field, isStatic);
+						if (!isStatic) {
+							int fsize = sizeOfType(field.getType());
+							fieldBytes += fsize;
+							end = Math.max(end, offset + fsize);
+							hasOffsets &= offset >= 0;
+						}
+						if (!field.getType().isPrimitive()) {
+							FieldRef ref = FieldRef.create(field, isStatic, offset);
+							if (ref != null) list.add(ref);
+						}
+					}
+				}
+			}
+			refs = list.toArray(new FieldRef[list.size()]);
+			instanceSize = align(hasOffsets? end: OBJECT_HEADER_SIZE + fieldBytes);
+		}
+
+		long sizeOf(Object obj) {
+			return isArray? align(arrayBase + (long) Array.getLength(obj) * arrayScale): instanceSize;
+		}
+
+		private static long offsetOf(Field field, boolean isStatic) {
+			return VM_LAYOUT != null? VM_LAYOUT.fieldOffset(field, isStatic): -1;
+		}
+	}
+
+	private static class FieldRef {
+		final Field field;
+		final boolean isStatic, isFinal;
+		final Object base;
+		final long offset;
+
+		private FieldRef(Field field, boolean isStatic, Object base, long offset) {
+			this.field = field;
+			this.isStatic = isStatic;
+			this.isFinal = Modifier.isFinal(field.getModifiers());
+			this.base = base;
+			this.offset = offset;
+		}
+
+		static FieldRef create(Field field, boolean isStatic, long offset) {
+			if (offset >= 0) {
+				Object base = isStatic? VM_LAYOUT.staticFieldBase(field): null;
+				if (!isStatic || base != null) {
+					return new FieldRef(field, isStatic, base, offset);
+				}
+			}
+			try {
+				field.setAccessible(true);
+				return new FieldRef(field, isStatic, null, -1);
+			} catch (Throwable e) {
+				return null; // field not accessible, skip
+			}
+		}
+
+		Object get(Object obj) {
+			try {
+				if (offset >= 0) {
+					return VM_LAYOUT.getObject(isStatic? base: obj, offset);
+				}
+				return field.get(isStatic? null: obj);
+			} catch (Throwable e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Field offsets, array layout and field access obtained reflectively from
+	 * {@code sun.misc.Unsafe}, which is not available on all VMs. Reflection is
+	 * used instead when it is not. Field reads go through a method handle bound
+	 * to the {@code Unsafe} instance, so they do not box offsets or allocate arguments.
+	 */
+	private static class VMLayout {
+		final Object unsafe;
+		final Method objectFieldOffset, staticFieldOffset, staticFieldBase;
+		final Method arrayBaseOffset, arrayIndexScale;
+		final MethodHandle getObject;
+
+		private VMLayout(Object unsafe, Class<?> type) throws NoSuchMethodException, IllegalAccessException {
+			this.unsafe = unsafe;
+			this.objectFieldOffset = type.getMethod("objectFieldOffset", Field.class);
+			this.staticFieldOffset = type.getMethod("staticFieldOffset", Field.class);
+			this.staticFieldBase = type.getMethod("staticFieldBase", Field.class);
+			this.arrayBaseOffset = type.getMethod("arrayBaseOffset", Class.class);
+			this.arrayIndexScale = type.getMethod("arrayIndexScale", Class.class);
+			this.getObject = MethodHandles.lookup().unreflect(type.getMethod("getObject", Object.class, long.class))
+			        .bindTo(unsafe);
+		}
+
+		static VMLayout create() {
+			try {
+				Class<?> type = Class.forName("sun.misc.Unsafe");
+				Field field = type.getDeclaredField("theUnsafe");
+				field.setAccessible(true);
+				VMLayout layout = new VMLayout(field.get(null), type);
+				layout.arrayIndexScale.invoke(layout.unsafe, Object[].class);
+				return layout;
+			} catch (Throwable e) {
+				return null;
+			}
+		}
+
+		long fieldOffset(Field field, boolean isStatic) {
+			try {
+				return ((Number) (isStatic? staticFieldOffset: objectFieldOffset).invoke(unsafe, field)).longValue();
+			} catch (Throwable e) {
+				return -1;
+			}
+		}
+
+		Object staticFieldBase(Field field) {
+			try {
+				return staticFieldBase.invoke(unsafe, field);
+			} catch (Throwable e) {
+				return null;
+			}
+		}
+
+		int arrayBaseOffset(Class<?> clazz) {
+			try {
+				return ((Number) arrayBaseOffset.invoke(unsafe, clazz)).intValue();
+			} catch (Throwable e) {
+				return OBJECT_HEADER_SIZE + 4;
+			}
+		}
+
+		int arrayIndexScale(Class<?> clazz) {
+			try {
+				return ((Number) arrayIndexScale.invoke(unsafe, clazz)).intValue();
+			} catch (Throwable e) {
+				return sizeOfType(clazz.getComponentType());
+			}
+		}
+
+		Object getObject(Object obj, long offset) throws Throwable {
+			return (Object) getObject.invokeExact(obj, offset);
+		}
+	}
+
+	private static class IdentitySet {
+		Object[] table = new Object[256];
+		int size = 0;
+
+		boolean add(Object obj) {
+			int mask = table.length - 1;
+			int i = hash(obj) & mask;
+			for (Object entry = table[i]; entry != null; entry = table[i]) {
+				if (entry == obj) return false;
+				i = (i + 1) & mask;
+			}
+			table[i] = obj;
+			if (++size * 2 > table.length) {
+				resize();
+			}
+			return true;
+		}
+
+		private void resize() {
+			Object[] old = table;
+			table = new Object[old.length * 2];
+			int mask = table.length - 1;
+			for (Object obj : old) {
+				if (obj == null) continue;
+				int i = hash(obj) & mask;
+				while (table[i] != null) {
+					i = (i + 1) & mask;
+				}
+				table[i] = obj;
+			}
+		}
+
+		private static int hash(Object obj) {
+			int h = System.identityHashCode(obj);
+			return h ^ (h >>> 16);
+		}
+	}
+}
@@ -16,18 +16,17 @@
 package com.nastel.jkool.tnt4j.utils;
 
 import java.lang.instrument.Instrumentation;
-import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
  * This class computes estimated memory footprint of a specific object. The implementation provides shallow size as well
  * as deep size which includes all reachable objects. This class must be included in the "javaagent:" command line
- * option to be able to compute object sizes.
+ * option to be able to compute shallow object sizes. Deep sizes are computed by {@link SizeEstimator} within its
+ * default budgets and estimated from object layouts when not running as an agent.
  *
- * @version $Revision: 2 $
+ * @see SizeEstimator
+ * @version $Revision: 3 $
  */
 public class SizeOf {
 	/**
@@ -74,8 +73,7 @@ public class SizeOf {
 	 *         objects reachable from it
 	 */
 	public static long deepSizeOf(Object objectToSize) {
-		Map<Object, Long> doneObj = new IdentityHashMap<Object, Long>();
-		return deepSizeOf(objectToSize, doneObj, null, 0);
+		return newEstimator().estimate(objectToSize).getSize();
 	}
 
 	/**
@@ -83,76 +81,21 @@ public class SizeOf {
 	 * objects reachable from it
 	 *
 	 * @param objectToSize object whose size is to be approximated
-	 * @param doneFields set of fields already computed (along with their sizes)
+	 * @param doneFields map where sizes reachable from each field of objectToSize are recorded
 	 * @return an implementation-specific approximation of the amount of storage consumed by objectToSize and by all the
 	 *         objects reachable from it
 	 */
 	public static long deepSizeOf(Object objectToSize, Map<Field, Long> doneFields) {
-		Map<Object, Long> doneObj = new IdentityHashMap<Object, Long>();
-		return deepSizeOf(objectToSize, doneObj, doneFields, 0);
+		return newEstimator().estimate(objectToSize, doneFields).getSize();
 	}
 
-	private static long deepSizeOf(Object o, Map<Object, Long> doneObj, Map<Field, Long> doneFields, int depth) {
-		if (o == null || (inst == null)) {
-			return 0;
-		}
-
-		long size = 0;
-		if (doneObj.containsKey(o)) {
-			return 0;
-		}
-
-		size = sizeOf(o);
-		doneObj.put(o, size); // record initial size
-
-		Class<?> clazz = o.getClass();
-		if (clazz.isArray()) {
-			int length = Array.getLength(o);
-			for (int i = 0; i < length; i++) {
-				size += deepSizeOf(Array.get(o, i), doneObj, doneFields, depth + 1);
-			}
-		} else {
-			do {
-				Field[] fields = clazz.getDeclaredFields();
-				for (Field field : fields) {
-					field.setAccessible(true);
-					Object obj;
-					try {
-						obj = field.get(o);
-					} catch (Throwable e) {
-						throw new RuntimeException(e);
-					}
-					if (isComputable(field)) {
-						long fSize = deepSizeOf(obj, doneObj, doneFields, depth + 1);
-						size += fSize;
-						if (doneFields != null) doneFields.put(field, fSize);
-					}
-				}
-				clazz = clazz.getSuperclass();
-			} while (clazz != null);
-		}
-		doneObj.put(o, size); // record final size
-		return size;
-	}
-
-
 	/**
-	 * Determines if the field is computable based on flags set for primitive, static and final fields.
+	 * Create a size estimator using current skip static, final and flyweight settings
 	 *
-	 * @param field to test
-	 * @return true if the field must be computed
+	 * @return new size estimator instance
 	 */
-	private static boolean isComputable(Field field) {
-		int modificatori = field.getModifiers();
-
-		if (field.getType().isPrimitive())
-			return false;
-		else if (SKIP_STATIC_FIELD && Modifier.isStatic(modificatori))
-			return false;
-		else if (SKIP_FINAL_FIELD && Modifier.isFinal(modificatori))
-			return false;
-		else
-			return true;
+	public static SizeEstimator newEstimator() {
+		return new SizeEstimator().skipStatic(SKIP_STATIC_FIELD).skipFinal(SKIP_FINAL_FIELD).skipFlyweight(SKIP_FLYWEIGHT_FIELD);
 	}
 
 	/**
@@ -160,7 +103,7 @@ public class SizeOf {
 	 * objects.
 	 *
 	 */
-	private static boolean isSharedFlyweight(Object obj) {
+	static boolean isSharedFlyweight(Object obj) {
 		// optimization - all of our flyweights are Comparable
 		if (obj instanceof Comparable) {
 			if (obj instanceof Enum) {
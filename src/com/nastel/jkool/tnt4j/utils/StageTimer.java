@@ -0,0 +1,249 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class measures TNT4J overhead per logging pipeline stage (tracking selector,
+ * event construction, sink filters, formatting, rate limiter, enqueueing and sink writes).
+ * Stage timing is disabled by default ({@code tnt4j.stage.timer.enabled}) and only
+ * 1 in N calls of each stage are timed ({@code tnt4j.stage.timer.sample}, default 64).
+ * Calls and timings are accumulated per thread without synchronization and aggregated
+ * when statistics are requested, so reported values are approximate. Total time per stage
+ * is estimated from the average of sampled calls. Stages nest (e.g. sink writes include formatting
+ * and writes to piped sinks): time is reported exclusive of nested stages, so that shares add up
+ * to 100%. Calls nested in a timed stage are measured (but not counted as samples) to be subtracted.
+ * <p>
+ * Stages are timed as follows, {@link #stop(int, long)} must be called in a {@code finally} block,
+ * otherwise a stage left open by an exception keeps all subsequent calls on the thread timed:
+ * </p>
+ * <pre>
+ * long start = StageTimer.start(StageTimer.STAGE_FILTER);
+ * try {
+ * ...
+ * } finally {
+ *	StageTimer.stop(StageTimer.STAGE_FILTER, start);
+ * }
+ * </pre>
+ *
+ * @version $Revision: 1 $
+ */
+public class StageTimer {
+	public static final int DEFAULT_SAMPLE_RATE = Math.max(1, Integer.getInteger("tnt4j.stage.timer.sample", 64));
+
+	public static final int STAGE_SELECTOR = 0;
+	public static final int STAGE_NEW_EVENT = 1;
+	public static final int STAGE_FILTER = 2;
+	public static final int STAGE_FORMAT = 3;
+	public static final int STAGE_LIMITER = 4;
+	public static final int STAGE_ENQUEUE = 5;
+	public static final int STAGE_SINK_LOG = 6;
+
+	private static final String[] STAGE_NAMES = { "selector", "new-event", "filter", "format", "limiter", "enqueue",
+	        "sink-log" };
+	private static final int STAGE_COUNT = STAGE_NAMES.length;
+	private static final int MAX_DEPTH = 32;
+
+	static final String KEY_CALLS = "calls";
+	static final String KEY_SAMPLES = "samples";
+	static final String KEY_AVG_NSEC = "avg-nsec";
+	static final String KEY_TOTAL_USEC = "est-total-usec";
+	static final String KEY_SHARE = "share-pct";
+
+	private static volatile boolean enabled = Boolean.getBoolean("tnt4j.stage.timer.enabled");
+	private static final List<Accumulator> ACCUMULATORS = new ArrayList<Accumulator>();
+	private static final Accumulator RETIRED = new Accumulator(null);
+	private static final ThreadLocal<Accumulator> LOCAL = new ThreadLocal<Accumulator>() {
+		@Override
+		protected Accumulator initialValue() {
+			Accumulator acc = new Accumulator(Thread.currentThread());
+			synchronized (ACCUMULATORS) {
+				ACCUMULATORS.add(acc);
+			}
+			return acc;
+		}
+	};
+
+	private StageTimer() {
+	}
+
+	/**
+	 * Enable or disable stage timing
+	 *
+	 * @param flag true to enable, false to disable
+	 */
+	public static void setEnabled(boolean flag) {
+		enabled = flag;
+	}
+
+	/**
+	 * Determine if stage timing is enabled
+	 *
+	 * @return true if enabled, false otherwise
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Mark start of a given stage
+	 *
+	 * @param stage pipeline stage
+	 * @return start time in nanoseconds if call is sampled, 0 otherwise
+	 */
+	public static long start(int stage) {
+		if (!enabled) return 0;
+		Accumulator acc = LOCAL.get();
+		boolean sampled = (acc.calls[stage]++ % DEFAULT_SAMPLE_RATE) == 0;
+		if (!sampled && acc.depth == 0) return 0;
+		return acc.push(stage, sampled);
+	}
+
+	/**
+	 * Mark end of a given stage, call in a {@code finally} block. Stages nested in
+	 * the given stage that were not stopped are discarded.
+	 *
+	 * @param stage pipeline stage
+	 * @param start value returned by {@link #start(int)}
+	 */
+	public static void stop(int stage, long start) {
+		if (start == 0) return;
+		LOCAL.get().pop(stage, start);
+	}
+
+	/**
+	 * Obtain stage breakdown and add it to a given map
+	 *
+	 * @param stats map where stage statistics are added
+	 * @return same map instance
+	 */
+	public static Map<String, Object> getStats(Map<String, Object> stats) {
+		long[] calls = new long[STAGE_COUNT], samples = new long[STAGE_COUNT], nanos = new long[STAGE_COUNT];
+		synchronized (ACCUMULATORS) {
+			for (Iterator<Accumulator> it = ACCUMULATORS.iterator(); it.hasNext();) {
+				Accumulator acc = it.next();
+				if (!acc.isAlive()) {
+					// fold accumulators of terminated threads
+					acc.addTo(RETIRED.calls, RETIRED.samples, RETIRED.nanos);
+					it.remove();
+				} else {
+					acc.addTo(calls, samples, nanos);
+				}
+			}
+			RETIRED.addTo(calls, samples, nanos);
+		}
+		long[] total = new long[STAGE_COUNT];
+		long sum = 0;
+		for (int i = 0; i < STAGE_COUNT; i++) {
+			total[i] = samples[i] > 0? (long) ((double) nanos[i] / samples[i] * calls[i]): 0;
+			sum += total[i];
+		}
+		String pfix = StageTimer.class.getSimpleName() + "/";
+		for (int i = 0; i < STAGE_COUNT; i++) {
+			if (calls[i] == 0) continue;
+			String key = pfix + STAGE_NAMES[i] + "/";
+			stats.put(key + KEY_CALLS, calls[i]);
+			stats.put(key + KEY_SAMPLES, samples[i]);
+			stats.put(key + KEY_AVG_NSEC, samples[i] > 0? nanos[i] / samples[i]: 0);
+			stats.put(key + KEY_TOTAL_USEC, total[i] / 1000);
+			stats.put(key + KEY_SHARE, sum > 0? Math.round(total[i] * 1000.0 / sum) / 10.0: 0.0);
+		}
+		return stats;
+	}
+
+	/**
+	 * Clear all stage statistics
+	 */
+	public static void resetStats() {
+		synchronized (ACCUMULATORS) {
+			for (Accumulator acc : ACCUMULATORS) {
+				acc.clear();
+			}
+			RETIRED.clear();
+		}
+	}
+
+	private static class Accumulator {
+		final WeakReference<Thread> thread;
+		final long[] calls = new long[STAGE_COUNT];
+		final long[] samples = new long[STAGE_COUNT];
+		final long[] nanos = new long[STAGE_COUNT];
+
+		// stack of timed stages in progress on the owner thread
+		final int[] frameStage = new int[MAX_DEPTH];
+		final long[] frameStart = new long[MAX_DEPTH];
+		final long[] frameNested = new long[MAX_DEPTH];
+		final boolean[] frameSampled = new boolean[MAX_DEPTH];
+		int depth = 0;
+
+		Accumulator(Thread thread) {
+			this.thread = new WeakReference<Thread>(thread);
+		}
+
+		boolean isAlive() {
+			if (this == RETIRED) return true;
+			Thread owner = thread.get();
+			return owner != null && owner.isAlive();
+		}
+
+		long push(int stage, boolean sampled) {
+			if (depth == MAX_DEPTH) return 0;
+			long start = System.nanoTime();
+			frameStage[depth] = stage;
+			frameStart[depth] = start;
+			frameNested[depth] = 0;
+			frameSampled[depth] = sampled;
+			depth++;
+			return start;
+		}
+
+		void pop(int stage, long start) {
+			int i = depth - 1;
+			while (i >= 0 && (frameStart[i] != start || frameStage[i] != stage)) {
+				i--;
+			}
+			if (i < 0) return;
+			long elapsed = System.nanoTime() - start;
+			depth = i;
+			if (frameSampled[i]) {
+				nanos[stage] += elapsed - frameNested[i];
+				samples[stage]++;
+			}
+			if (i > 0) {
+				frameNested[i - 1] += elapsed;
+			}
+		}
+
+		void addTo(long[] c, long[] s, long[] n) {
+			for (int i = 0; i < STAGE_COUNT; i++) {
+				c[i] += calls[i];
+				s[i] += samples[i];
+				n[i] += nanos[i];
+			}
+		}
+
+		void clear() {
+			for (int i = 0; i < STAGE_COUNT; i++) {
+				calls[i] = samples[i] = nanos[i] = 0;
+			}
+		}
+	}
+}
@@ -18,9 +18,11 @@ package com.nastel.jkool.tnt4j.utils;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Date;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.commons.net.ntp.NTPUDPClient;
 import org.apache.commons.net.ntp.TimeInfo;
@@ -37,6 +39,19 @@ import com.nastel.jkool.tnt4j.sink.EventSink;
  * To enable NTP time synchronization set the following property:
  * {@code tnt4j.time.server=ntp-server:port},
  * otherwise {@code System.currentTimeMillis()} is returned.
+ * <p>
+ * Clock mode is set by {@code tnt4j.time.clock.mode=precise|coarse} (default precise).
+ * In coarse mode a background ticker publishes current time every
+ * {@code tnt4j.time.clock.resolution.usec} (default 100) microseconds, which is
+ * returned by {@link #coarseTimeUsecs()} and {@code Useconds.COARSE.get()} at the cost
+ * of a single volatile read. Elapsed time measurements should always use precise clocks.
+ * </p>
+ * <p>
+ * Overhead calibration and NTP queries run on a background thread, so loading this
+ * class never blocks on the time server. Time service starts on the local clock and
+ * the NTP offset is applied by {@link Useconds} slewing once it arrives
+ * (see {@link #getSyncState()}).
+ * </p>
  *
  * @version $Revision: 1 $
  */
@@ -50,28 +65,50 @@ public class TimeService {
 	private static final String TIME_SERVER = System.getProperty("tnt4j.time.server");
 	private static final long TIME_SERVER_TIMEOUT = Long.getLong("tnt4j.time.server.timeout", 10000);
 
-	static long timeOverheadNanos = 0;
-	static long timeOverheadMillis = 0;
-	static long adjustment = 0;
-	static long updatedTime = 0;
+	public static final String CLOCK_MODE_PRECISE = "precise";
+	public static final String CLOCK_MODE_COARSE = "coarse";
+	private static final String CLOCK_MODE = System.getProperty("tnt4j.time.clock.mode", CLOCK_MODE_PRECISE);
+	private static final long CLOCK_RESOLUTION_USEC = Math.max(Long.getLong("tnt4j.time.clock.resolution.usec", 100), 1);
+
+	public static final String KEY_SYNC_STATE = "time-sync-state";
+	public static final String KEY_SYNC_RTT = "time-sync-rtt-ms";
+	public static final String KEY_SYNC_OFFSET = "time-sync-offset-ms";
+	public static final String KEY_SYNC_AGE = "time-sync-age-ms";
+	public static final String KEY_SYNC_FAILURES = "time-sync-failures";
+	public static final String KEY_SLEW_PENDING = "time-slew-pending-usec";
+	public static final String KEY_OVERHEAD_NSEC = "time-overhead-nsec";
+
+	/**
+	 * Time synchronization state
+	 */
+	public enum SyncState {
+		/** no time server configured, local clock is used */
+		LOCAL,
+		/** waiting for first response from time server, local clock is used */
+		PENDING,
+		/** synchronized with time server */
+		SYNCED,
+		/** last synchronization attempt failed */
+		FAILED
+	}
+
+	static volatile long timeOverheadNanos = 0;
+	static volatile long timeOverheadMillis = 0;
+	static volatile long adjustment = 0;
+	static volatile long updatedTime = 0;
+	static volatile long lastRttMillis = -1;
+	static volatile long syncFailures = 0;
+	static volatile SyncState syncState = TIME_SERVER != null? SyncState.PENDING: SyncState.LOCAL;
 	static ScheduledExecutorService scheduler;
 	static ClockDriftMonitorTask clockSyncTask = null;
+	static ClockTickerTask clockTicker = null;
+	static volatile long coarseUsecs = 0;
 
 	static NTPUDPClient timeServer = new NTPUDPClient();
 	static TimeInfo timeInfo;
 
 	static {
-		try {
-			timeOverheadNanos = calculateOverhead(ONE_M);
-			timeOverheadMillis = (timeOverheadNanos/ONE_M);
-			updateTime();
-		} catch (Throwable e) {
-			logger.log(OpLevel.ERROR,
-					"Unable to obtain NTP time: time.server={0}, timeout={1}",
-					TIME_SERVER, TIME_SERVER_TIMEOUT, e);
-        } finally {
-        	scheduleUpdates();
-        }
+		scheduleUpdates();
 	}
 
 	private TimeService() {
@@ -85,8 +122,40 @@ public class TimeService {
 		if (scheduler == null) {
 			scheduler = Executors.newScheduledThreadPool(1, new TimeServiceThreadFactory("TimeService/clock-sync"));
 			clockSyncTask = new ClockDriftMonitorTask(logger);
+			scheduler.submit(new TimeSyncStartupTask(logger));
 			scheduler.submit(clockSyncTask);
 		}
+		if (clockTicker == null && isCoarseClock()) {
+			clockTicker = new ClockTickerTask(CLOCK_RESOLUTION_USEC);
+			new TimeServiceThreadFactory("TimeService/clock-tick").newThread(clockTicker).start();
+		}
+	}
+
+	/**
+	 * Obtain configured clock mode (see {@code tnt4j.time.clock.mode} property)
+	 *
+	 * @return clock mode, {@code precise} or {@code coarse}
+	 */
+	public static String getClockMode() {
+		return CLOCK_MODE;
+	}
+
+	/**
+	 * Determine if coarse (cached) clock is enabled
+	 *
+	 * @return true if coarse clock is enabled, false otherwise
+	 */
+	public static boolean isCoarseClock() {
+		return CLOCK_MODE_COARSE.equalsIgnoreCase(CLOCK_MODE);
+	}
+
+	/**
+	 * Obtain resolution of the coarse clock in microseconds
+	 *
+	 * @return coarse clock resolution in microseconds
+	 */
+	public static long getClockResolutionUsec() {
+		return CLOCK_RESOLUTION_USEC;
 	}
 
 	/**
@@ -116,20 +185,87 @@ public class TimeService {
 		return TIME_SERVER_TIMEOUT;
 	}
 
+	/**
+	 * Obtain current time synchronization state
+	 *
+	 * @return time synchronization state
+	 */
+	public static SyncState getSyncState() {
+		return syncState;
+	}
+
+	/**
+	 * Obtain round trip time of the last NTP request
+	 *
+	 * @return round trip time in milliseconds, -1 if not available
+	 */
+	public static long getLastRttMillis() {
+		return lastRttMillis;
+	}
+
+	/**
+	 * Obtain number of failed NTP synchronization attempts
+	 *
+	 * @return number of failed synchronization attempts
+	 */
+	public static long getSyncFailureCount() {
+		return syncFailures;
+	}
+
+	/**
+	 * Obtain time service statistics into a given map
+	 *
+	 * @param stats map where key/values pairs are added (existing replaced)
+	 * @return map containing time service statistics
+	 */
+	public static Map<String, Object> getStats(Map<String, Object> stats) {
+		String pfix = TimeService.class.getSimpleName() + "/";
+		stats.put(pfix + KEY_SYNC_STATE, syncState.name());
+		stats.put(pfix + KEY_SYNC_RTT, lastRttMillis);
+		stats.put(pfix + KEY_SYNC_OFFSET, adjustment);
+		stats.put(pfix + KEY_SYNC_AGE, getUpdateAgeMillis());
+		stats.put(pfix + KEY_SYNC_FAILURES, syncFailures);
+		stats.put(pfix + KEY_SLEW_PENDING, Useconds.CURRENT.getPendingSlewUsecs());
+		stats.put(pfix + KEY_OVERHEAD_NSEC, timeOverheadNanos);
+		return stats;
+	}
+
+	/**
+	 * Calibrate overhead of obtaining current time. Called
+	 * once on a background thread during startup.
+	 */
+	static void calibrate() {
+		timeOverheadNanos = calculateOverhead(ONE_M);
+		timeOverheadMillis = (timeOverheadNanos/ONE_M);
+	}
+
 	/**
 	 * Obtain NTP time and synchronize with NTP server
 	 *
 	 * @throws IOException if error accessing time server
 	 */
-	public static void updateTime() throws IOException {
+	public static synchronized void updateTime() throws IOException {
 		if (TIME_SERVER != null) {
-			timeServer.setDefaultTimeout((int)TIME_SERVER_TIMEOUT);
-			String [] pair = TIME_SERVER.split(":");
-			InetAddress hostAddr = InetAddress.getByName(pair[0]);
-			timeInfo = pair.length < 2? timeServer.getTime(hostAddr): timeServer.getTime(hostAddr, Integer.parseInt(pair[1]));
-			timeInfo.computeDetails();
+			try {
+				timeServer.setDefaultTimeout((int)TIME_SERVER_TIMEOUT);
+				String [] pair = TIME_SERVER.split(":");
+				InetAddress hostAddr = InetAddress.getByName(pair[0]);
+				timeInfo = pair.length < 2? timeServer.getTime(hostAddr): timeServer.getTime(hostAddr, Integer.parseInt(pair[1]));
+				timeInfo.computeDetails();
+			} catch (IOException e) {
+				syncFailures++;
+				syncState = SyncState.FAILED;
+				throw e;
+			} catch (RuntimeException e) {
+				syncFailures++;
+				syncState = SyncState.FAILED;
+				throw e;
+			}
+			Long delay = timeInfo.getDelay();
+			lastRttMillis = delay != null? delay: -1;
 			adjustment = timeInfo.getOffset() - timeOverheadMillis;
 			updatedTime = currentTimeMillis();
+			syncState = SyncState.SYNCED;
 			if (TIME_SERVER_VERBOSE) {
 				logger.log(OpLevel.DEBUG, "Time server={0}, timeout.ms={1}, offset.ms={2}, delay.ms={3}, clock.adjust.ms={4}, overhead.nsec={5}",
 						TIME_SERVER, TIME_SERVER_TIMEOUT, timeInfo.getOffset(), timeInfo.getDelay(), adjustment, timeOverheadNanos);
@@ -175,6 +311,30 @@ public class TimeService {
 		return (System.currentTimeMillis() + adjustment)*ONE_K;
 	}
 
+	/**
+	 * Obtain NTP synchronized current time in microseconds as last published
+	 * by the clock ticker. Accurate to within {@link #getClockResolutionUsec()}
+	 * in coarse clock mode, same as {@code Useconds.CURRENT.get()} otherwise.
+	 *
+	 * @return current NTP synchronized time in microseconds
+	 */
+	public static long coarseTimeUsecs() {
+		long usecs = coarseUsecs;
+		return usecs > 0? usecs: Useconds.CURRENT.get();
+	}
+
+	/**
+	 * Obtain NTP synchronized current time in milliseconds as last published
+	 * by the clock ticker (see {@link #coarseTimeUsecs()}). Same as
+	 * {@link #currentTimeMillis()} when the ticker is not running (precise clock mode).
+	 *
+	 * @return current NTP synchronized time in milliseconds
+	 */
+	public static long coarseTimeMillis() {
+		long usecs = coarseUsecs;
+		return usecs > 0? usecs / ONE_K: currentTimeMillis();
+	}
+
 	/**
 	 * Obtain currently measured clock drift in milliseconds
 	 *
@@ -249,6 +409,43 @@ class TimeServiceThreadFactory implements ThreadFactory {
     }
 }
 
+class TimeSyncStartupTask implements Runnable {
+	EventSink logger;
+
+	TimeSyncStartupTask(EventSink lg) {
+		logger = lg;
+	}
+
+	@Override
+	public void run() {
+		try {
+			TimeService.calibrate();
+			TimeService.updateTime();
+			Useconds.CURRENT.sync();
+		} catch (Throwable e) {
+			logger.log(OpLevel.ERROR,
+					"Unable to obtain NTP time: time.server={0}, timeout={1}",
+					TimeService.getTimeServer(), TimeService.getTimeServerTimeout(), e);
+		}
+	}
+}
+
+class ClockTickerTask implements Runnable {
+	long resolutionNanos;
+
+	ClockTickerTask(long resolutionUsec) {
+		resolutionNanos = resolutionUsec * TimeService.ONE_K;
+	}
+
+	@Override
+	public void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			TimeService.coarseUsecs = Useconds.CURRENT.get();
+			LockSupport.parkNanos(resolutionNanos);
+		}
+	}
+}
+
 class ClockDriftMonitorTask implements Runnable {
 	private static final long TIME_CLOCK_DRIFT_SAMPLE = Integer.getInteger("tnt4j.time.server.drift.sample.ms", 10000);
 	private static final long TIME_CLOCK_DRIFT_LIMIT = Integer.getInteger("tnt4j.time.server.drift.limit.ms", 1);
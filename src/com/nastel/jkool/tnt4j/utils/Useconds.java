@@ -19,14 +19,43 @@ package com.nastel.jkool.tnt4j.utils;
  * This class generates microsecond precision current timestamp based on
  * NTP.
  * Example: {@code Useconds.CURRENT.get();}
+ * <p>
+ * {@code Useconds.COARSE.get()} returns the timestamp last published by the
+ * clock ticker when coarse clock mode is enabled (see {@link TimeService}), and should be used
+ * for timestamps that tolerate {@code tnt4j.time.clock.resolution.usec} accuracy. Use
+ * {@code Useconds.CURRENT} for elapsed time measurements.
+ * </p>
+ * <p>
+ * Clock corrections are never applied as step changes. {@link #sync()} measures the offset
+ * between this clock and NTP synchronized time and slews towards it at a bounded rate
+ * ({@code tnt4j.time.slew.ppm}, default 500), so the clock speeds up or slows down
+ * but never runs backwards. Forward offsets larger than {@code tnt4j.time.slew.step.ms}
+ * (default 128) are stepped immediately. Clock state is published as a single immutable
+ * object, so readers never observe a partially updated clock.
+ * </p>
  */
 public enum Useconds {
-	CURRENT;
-	private long startUsecs;
-	private long startNanos;
+	CURRENT,
+	COARSE {
+		@Override
+		public long get() {
+			return TimeService.coarseTimeUsecs();
+		}
+
+		@Override
+		public void sync() {
+			CURRENT.sync();
+		}
+	};
+
+	private static final long SLEW_PPM = Math.max(Long.getLong("tnt4j.time.slew.ppm", 500), 1);
+	private static final long STEP_USEC = Long.getLong("tnt4j.time.slew.step.ms", 128) * 1000;
+
+	private volatile ClockState state;
 
 	private Useconds() {
-		sync();
+		long usecs = TimeService.currentTimeUsecs();
+		state = new ClockState(System.nanoTime(), usecs * 1000, 0, 0);
 	}
 
 	/**
@@ -35,18 +64,73 @@ public enum Useconds {
 	 * @return synchronized microsecond timestamp
 	 */
 	public long get() {
-		long microSeconds = (System.nanoTime() - this.startNanos) / 1000;
-		long computeUsec = this.startUsecs + microSeconds;
-		return computeUsec;
+		return state.epochNanos(System.nanoTime()) / 1000;
+	}
+
+	/**
+	 * Obtain clock correction in microseconds still to be applied
+	 * by slewing (positive if clock is behind, negative if ahead).
+	 *
+	 * @return pending clock correction in microseconds
+	 */
+	public long getPendingSlewUsecs() {
+		return state.pendingSlew(System.nanoTime()) / 1000;
 	}
 
 	/**
 	 * Synchronized NTP millisecond clock and nanosecond/usec clocks to reduce
-	 * clock drift and improve accuracy.
+	 * clock drift and improve accuracy. Measured offset is applied gradually
+	 * (see class description).
 	 *
 	 */
-	public void sync() {
-		this.startUsecs = TimeService.currentTimeUsecs();
-		this.startNanos = System.nanoTime();
+	public synchronized void sync() {
+		long now = System.nanoTime();
+		long epochNanos = state.epochNanos(now);
+		long offset = TimeService.currentTimeUsecs() - (epochNanos / 1000);
+		if (Math.abs(offset) < 1000) {
+			// within resolution of the millisecond reference clock
+			return;
+		} else if (offset > STEP_USEC) {
+			state = new ClockState(now, epochNanos + (offset * 1000), 0, 0);
+		} else {
+			// slew duration in nanoseconds: |offset| usec at SLEW_PPM usec per second
+			long interval = Math.abs(offset) * 1000000000L / SLEW_PPM;
+			state = new ClockState(now, epochNanos, offset * 1000, interval);
+		}
+	}
+
+	/**
+	 * Immutable clock state: a linear mapping of {@code System.nanoTime()} to
+	 * nanoseconds since epoch, plus a correction spread evenly over a slew interval.
+	 * Every state starts exactly at the value of the previous one, so the clock is continuous
+	 * and, since slew rate is well below 100%, monotonic.
+	 */
+	static final class ClockState {
+		final long baseNanos;
+		final long baseEpochNanos;
+		final long slewNanos;
+		final long slewInterval;
+
+		ClockState(long baseNanos, long baseEpochNanos, long slewNanos, long slewInterval) {
+			this.baseNanos = baseNanos;
+			this.baseEpochNanos = baseEpochNanos;
+			this.slewNanos = slewNanos;
+			this.slewInterval = slewInterval;
+		}
+
+		long epochNanos(long nanos) {
+			long elapsed = nanos - baseNanos;
+			return baseEpochNanos + elapsed + slewed(elapsed);
+		}
+
+		long pendingSlew(long nanos) {
+			return slewNanos - slewed(nanos - baseNanos);
+		}
+
+		private long slewed(long elapsed) {
+			if (slewNanos == 0 || elapsed <= 0) return 0;
+			if (elapsed >= slewInterval) return slewNanos;
+			return (long) ((double) slewNanos * elapsed / slewInterval);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -45,6 +45,7 @@ import org.apache.commons.lang3.LocaleUtils;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.nastel.jkool.tnt4j.config.ComponentRegistry;
 import com.nastel.jkool.tnt4j.config.ConfigException;
 import com.nastel.jkool.tnt4j.config.Configurable;
 
@@ -969,7 +970,7 @@ public class Utils {
 	 *			  if error applying configuration
 	 */
 	public static Configurable applyConfiguration(String prefix, Map<String, Object> prop, Configurable cfg) throws ConfigException {
-		cfg.setConfiguration(getAttributes(prefix, prop));
+		cfg.setConfiguration(ComponentRegistry.bind(cfg, getAttributes(prefix, prop)));
 		return cfg;
 	}
 
@@ -987,7 +988,7 @@ public class Utils {
 	 *			  if error applying configuration
 	 */
 	public static Configurable applyConfiguration(String prefix, Properties prop, Configurable cfg) throws ConfigException {
-		cfg.setConfiguration(getAttributes(prefix, prop));
+		cfg.setConfiguration(ComponentRegistry.bind(cfg, getAttributes(prefix, prop)));
 		return cfg;
 	}
 
@@ -1034,10 +1035,11 @@ public class Utils {
 	}
 
 	/**
-	 * Create object instance based on specific class name
+	 * Create object instance based on specific class name or
+	 * component alias (see {@link ComponentRegistry})
 	 *
 	 *@param className
-	 *            name of the class
+	 *            name of the class or component alias
 	 *
 	 *@return instance of the objects specified by the class name
 	 *@throws Exception if error instantiating class
@@ -1045,8 +1047,7 @@ public class Utils {
 	public static Object createInstance(String className) throws Exception {
 		if (className == null)
 			return null;
-		Class<?> classObj = Class.forName(className);
-		return classObj.newInstance();
+		return ComponentRegistry.newInstance(className);
 	}
 
 	/**
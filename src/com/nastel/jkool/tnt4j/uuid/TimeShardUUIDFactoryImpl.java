@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014-2015 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nastel.jkool.tnt4j.uuid;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+
+import com.fasterxml.uuid.EthernetAddress;
+import com.nastel.jkool.tnt4j.utils.Useconds;
+
+/**
+ * Lock free UUID factory generating RFC 4122 time based (version 1) UUIDs.
+ * Each thread owns a distinct clock sequence (thread shard) and keeps its own last
+ * timestamp, so UUIDs are unique across threads without any shared lock or CAS
+ * on the generation path. Node is the MAC address of a local interface, or a random
+ * multicast address if none is available. UUIDs are rendered by a hex encoder writing
+ * directly into a char array.
+ * <p>
+ * Clock sequences are taken from a pool of 16384 and returned to it once the owning
+ * thread terminates and its shard is garbage collected. A returned sequence keeps its
+ * last timestamp, so the next owner never repeats a UUID of the previous one. When
+ * more than 16384 threads hold a shard at the same time, additional threads get a random
+ * clock sequence and a random multicast node (RFC 4122, section 4.5) instead of the MAC address.
+ * Use as follows: {@code DefaultUUIDFactory.setDefaultUUIDFactory(new TimeShardUUIDFactoryImpl())}
+ * or {@code uuid.factory: com.nastel.jkool.tnt4j.uuid.TimeShardUUIDFactoryImpl} in tnt4j configuration.
+ * </p>
+ *
+ * @see UUIDFactory
+ * @version $Revision: 1 $
+ */
+public class TimeShardUUIDFactoryImpl implements UUIDFactory {
+	/** number of 100ns intervals between 1582-10-15 (UUID epoch) and 1970-01-01 */
+	private static final long UUID_EPOCH_OFFSET = 0x01B21DD213814000L;
+	private static final int CLOCK_SEQ_MASK = 0x3FFF;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final long NODE;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/** clock sequences not owned by any live shard */
+	private static final ArrayDeque<Sequence> FREE_SEQ = new ArrayDeque<Sequence>(CLOCK_SEQ_MASK + 1);
+	/** references to shards owning a pooled clock sequence, indexed by sequence */
+	private static final ShardRef[] OWNED_SEQ = new ShardRef[CLOCK_SEQ_MASK + 1];
+	private static final ReferenceQueue<ThreadShard> RETIRED_SHARDS = new ReferenceQueue<ThreadShard>();
+
+	static {
+		EthernetAddress nic = EthernetAddress.fromInterface();
+		NODE = (nic != null? nic.toLong(): randomNode()) & 0xFFFFFFFFFFFFL;
+		int start = RANDOM.nextInt();
+		for (int i = 0; i <= CLOCK_SEQ_MASK; i++) {
+			FREE_SEQ.add(new Sequence((start + i) & CLOCK_SEQ_MASK));
+		}
+	}
+
+	private static final ThreadLocal<ThreadShard> SHARD = new ThreadLocal<ThreadShard>() {
+		@Override
+		protected ThreadShard initialValue() {
+			return newShard();
+		}
+	};
+
+	private static long randomNode() {
+		return RANDOM.nextLong() | 0x010000000000L;
+	}
+
+	private static ThreadShard newShard() {
+		synchronized (FREE_SEQ) {
+			ShardRef ref;
+			while ((ref = (ShardRef) RETIRED_SHARDS.poll()) != null) {
+				OWNED_SEQ[ref.seq.clockSeq] = null;
+				FREE_SEQ.add(ref.seq);
+			}
+			Sequence seq = FREE_SEQ.poll();
+			if (seq == null) {
+				// pool exhausted, uniqueness comes from a random node instead
+				return new ThreadShard(new Sequence(RANDOM.nextInt() & CLOCK_SEQ_MASK), randomNode() & 0xFFFFFFFFFFFFL);
+			}
+			ThreadShard shard = new ThreadShard(seq, NODE);
+			OWNED_SEQ[seq.clockSeq] = new ShardRef(shard, seq);
+			return shard;
+		}
+	}
+
+	@Override
+	public String newUUID() {
+		return SHARD.get().next();
+	}
+
+	@Override
+	public String newUUID(Object obj) {
+		return SHARD.get().next();
+	}
+
+	/**
+	 * Render UUID given as most and least significant bits into its
+	 * standard 36 character string representation
+	 *
+	 * @param msb most significant 64 bits
+	 * @param lsb least significant 64 bits
+	 * @return string representation of the UUID
+	 */
+	public static String toString(long msb, long lsb) {
+		char[] buf = new char[36];
+		hex(buf, 0, msb >>> 32, 8);
+		buf[8] = '-';
+		hex(buf, 9, msb >>> 16, 4);
+		buf[13] = '-';
+		hex(buf, 14, msb, 4);
+		buf[18] = '-';
+		hex(buf, 19, lsb >>> 48, 4);
+		buf[23] = '-';
+		hex(buf, 24, lsb, 12);
+		return new String(buf);
+	}
+
+	private static void hex(char[] buf, int offset, long value, int digits) {
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			buf[i] = HEX_DIGITS[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+	}
+
+	private static class Sequence {
+		final int clockSeq;
+		long lastTime;
+
+		Sequence(int clockSeq) {
+			this.clockSeq = clockSeq;
+		}
+	}
+
+	private static class ShardRef extends WeakReference<ThreadShard> {
+		final Sequence seq;
+
+		ShardRef(ThreadShard shard, Sequence seq) {
+			super(shard, RETIRED_SHARDS);
+			this.seq = seq;
+		}
+	}
+
+	private static class ThreadShard {
+		final long lsb;
+		final Sequence seq;
+
+		ThreadShard(Sequence seq, long node) {
+			this.seq = seq;
+			this.lsb = ((long) (seq.clockSeq | 0x8000) << 48) | node;
+		}
+
+		String next() {
+			long time = Useconds.CURRENT.get() * 10 + UUID_EPOCH_OFFSET;
+			// never reuse a timestamp of this clock sequence
+			if (time <= seq.lastTime) {
+				time = seq.lastTime + 1;
+			}
+			seq.lastTime = time;
+			long msb = (time << 32) | ((time >>> 16) & 0xFFFF0000L) | 0x1000L | ((time >>> 48) & 0x0FFFL);
+			return TimeShardUUIDFactoryImpl.toString(msb, lsb);
+		}
+	}
+}